@@ -119,17 +119,50 @@ Note: I don’t provide medical advice.`);
     this.isSending = true;
     this.isBotTyping = true;
 
-    // Call backend (expects Observable<{ reply: string }>)
-    this.http.sendMessage(text).subscribe({
-      next: (res: any) => {
-        if (res && typeof res.reply === 'string' && res.reply.trim().length > 0) {
+    // Stream the reply: the bot bubble appears with the first token and grows as tokens arrive
+    const botMsg: ChatMessage = {
+      id: this.uuid(),
+      sender: 'bot',
+      text: '',
+      time: Date.now(),
+      status: 'sending'
+    };
+    let started = false;
+
+    const finish = () => {
+      this.isSending = false;
+      this.isBotTyping = false;
+      this.persistHistory();
+      this.scrollToBottom();
+    };
+
+    this.http.streamMessage(text).subscribe({
+      next: (token: string) => {
+        if (!started) {
+          started = true;
+          this.isBotTyping = false;
+          this.pushMessage(botMsg);
+        }
+        botMsg.text += token;
+        this.scrollToBottom();
+      },
+      error: () => {
+        if (started) {
+          botMsg.status = 'error';
+        } else {
           this.pushMessage({
             id: this.uuid(),
-            sender: 'bot',
-            text: res.reply,
+            sender: 'system',
+            text: 'Sorry, I could not process that right now. Please try again.',
             time: Date.now(),
-            status: 'sent'
+            status: 'error'
           });
+        }
+        finish();
+      },
+      complete: () => {
+        if (started && botMsg.text.trim().length > 0) {
+          botMsg.status = 'sent';
         } else {
           this.pushMessage({
             id: this.uuid(),
@@ -139,21 +172,7 @@ Note: I don’t provide medical advice.`);
             status: 'error'
           });
         }
-      },
-      error: () => {
-        this.pushMessage({
-          id: this.uuid(),
-          sender: 'system',
-          text: 'Sorry, I could not process that right now. Please try again.',
-          time: Date.now(),
-          status: 'error'
-        });
-      },
-      complete: () => {
-        this.isSending = false;
-        this.isBotTyping = false;
-        this.persistHistory();
-        this.scrollToBottom();
+        finish();
       }
     });
 
@@ -14,6 +14,9 @@ export class DoctorPatientHistoryComponent implements OnInit, OnDestroy {
 
   medicalRecords: any[] = [];
   isLoading = false;
+  // Cursor of the next (older) page of records; null once the oldest is shown
+  nextCursor: string | null = null;
+  isLoadingMore = false;
 
   // For pretty skeleton rows while loading
   skeletonRows = Array.from({ length: 6 });
@@ -62,9 +65,10 @@ export class DoctorPatientHistoryComponent implements OnInit, OnDestroy {
   loadPatientHistory(): void {
     this.isLoading = true;
     this.medicalRecords = [];
+    this.nextCursor = null;
     this.httpService.getPatientRecords(this.patientId).subscribe({
-      next: (data: any) => {
-        this.medicalRecords = Array.isArray(data) ? data : (data ? [data] : []);
+      next: (page: any) => {
+        this.showPage(page);
         this.isLoading = false;
       },
       error: (err) => {
@@ -75,6 +79,28 @@ export class DoctorPatientHistoryComponent implements OnInit, OnDestroy {
     });
   }
 
+  // Appends the next, older page of the history
+  loadMore(): void {
+    if (!this.nextCursor || this.isLoadingMore) return;
+    this.isLoadingMore = true;
+    this.httpService.getPatientRecords(this.patientId, this.nextCursor).subscribe({
+      next: (page: any) => {
+        this.showPage(page, true);
+        this.isLoadingMore = false;
+      },
+      error: (err) => {
+        console.error('Error loading more patient records:', err);
+        this.isLoadingMore = false;
+      }
+    });
+  }
+
+  private showPage(page: any, append = false): void {
+    const items = page?.items || [];
+    this.medicalRecords = append ? [...this.medicalRecords, ...items] : items;
+    this.nextCursor = page?.nextCursor ?? null;
+  }
+
   addNewRecord(): void {
     this.router.navigate(['/doctor/add-medical-record', this.patientId]);
   }
@@ -13,9 +13,14 @@ export class DoctorPatientSearchComponent implements OnInit, OnDestroy {
   // Data
   patientList: any[] = [];
   searchQuery: string = '';
+  // Cursor of the next page of patients; null once the last page is shown
+  nextCursor: string | null = null;
+  // Term of the list on screen, which nextCursor belongs to
+  private listedTerm: string = '';
 
   // UI state
   isSearching: boolean = false;
+  isLoadingMore: boolean = false;
   showInitialHint: boolean = true;
 
   // For skeleton loaders
@@ -44,16 +49,17 @@ export class DoctorPatientSearchComponent implements OnInit, OnDestroy {
       switchMap((term: string) => {
         this.isSearching = true;
         this.showInitialHint = false;
+        this.listedTerm = term || '';
         return this.httpService.searchPatients(term || '');
       })
     ).subscribe(
-      (data: any) => {
-        this.patientList = data || [];
+      (page: any) => {
+        this.showPage(page);
         this.isSearching = false;
       },
       (error) => {
         console.error('=== SEARCH ERROR ===', error);
-        this.patientList = [];
+        this.showPage(null);
         this.isSearching = false;
       }
     );
@@ -79,14 +85,15 @@ export class DoctorPatientSearchComponent implements OnInit, OnDestroy {
     this.isSearching = true;
     this.showInitialHint = true;
     this.patientList = [];
+    this.listedTerm = '';
     this.httpService.searchPatients('').subscribe(
-      (data: any) => {
-        this.patientList = data || [];
+      (page: any) => {
+        this.showPage(page);
         this.isSearching = false;
       },
       (error) => {
         console.error('=== ERROR LOADING PATIENTS ===', error);
-        this.patientList = [];
+        this.showPage(null);
         this.isSearching = false;
       }
     );
@@ -106,19 +113,42 @@ export class DoctorPatientSearchComponent implements OnInit, OnDestroy {
     this.isSearching = true;
     this.showInitialHint = false;
     this.patientList = [];
+    this.listedTerm = query;
     this.httpService.searchPatients(query).subscribe(
-      (data: any) => {
-        this.patientList = data || [];
+      (page: any) => {
+        this.showPage(page);
         this.isSearching = false;
       },
       (error) => {
         console.error('=== SEARCH ERROR ===', error);
-        this.patientList = [];
+        this.showPage(null);
         this.isSearching = false;
       }
     );
   }
 
+  // Appends the next page of the list on screen
+  loadMore() {
+    if (!this.nextCursor || this.isLoadingMore) return;
+    this.isLoadingMore = true;
+    this.httpService.searchPatients(this.listedTerm, this.nextCursor).subscribe(
+      (page: any) => {
+        this.showPage(page, true);
+        this.isLoadingMore = false;
+      },
+      (error) => {
+        console.error('=== ERROR LOADING MORE PATIENTS ===', error);
+        this.isLoadingMore = false;
+      }
+    );
+  }
+
+  private showPage(page: any, append: boolean = false) {
+    const items = page?.items || [];
+    this.patientList = append ? [...this.patientList, ...items] : items;
+    this.nextCursor = page?.nextCursor ?? null;
+  }
+
   // Tracking for *ngFor
   trackById = (_: number, item: any) => item?.id ?? _;
 
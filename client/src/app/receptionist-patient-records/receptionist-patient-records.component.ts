@@ -12,14 +12,23 @@ import { HttpResponse } from '@angular/common/http';
 export class ReceptionistPatientRecordsComponent implements OnInit, OnDestroy {
  
   patientList: any[] = [];
+  // Cursor of the next page of patients; null once the last page is shown
+  nextCursor: string | null = null;
+  isLoadingMore = false;
+  // Term of the list on screen, which nextCursor belongs to
+  private listedTerm = '';
   selectedPatientId: number | null = null;
   selectedPatientName: string | null = null;
   medicalRecords: any[] = [];
   searchQuery = '';
   isSearching = false;
   isLoadingRecords = false;
+  // Cursor of the next (older) page of the selected patient's records
+  recordsCursor: string | null = null;
+  isLoadingMoreRecords = false;
  
   downloadingRecordId: number | null = null;
+  exportingFormat: 'pdf' | 'zip' | null = null;
  
   private searchSubject = new Subject<string>();
  
@@ -33,12 +42,13 @@ export class ReceptionistPatientRecordsComponent implements OnInit, OnDestroy {
       distinctUntilChanged(),
       switchMap(term => {
         this.isSearching = true;
+        this.listedTerm = term;
         return this.httpService.searchPatientsByReceptionist(term)
           .pipe(finalize(() => (this.isSearching = false)));
       })
     ).subscribe(
-      data => this.patientList = data || [],
-      _ => this.patientList = []
+      page => this.showPage(page),
+      _ => this.showPage(null)
     );
   }
  
@@ -49,11 +59,12 @@ export class ReceptionistPatientRecordsComponent implements OnInit, OnDestroy {
   loadAllPatients() {
     this.isSearching = true;
     this.patientList = [];
+    this.listedTerm = '';
     this.httpService.searchPatientsByReceptionist('')
       .pipe(finalize(() => (this.isSearching = false)))
       .subscribe(
-        data => this.patientList = data || [],
-        _ => this.patientList = []
+        page => this.showPage(page),
+        _ => this.showPage(null)
       );
   }
  
@@ -64,14 +75,33 @@ export class ReceptionistPatientRecordsComponent implements OnInit, OnDestroy {
   onSearch() {
     this.isSearching = true;
     this.patientList = [];
+    this.listedTerm = this.searchQuery;
     this.httpService.searchPatientsByReceptionist(this.searchQuery)
       .pipe(finalize(() => (this.isSearching = false)))
       .subscribe(
-        data => this.patientList = data || [],
-        _ => this.patientList = []
+        page => this.showPage(page),
+        _ => this.showPage(null)
       );
   }
  
+  // Appends the next page of the current search (or listing)
+  loadMore() {
+    if (!this.nextCursor || this.isLoadingMore) { return; }
+    this.isLoadingMore = true;
+    this.httpService.searchPatientsByReceptionist(this.listedTerm, this.nextCursor)
+      .pipe(finalize(() => (this.isLoadingMore = false)))
+      .subscribe(
+        page => this.showPage(page, true),
+        _ => this.nextCursor = null
+      );
+  }
+ 
+  private showPage(page: any, append = false) {
+    const items = page?.items || [];
+    this.patientList = append ? [...this.patientList, ...items] : items;
+    this.nextCursor = page?.nextCursor ?? null;
+  }
+ 
   viewRecords(patientId: number) {
     this.selectedPatientId = patientId;
     this.selectedPatientName = null;
@@ -83,18 +113,38 @@ export class ReceptionistPatientRecordsComponent implements OnInit, OnDestroy {
       error: _ => this.selectedPatientName = null
     });
  
+    this.recordsCursor = null;
     this.httpService.getPatientRecordsByReceptionist(patientId)
       .pipe(finalize(() => (this.isLoadingRecords = false)))
       .subscribe(
-        data => this.medicalRecords = data || [],
-        _ => this.medicalRecords = []
+        page => this.showRecords(page),
+        _ => this.showRecords(null)
       );
   }
  
+  // Appends the next, older page of the selected patient's records
+  loadMoreRecords() {
+    if (!this.selectedPatientId || !this.recordsCursor || this.isLoadingMoreRecords) { return; }
+    this.isLoadingMoreRecords = true;
+    this.httpService.getPatientRecordsByReceptionist(this.selectedPatientId, this.recordsCursor)
+      .pipe(finalize(() => (this.isLoadingMoreRecords = false)))
+      .subscribe(
+        page => this.showRecords(page, true),
+        _ => this.recordsCursor = null
+      );
+  }
+ 
+  private showRecords(page: any, append = false) {
+    const items = page?.items || [];
+    this.medicalRecords = append ? [...this.medicalRecords, ...items] : items;
+    this.recordsCursor = page?.nextCursor ?? null;
+  }
+ 
   closeRecords() {
     this.selectedPatientId = null;
     this.selectedPatientName = null;
     this.medicalRecords = [];
+    this.recordsCursor = null;
     this.loadAllPatients();
   }
  
@@ -158,6 +208,34 @@ export class ReceptionistPatientRecordsComponent implements OnInit, OnDestroy {
     });
   }
  
+  // All of the selected patient's reports in one download
+  exportAllReports(format: 'pdf' | 'zip') {
+    if (!this.selectedPatientId || this.exportingFormat) { return; }
+    this.exportingFormat = format;
+
+    this.httpService.exportMedicalRecordReports(this.selectedPatientId, format).subscribe({
+      next: (res: HttpResponse<Blob>) => {
+        this.exportingFormat = null;
+        const cd = res.headers.get('Content-Disposition') || '';
+        const filename = this.extractFilename(cd) || `Patient_${this.selectedPatientId}_Records.${format}`;
+
+        const url = window.URL.createObjectURL(res.body as Blob);
+        const a = document.createElement('a');
+        a.href = url;
+        a.download = filename;
+        document.body.appendChild(a);
+        a.click();
+        a.remove();
+        window.URL.revokeObjectURL(url);
+      },
+      error: async (err) => {
+        this.exportingFormat = null;
+        const reason = await this.tryReadText(err?.error);
+        alert(reason || 'Failed to export reports. Please try again.');
+      }
+    });
+  }
+ 
   private extractFilename(contentDisposition: string): string | null {
     // content-disposition: attachment; filename="Record_1.pdf"
     const match = /filename\*=UTF-8''([^;]+)|filename=\"?([^\";]+)\"?/i.exec(contentDisposition || '');
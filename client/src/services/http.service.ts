@@ -1,7 +1,8 @@
 
 import { Injectable } from '@angular/core';
 import { HttpClient, HttpHeaders,HttpParams, HttpResponse  } from '@angular/common/http';
-import { Observable } from 'rxjs';
+import { Observable, of, throwError, timer } from 'rxjs';
+import { first, switchMap } from 'rxjs/operators';
 import { environment } from '../environments/environment';
 import { AuthService } from './auth.service';
 
@@ -154,6 +155,63 @@ sendMessage(message: string): Observable<any> {
   );
 }
 
+// Streams the assistant's reply token by token (server-sent events over a POST,
+// which EventSource cannot send, so the response body is read with fetch)
+streamMessage(message: string): Observable<string> {
+  return new Observable<string>(subscriber => {
+    const controller = new AbortController();
+
+    fetch(this.serverName + '/api/chatbot/chat/stream', {
+      method: 'POST',
+      headers: { 'Content-Type': 'application/json', 'Accept': 'text/event-stream' },
+      body: JSON.stringify({ message }),
+      signal: controller.signal
+    }).then(async response => {
+      if (!response.ok || !response.body) {
+        throw new Error(`Chat stream failed: ${response.status}`);
+      }
+      const reader = response.body.getReader();
+      const decoder = new TextDecoder();
+      let buffer = '';
+
+      while (true) {
+        const { done, value } = await reader.read();
+        if (done) break;
+        buffer += decoder.decode(value, { stream: true });
+
+        // Events are separated by a blank line
+        let boundary: number;
+        while ((boundary = buffer.indexOf('\n\n')) >= 0) {
+          const frame = buffer.slice(0, boundary);
+          buffer = buffer.slice(boundary + 2);
+
+          let event = 'message';
+          let data = '';
+          for (const line of frame.split('\n')) {
+            if (line.startsWith('event:')) event = line.slice(6).trim();
+            else if (line.startsWith('data:')) data += line.slice(5);
+          }
+
+          if (event === 'token') {
+            subscriber.next(JSON.parse(data).token);
+          } else if (event === 'error') {
+            throw new Error(JSON.parse(data).error);
+          } else if (event === 'done') {
+            subscriber.complete();
+            return;
+          }
+        }
+      }
+      subscriber.complete();
+    }).catch(err => {
+      if (!controller.signal.aborted) subscriber.error(err);
+    });
+
+    // Unsubscribing closes the connection
+    return () => controller.abort();
+  });
+}
+
 // Delete Appointment
   deleteAppointment(appointmentId: number): Observable<any> {
     return this.http.delete(
@@ -288,11 +346,15 @@ addMedicalRecord(details: {
 }
 
 
-// Doctor views a patient's medical records. Uses path param + anti-cache param.  //////////////////////////////////////
+// Doctor views a patient's medical records, newest first. Uses path param + anti-cache param.  //////////////////////////////////////
+// Responds { items, nextCursor } one page at a time; pass nextCursor as 'after' for the next page.
 
-getPatientRecords(patientId: string | number): Observable<any> {
+getPatientRecords(patientId: string | number, after?: string | null): Observable<any> {
   // optional cache-buster param 't'
-  const params = new HttpParams().set('t', String(Date.now()));
+  let params = new HttpParams().set('t', String(Date.now()));
+  if (after) {
+    params = params.set('after', after);
+  }
 
   return this.http.get(
     `${this.serverName}/api/doctor/patients/${patientId}/records`,
@@ -305,12 +367,16 @@ getPatientRecords(patientId: string | number): Observable<any> {
 
 
 
-// Search patients by a free-text term.
+// Search patients by a free-text term (an empty term lists them), one page at a time.
+// Responds { items, nextCursor }; pass nextCursor as 'after' for the next page (null on the last).
 // Adds 't' (timestamp) to prevent browser/proxy caching of identical queries.
-searchPatients(searchTerm: string): Observable<any> {
-  const params = new HttpParams()
+searchPatients(searchTerm: string, after?: string | null): Observable<any> {
+  let params = new HttpParams()
     .set('searchTerm', searchTerm || '')
     .set('t', String(Date.now()));
+  if (after) {
+    params = params.set('after', after);
+  }
 
   return this.http.get(`${this.serverName}/api/patients/search`, {
     headers: this.authHeaders(),
@@ -319,26 +385,56 @@ searchPatients(searchTerm: string): Observable<any> {
 }
 
 // Alias for receptionist context; currently same endpoint/behavior.
-  searchPatientsByReceptionist(searchTerm: string): Observable<any> {
-    return this.searchPatients(searchTerm);
+  searchPatientsByReceptionist(searchTerm: string, after?: string | null): Observable<any> {
+    return this.searchPatients(searchTerm, after);
   }
 
     // Download a generated medical record report (e.g., PDF).
+  // The server renders reports in the background: submit a job, poll it until it is DONE
+  // (immediately when the record's report is already cached), then fetch the file.
   // Uses observe: 'response' so caller can inspect headers like content-type/filename.
   // responseType: 'blob' ensures binary data is returned.
   downloadMedicalRecordReport(recordId: number | string): Observable<HttpResponse<Blob>> {
-    return this.http.get(`${this.serverName}/api/records/${recordId}/report`, {
+    const headers = this.authHeaders();
+    const finished = (job: any) => job.status === 'DONE' || job.status === 'FAILED';
+
+    return this.http.post<any>(`${this.serverName}/api/records/${recordId}/report/jobs`, null, { headers }).pipe(
+      switchMap(job => finished(job)
+        ? of(job)
+        : timer(1000, 1500).pipe(
+            switchMap(() => this.http.get<any>(`${this.serverName}${job.statusUrl}`, { headers })),
+            first(finished)
+          )),
+      switchMap(job => job.status === 'FAILED'
+        ? throwError(() => ({ error: job.error || 'Failed to generate report.' }))
+        : this.http.get(`${this.serverName}${job.downloadUrl}`, {
+            headers,
+            observe: 'response',
+            responseType: 'blob'
+          }))
+    );
+  }
+
+
+  // Bulk export of every record of a patient: one merged PDF or a ZIP with one PDF per record.
+  // The server renders the records in parallel, so this takes about as long as the slowest one.
+  exportMedicalRecordReports(patientId: number | string, format: 'pdf' | 'zip'): Observable<HttpResponse<Blob>> {
+    return this.http.post(`${this.serverName}/api/records/report/export`, { patientId }, {
       headers: this.authHeaders(),
+      params: new HttpParams().set('format', format),
       observe: 'response',
       responseType: 'blob'
     });
   }
 
 
-    // Receptionist views a patient's medical records (restricted subset server-side).
+    // Receptionist views a patient's medical records (restricted subset server-side), paged like getPatientRecords.
 
-getPatientRecordsByReceptionist(patientId: string | number): Observable<any> {
-  const params = new HttpParams().set('t', String(Date.now())); // cache-buster
+getPatientRecordsByReceptionist(patientId: string | number, after?: string | null): Observable<any> {
+  let params = new HttpParams().set('t', String(Date.now())); // cache-buster
+  if (after) {
+    params = params.set('after', after);
+  }
   return this.http.get(
     `${this.serverName}/api/receptionist/patients/${patientId}/records`,
     { headers: this.authHeaders(), params }
@@ -39,9 +39,11 @@ public void init() {
         log.info("Healthcare Appointment Management System started successfully");
     }
 
-    @Scheduled(fixedRate = 60000)
+    // Fixed delay: a slow run is never overlapped by the next one, which starts where its window ended
+    @Scheduled(fixedDelayString = "${reminder.poll-interval-ms:60000}",
+               initialDelayString = "${reminder.initial-delay-ms:10000}")
     public void reminderScheduler() {
-        log.info("Reminder scheduler running");
+        log.debug("Reminder scheduler running");
         appointmentService.sendAppointmentReminders();
     }
 }
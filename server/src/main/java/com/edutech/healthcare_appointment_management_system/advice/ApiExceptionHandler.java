@@ -1,6 +1,9 @@
 
 package com.edutech.healthcare_appointment_management_system.advice;
 
+import com.edutech.healthcare_appointment_management_system.exception.GroqRateLimitedException;
+import com.edutech.healthcare_appointment_management_system.exception.ReportQueueFullException;
+import com.edutech.healthcare_appointment_management_system.exception.SlotAlreadyBookedException;
 import com.edutech.healthcare_appointment_management_system.exception.UsernameAlreadyTakenException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
@@ -19,6 +22,29 @@ public class ApiExceptionHandler {
                 .body(Map.of("error", ex.getMessage()));
     }
 
+    // Losing side of a concurrent booking for the same doctor and slot
+    @ExceptionHandler(SlotAlreadyBookedException.class)
+    public ResponseEntity<Map<String, String>> handleSlotTaken(SlotAlreadyBookedException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", ex.getMessage()));
+    }
+
+    // The shared Groq quota is exhausted and the request waited past its lane's limit
+    @ExceptionHandler(GroqRateLimitedException.class)
+    public ResponseEntity<Map<String, String>> handleGroqRateLimited(GroqRateLimitedException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header("Retry-After", "10")
+                .body(Map.of("error", ex.getMessage()));
+    }
+
+    // Every report worker is busy and the job queue is full
+    @ExceptionHandler(ReportQueueFullException.class)
+    public ResponseEntity<Map<String, String>> handleReportQueueFull(ReportQueueFullException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "30")
+                .body(Map.of("error", ex.getMessage()));
+    }
+
     // If DB unique constraint fires first (race conditions), also return 409
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity<Map<String, String>> handleUniqueConstraint(DataIntegrityViolationException ex) {
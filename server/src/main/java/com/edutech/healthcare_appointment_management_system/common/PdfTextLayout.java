@@ -0,0 +1,148 @@
+package com.edutech.healthcare_appointment_management_system.common;
+
+import org.apache.pdfbox.pdmodel.font.PDFont;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Text measuring and line wrapping for the PDF reports, without re-measuring strings.
+ *
+ * PDFont.getStringWidth encodes the whole string and sums the width of every glyph each
+ * time it is called, so wrapping by measuring the growing line for every word is quadratic
+ * in the paragraph length. Here each glyph width is looked up once per font and kept in a
+ * table, a line's width is accumulated as words are added, and fixed strings (headers,
+ * footers) are measured once.
+ *
+ * Widths are summed glyph by glyph in the same order as getStringWidth, so every width and
+ * every line break is identical to measuring with PDFBox directly. Text the font cannot
+ * encode fails the same way, with PDFBox's IllegalArgumentException.
+ */
+public final class PdfTextLayout {
+
+    private static final Map<PDFont, GlyphWidths> WIDTHS = new ConcurrentHashMap<>();
+    private static final Map<PDFont, Map<String, Float>> FIXED_TEXT = new ConcurrentHashMap<>();
+
+    private PdfTextLayout() {}
+
+    /**
+     * Width of the text in points, as font.getStringWidth(text) / 1000 * fontSize.
+     */
+    public static float width(String text, PDFont font, float fontSize) throws IOException {
+        return units(text, widths(font)) / 1000 * fontSize;
+    }
+
+    /**
+     * Same as {@link #width}, memoized for strings that are drawn on every page.
+     */
+    public static float fixedWidth(String text, PDFont font, float fontSize) throws IOException {
+        Map<String, Float> known = FIXED_TEXT.computeIfAbsent(font, f -> new ConcurrentHashMap<>());
+        Float units = known.get(text);
+        if (units == null) {
+            units = units(text, widths(font));
+            known.put(text, units);
+        }
+        return units / 1000 * fontSize;
+    }
+
+    /**
+     * Greedy word wrap at maxWidth. Words are separated by runs of whitespace; a word wider
+     * than maxWidth gets a line of its own.
+     */
+    public static List<String> wrap(String text, PDFont font, float fontSize, float maxWidth) throws IOException {
+        GlyphWidths glyphs = widths(font);
+        float space = glyphs.of(' ');
+
+        List<String> lines = new ArrayList<>();
+        String[] words = text.split("\\s+");
+        StringBuilder line = new StringBuilder();
+        float lineUnits = 0;
+
+        for (String word : words) {
+            // Width of line + " " + word, continuing the running sum of the line
+            float candidate = line.length() == 0 ? 0 : lineUnits + space;
+            candidate = accumulate(candidate, word, glyphs);
+
+            if (candidate / 1000 * fontSize > maxWidth) {
+                if (line.length() > 0) {
+                    // The word starts the next line
+                    lines.add(line.toString());
+                    line.setLength(0);
+                    line.append(word);
+                    lineUnits = accumulate(0, word, glyphs);
+                } else {
+                    // Single word larger than maxWidth; add it anyway as a line
+                    lines.add(word);
+                    lineUnits = 0;
+                }
+            } else {
+                if (line.length() > 0) {
+                    line.append(' ');
+                }
+                line.append(word);
+                lineUnits = candidate;
+            }
+        }
+
+        if (line.length() > 0) {
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    private static float units(String text, GlyphWidths glyphs) throws IOException {
+        return accumulate(0, text, glyphs);
+    }
+
+    private static float accumulate(float units, String text, GlyphWidths glyphs) throws IOException {
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            units += glyphs.of(codePoint);
+            i += Character.charCount(codePoint);
+        }
+        return units;
+    }
+
+    private static GlyphWidths widths(PDFont font) {
+        return WIDTHS.computeIfAbsent(font, GlyphWidths::new);
+    }
+
+    /** Glyph widths of one font in text space units (1/1000 em), filled in as characters are seen. */
+    private static final class GlyphWidths {
+        private final PDFont font;
+        // Latin-1 in an array; anything else (rare in reports) in a map
+        private final float[] latin = new float[256];
+        private final Map<Integer, Float> other = new ConcurrentHashMap<>();
+
+        GlyphWidths(PDFont font) {
+            this.font = font;
+            Arrays.fill(latin, Float.NaN);
+        }
+
+        float of(int codePoint) throws IOException {
+            if (codePoint < latin.length) {
+                float w = latin[codePoint];
+                if (Float.isNaN(w)) {
+                    w = measure(codePoint);
+                    latin[codePoint] = w;
+                }
+                return w;
+            }
+            Float w = other.get(codePoint);
+            if (w == null) {
+                w = measure(codePoint);
+                other.put(codePoint, w);
+            }
+            return w;
+        }
+
+        // Throws IllegalArgumentException for characters the font cannot encode
+        private float measure(int codePoint) throws IOException {
+            return font.getStringWidth(new String(Character.toChars(codePoint)));
+        }
+    }
+}
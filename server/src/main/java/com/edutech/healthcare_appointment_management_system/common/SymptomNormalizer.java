@@ -0,0 +1,46 @@
+package com.edutech.healthcare_appointment_management_system.common;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Reduces free-text symptoms to a canonical key so that rephrasings of the same complaint
+ * ("Chest pain and shortness of breath" / "shortness of breath, chest pain!") map to the
+ * same classification: lowercased, punctuation and stop-words removed, tokens de-duplicated
+ * and sorted.
+ */
+public final class SymptomNormalizer {
+
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "a", "about", "after", "all", "also", "am", "an", "and", "any", "are", "as", "at",
+            "be", "been", "before", "being", "but", "by", "can", "could", "did", "do", "does",
+            "doing", "during", "for", "from", "had", "has", "have", "having", "he", "her", "his",
+            "i", "i'm", "if", "im", "in", "into", "is", "it", "its", "just", "me", "my", "myself",
+            "of", "on", "or", "our", "she", "since", "so", "some", "that", "the", "their", "them",
+            "then", "there", "these", "they", "this", "those", "to", "too", "up", "very", "was",
+            "we", "were", "what", "when", "which", "while", "with", "would", "you", "your",
+            "feel", "feeling", "getting", "got", "experiencing", "suffering", "lot",
+            "really", "much", "bit", "little", "sometimes", "lately", "recently", "days", "day",
+            "past", "last", "week", "weeks"
+    ));
+
+    private SymptomNormalizer() {
+    }
+
+    public static String normalize(String symptoms) {
+        if (symptoms == null) {
+            return "";
+        }
+        String cleaned = symptoms.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9 ]", " ");
+        Set<String> tokens = new TreeSet<>();
+        for (String token : cleaned.split("\\s+")) {
+            if (!token.isEmpty() && !STOP_WORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return String.join(" ", tokens);
+    }
+}
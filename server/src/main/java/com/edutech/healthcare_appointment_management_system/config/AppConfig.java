@@ -13,6 +13,8 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
  
 import java.util.concurrent.Executor;
+
+import java.util.concurrent.ThreadPoolExecutor;
  
  
 @Configuration
@@ -43,6 +45,50 @@ public class AppConfig {
 
     }
 
-}
+    // Parallel reminder sends; each task carries one batch over its own SMTP connection.
+    // When saturated the dispatcher thread sends the batch itself instead of dropping it.
+    @Bean(name = "reminderTaskExecutor")
+
+    public Executor reminderTaskExecutor() {
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        executor.setCorePoolSize(4);
+
+        executor.setMaxPoolSize(4);
+
+        executor.setQueueCapacity(50);
+
+        executor.setThreadNamePrefix("reminder-");
+
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+
+        executor.initialize();
+
+        return executor;
+
+    }
+
+    // PDF report jobs; each one holds a worker for the whole Groq narrative call.
+    // No CallerRunsPolicy here: a full queue is rejected so the request thread never renders.
+    @Bean(name = "reportTaskExecutor")
+
+    public Executor reportTaskExecutor() {
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        executor.setCorePoolSize(3);
+
+        executor.setMaxPoolSize(3);
+
+        executor.setQueueCapacity(50);
 
- 
\ No newline at end of file
+        executor.setThreadNamePrefix("report-");
+
+        executor.initialize();
+
+        return executor;
+
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.edutech.healthcare_appointment_management_system.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read-through caches for hot, rarely changing lookups.
+ *
+ * Every cache has a local Caffeine L1; with {@code cache.redis.enabled=true} a Redis L2 is
+ * shared by all instances. TTLs can be overridden per cache with {@code cache.ttl.<name>}
+ * (e.g. {@code cache.ttl.doctors=2m}).
+ *
+ * Cached values must be DTOs, never JPA entities: the L2 stores them as class-typed JSON,
+ * so an entity would put every column (password hashes included) into Redis and tie the
+ * stored payloads to the entity's layout.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String DOCTORS = "doctors";
+    public static final String DOCTOR_PROFILES = "doctorProfiles";
+    public static final String DOCTOR_BRIEFS = "doctorBriefs";
+    public static final String PATIENT_BRIEFS = "patientBriefs";
+
+    private static final Map<String, Duration> DEFAULT_TTLS = new LinkedHashMap<>();
+
+    static {
+        DEFAULT_TTLS.put(DOCTORS, Duration.ofMinutes(1));
+        DEFAULT_TTLS.put(DOCTOR_PROFILES, Duration.ofMinutes(10));
+        DEFAULT_TTLS.put(DOCTOR_BRIEFS, Duration.ofMinutes(30));
+        DEFAULT_TTLS.put(PATIENT_BRIEFS, Duration.ofMinutes(30));
+    }
+
+    @Bean
+    public CacheManager cacheManager(Environment env,
+                                     MeterRegistry meterRegistry,
+                                     ObjectProvider<RedisConnectionFactory> redisConnectionFactory,
+                                     @Value("${cache.redis.enabled:false}") boolean redisEnabled,
+                                     @Value("${cache.l1.max-ttl:30s}") Duration l1MaxTtl,
+                                     @Value("${cache.l1.maximum-size:10000}") long l1MaximumSize) {
+        Map<String, Duration> ttls = new LinkedHashMap<>();
+        DEFAULT_TTLS.forEach((name, ttl) -> ttls.put(name, env.getProperty("cache.ttl." + name, Duration.class, ttl)));
+
+        CacheManager l2 = redisEnabled ? redisCacheManager(redisConnectionFactory.getObject(), ttls) : null;
+        return new TwoLevelCacheManager(ttls, Duration.ofMinutes(5), l1MaxTtl, l1MaximumSize, l2, meterRegistry);
+    }
+
+    private static CacheManager redisCacheManager(RedisConnectionFactory connectionFactory, Map<String, Duration> ttls) {
+        RedisCacheConfiguration base = RedisCacheConfiguration.defaultCacheConfig()
+                .prefixCacheNameWith("hams:")
+                .disableCachingNullValues()
+                .serializeValuesWith(RedisSerializationContext.SerializationPair
+                        .fromSerializer(redisValueSerializer()));
+        Map<String, RedisCacheConfiguration> perCache = new HashMap<>();
+        ttls.forEach((name, ttl) -> perCache.put(name, base.entryTtl(ttl)));
+        RedisCacheManager manager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(base.entryTtl(Duration.ofMinutes(5)))
+                .withInitialCacheConfigurations(perCache)
+                .build();
+        manager.afterPropertiesSet();
+        return manager;
+    }
+
+    public static RedisSerializer<Object> redisValueSerializer() {
+        return new GenericJackson2JsonRedisSerializer();
+    }
+}
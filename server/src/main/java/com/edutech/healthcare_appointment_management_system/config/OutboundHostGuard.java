@@ -0,0 +1,178 @@
+package com.edutech.healthcare_appointment_management_system.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-host protection and measurement for every outbound HTTP call, shared by the
+ * OkHttp client (and the RestTemplate built on it) and the WebClient.
+ *
+ * For each host it keeps a concurrency cap, so one slow integration cannot take every
+ * connection and thread with it, and a circuit breaker: after failureThreshold consecutive
+ * failures (I/O errors or 5xx) calls fail fast for openDuration, then a single trial call
+ * decides whether to close it again. Every call is timed into the
+ * http.client.outbound{host,method,status} histogram.
+ */
+public class OutboundHostGuard {
+
+    /** Thrown instead of calling a host whose breaker is open or whose concurrency cap is reached. */
+    public static class RejectedException extends IOException {
+        public RejectedException(String message) {
+            super(message);
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final int maxConcurrentPerHost;
+    private final long acquireTimeoutNanos;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final Map<String, HostState> hosts = new ConcurrentHashMap<>();
+
+    public OutboundHostGuard(MeterRegistry meterRegistry, int maxConcurrentPerHost, Duration acquireTimeout,
+                             int failureThreshold, Duration openDuration) {
+        this.meterRegistry = meterRegistry;
+        this.maxConcurrentPerHost = maxConcurrentPerHost;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Admits a call to the host, waiting up to the acquire timeout for a free slot.
+     * Every admitted call must be paired with exactly one {@link #after} or {@link #abandon}.
+     */
+    public void before(String host) throws RejectedException {
+        admit(host, acquireTimeoutNanos);
+    }
+
+    /** Same as {@link #before} without waiting for a slot; for callers on event-loop threads. */
+    public void beforeNoWait(String host) throws RejectedException {
+        admit(host, 0);
+    }
+
+    private void admit(String host, long waitNanos) throws RejectedException {
+        HostState state = state(host);
+        if (!state.allowCall(System.nanoTime())) {
+            state.rejected("circuit_open").increment();
+            throw new RejectedException("Circuit open for " + host);
+        }
+        boolean admitted;
+        try {
+            admitted = state.slots.tryAcquire(waitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if (!admitted) {
+            state.abandonTrial();
+            state.rejected("concurrency_limit").increment();
+            throw new RejectedException("Too many concurrent calls to " + host);
+        }
+    }
+
+    /**
+     * Records the outcome of an admitted call and frees its slot.
+     *
+     * @param status HTTP status, or -1 when no response was received
+     */
+    public void after(String host, String method, int status, long elapsedNanos) {
+        HostState state = state(host);
+        state.slots.release();
+        Timer.builder("http.client.outbound")
+             .tag("host", host)
+             .tag("method", method)
+             .tag("status", status < 0 ? "IO_ERROR" : String.valueOf(status))
+             .publishPercentileHistogram()
+             .register(meterRegistry)
+             .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (status < 0 || status >= 500) {
+            state.failure(System.nanoTime());
+        } else {
+            state.success();
+        }
+    }
+
+    /** Frees the slot of an admitted call that was cancelled before it had an outcome. */
+    public void abandon(String host) {
+        HostState state = state(host);
+        state.slots.release();
+        state.abandonTrial();
+    }
+
+    /** True while calls to the host fail fast. */
+    public boolean isOpen(String host) {
+        HostState state = hosts.get(host);
+        return state != null && state.isOpen(System.nanoTime());
+    }
+
+    private HostState state(String host) {
+        return hosts.computeIfAbsent(host, HostState::new);
+    }
+
+    private final class HostState {
+
+        final String host;
+        final Semaphore slots = new Semaphore(maxConcurrentPerHost, true);
+        private int consecutiveFailures;
+        private long openUntil;
+        private boolean open;
+        private boolean trialInFlight;
+
+        HostState(String host) {
+            this.host = host;
+            Gauge.builder("http.client.outbound.circuit.open", this, s -> s.isOpen(System.nanoTime()) ? 1 : 0)
+                 .tag("host", host)
+                 .register(meterRegistry);
+        }
+
+        synchronized boolean allowCall(long now) {
+            if (!open) return true;
+            // Half-open: after the open period exactly one trial call goes through
+            if (now >= openUntil && !trialInFlight) {
+                trialInFlight = true;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void abandonTrial() {
+            trialInFlight = false;
+        }
+
+        synchronized void success() {
+            consecutiveFailures = 0;
+            open = false;
+            trialInFlight = false;
+        }
+
+        synchronized void failure(long now) {
+            consecutiveFailures++;
+            if (trialInFlight || consecutiveFailures >= failureThreshold) {
+                open = true;
+                openUntil = now + openNanos;
+            }
+            trialInFlight = false;
+        }
+
+        synchronized boolean isOpen(long now) {
+            return open && (now < openUntil || trialInFlight);
+        }
+
+        Counter rejected(String reason) {
+            return Counter.builder("http.client.outbound.rejected")
+                          .tag("host", host)
+                          .tag("reason", reason)
+                          .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.edutech.healthcare_appointment_management_system.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import okhttp3.ConnectionPool;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.OkHttp3ClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Shared outbound HTTP stack for the Groq and SendGrid integrations.
+ *
+ * One OkHttpClient (and the RestTemplate on top of it) keeps pooled keep-alive
+ * connections and negotiates HTTP/2 over TLS where the server offers it, so calls reuse
+ * an open connection instead of paying TCP and TLS setup each time. WebClient.Builder
+ * instances get an equivalent pooled Reactor Netty connector. Both pass every call through
+ * {@link OutboundHostGuard} for per-host concurrency caps, circuit breaking and latency
+ * histograms. Tunable under outbound.http.*.
+ */
+@Configuration
+public class OutboundHttpConfig {
+
+    @Value("${outbound.http.connect-timeout:5s}")
+    private Duration connectTimeout;
+
+    @Value("${outbound.http.read-timeout:60s}")
+    private Duration readTimeout;
+
+    @Value("${outbound.http.write-timeout:30s}")
+    private Duration writeTimeout;
+
+    @Value("${outbound.http.max-idle-connections:20}")
+    private int maxIdleConnections;
+
+    @Value("${outbound.http.keep-alive:5m}")
+    private Duration keepAlive;
+
+    @Value("${outbound.http.max-concurrent-per-host:16}")
+    private int maxConcurrentPerHost;
+
+    @Value("${outbound.http.acquire-timeout:2s}")
+    private Duration acquireTimeout;
+
+    @Bean
+    public OutboundHostGuard outboundHostGuard(MeterRegistry meterRegistry,
+                                               @Value("${outbound.http.circuit.failure-threshold:5}") int failureThreshold,
+                                               @Value("${outbound.http.circuit.open-duration:30s}") Duration openDuration) {
+        return new OutboundHostGuard(meterRegistry, maxConcurrentPerHost, acquireTimeout, failureThreshold, openDuration);
+    }
+
+    @Bean
+    public OkHttpClient outboundHttpClient(OutboundHostGuard guard) {
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAlive.toMillis(), TimeUnit.MILLISECONDS))
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(connectTimeout)
+                .readTimeout(readTimeout)
+                .writeTimeout(writeTimeout)
+                .addInterceptor(guardInterceptor(guard))
+                .build();
+    }
+
+    @Bean
+    public RestTemplate outboundRestTemplate(OkHttpClient outboundHttpClient) {
+        return new RestTemplate(new OkHttp3ClientHttpRequestFactory(outboundHttpClient));
+    }
+
+    @Bean
+    public WebClientCustomizer outboundWebClientCustomizer(OutboundHostGuard guard) {
+        ConnectionProvider connections = ConnectionProvider.builder("outbound")
+                .maxConnections(maxConcurrentPerHost)
+                .pendingAcquireTimeout(acquireTimeout)
+                .maxIdleTime(keepAlive)
+                .build();
+        HttpClient httpClient = HttpClient.create(connections)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(readTimeout);
+        return builder -> builder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .filter(guardFilter(guard));
+    }
+
+    static Interceptor guardInterceptor(OutboundHostGuard guard) {
+        return chain -> {
+            Request request = chain.request();
+            String host = request.url().host();
+            guard.before(host);
+            long start = System.nanoTime();
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException | RuntimeException e) {
+                guard.after(host, request.method(), -1, System.nanoTime() - start);
+                throw e;
+            }
+            guard.after(host, request.method(), response.code(), System.nanoTime() - start);
+            return response;
+        };
+    }
+
+    // Timed up to the response headers; a streamed body is not held against the host's cap
+    static ExchangeFilterFunction guardFilter(OutboundHostGuard guard) {
+        return (request, next) -> Mono.defer(() -> {
+            String host = request.url().getHost();
+            String method = request.method().name();
+            try {
+                guard.beforeNoWait(host);
+            } catch (OutboundHostGuard.RejectedException e) {
+                return Mono.error(e);
+            }
+            long start = System.nanoTime();
+            AtomicBoolean done = new AtomicBoolean();
+            return next.exchange(request)
+                    .doOnNext(response -> {
+                        if (done.compareAndSet(false, true)) {
+                            guard.after(host, method, response.rawStatusCode(), System.nanoTime() - start);
+                        }
+                    })
+                    .doOnError(e -> {
+                        if (done.compareAndSet(false, true)) {
+                            guard.after(host, method, -1, System.nanoTime() - start);
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (done.compareAndSet(false, true)) {
+                            guard.abandon(host);
+                        }
+                    });
+        });
+    }
+}
@@ -118,12 +118,15 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
             .antMatchers(HttpMethod.GET, "/api/doctor/appointments").hasAuthority("DOCTOR")
             .antMatchers(HttpMethod.POST, "/api/doctor/medical-record").hasAuthority("DOCTOR")//new
                 .antMatchers(HttpMethod.GET,  "/api/doctor/patients/*/records").hasAuthority("DOCTOR")//new
+            .antMatchers(HttpMethod.GET, "/api/doctor/patients/*/records/stream").hasAuthority("DOCTOR")
 
             .antMatchers(HttpMethod.GET, "/api/receptionist/appointments").hasAuthority("RECEPTIONIST")
 
             .antMatchers(HttpMethod.PUT, "/api/receptionist/appointment-reschedule/**").hasAuthority("RECEPTIONIST")
             .antMatchers(HttpMethod.GET,  "/api/receptionist/patients/*/records").hasAuthority("RECEPTIONIST")//new
+            .antMatchers(HttpMethod.GET, "/api/receptionist/patients/*/records/stream").hasAuthority("RECEPTIONIST")
             .antMatchers(HttpMethod.GET, "/api/patients/search").hasAnyAuthority("DOCTOR", "RECEPTIONIST")//new
+            .antMatchers(HttpMethod.POST, "/api/records/report/export").hasAnyAuthority("DOCTOR", "RECEPTIONIST")
              // ==========================================
  
             // NEW: Doctor Profile Management Endpoints
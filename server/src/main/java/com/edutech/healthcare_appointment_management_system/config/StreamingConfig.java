@@ -0,0 +1,61 @@
+package com.edutech.healthcare_appointment_management_system.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Settings the streaming endpoints (patient history as NDJSON, bulk report export) rely on.
+ *
+ * On MySQL the pooled datasource gets useCursorFetch=true unless the deployment sets it
+ * itself: without it Connector/J ignores the fetch size and buffers a whole result set in
+ * memory, which defeats MedicalRecordRepository.streamHistory. Other databases are left as
+ * they are.
+ *
+ * StreamingResponseBody responses are bounded by spring.mvc.async.request-timeout (default
+ * 2m here rather than the servlet container's own), after which the response is closed and
+ * the writing thread, with the transaction and connection it holds, fails on its next write.
+ */
+@Configuration
+public class StreamingConfig implements WebMvcConfigurer {
+
+    static final String CURSOR_FETCH = "useCursorFetch";
+
+    private final Duration asyncRequestTimeout;
+
+    public StreamingConfig(@Value("${spring.mvc.async.request-timeout:2m}") Duration asyncRequestTimeout) {
+        this.asyncRequestTimeout = asyncRequestTimeout;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(asyncRequestTimeout.toMillis());
+    }
+
+    @Bean
+    public static BeanPostProcessor mysqlCursorFetch() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource) {
+                    enableCursorFetch((HikariDataSource) bean);
+                }
+                return bean;
+            }
+        };
+    }
+
+    static void enableCursorFetch(HikariDataSource dataSource) {
+        String url = dataSource.getJdbcUrl();
+        if (url != null && url.startsWith("jdbc:mysql:") && !url.contains(CURSOR_FETCH)
+                && !dataSource.getDataSourceProperties().containsKey(CURSOR_FETCH)) {
+            dataSource.addDataSourceProperty(CURSOR_FETCH, "true");
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.edutech.healthcare_appointment_management_system.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+
+/**
+ * A cache with an in-process Caffeine L1 in front of an optional shared L2 (Redis in production).
+ *
+ * Reads go L1, then L2, then the loader; L2 hits are copied into L1. Writes and evictions go
+ * to both levels. L2 errors are logged and treated as misses, so a Redis outage only costs
+ * latency. Loads through {@link #get(Object, Callable)} are coalesced per key by Caffeine.
+ */
+public class TwoLevelCache implements Cache {
+
+    private static final Logger log = LoggerFactory.getLogger(TwoLevelCache.class);
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> l1;
+    private final Cache l2;
+
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+
+    public TwoLevelCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> l1, Cache l2,
+                         MeterRegistry meterRegistry) {
+        this.name = name;
+        this.l1 = l1;
+        this.l2 = l2;
+        this.l1Hits = lookups(meterRegistry, "l1", "hit");
+        this.l1Misses = lookups(meterRegistry, "l1", "miss");
+        this.l2Hits = lookups(meterRegistry, "l2", "hit");
+        this.l2Misses = lookups(meterRegistry, "l2", "miss");
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return l1;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object value = l1.getIfPresent(key);
+        if (value != null) {
+            l1Hits.increment();
+            return new SimpleValueWrapper(value);
+        }
+        l1Misses.increment();
+        value = fromL2(key);
+        if (value != null) {
+            l1.put(key, value);
+            return new SimpleValueWrapper(value);
+        }
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = (wrapper == null) ? null : wrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object cached = l1.getIfPresent(key);
+        if (cached != null) {
+            l1Hits.increment();
+            return (T) cached;
+        }
+        l1Misses.increment();
+        try {
+            return (T) l1.get(key, k -> {
+                Object value = fromL2(k);
+                if (value != null) {
+                    return value;
+                }
+                try {
+                    value = valueLoader.call();
+                } catch (Exception e) {
+                    throw new ValueRetrievalException(k, valueLoader, e);
+                }
+                if (value != null) {
+                    toL2(k, value);
+                }
+                return value; // null results are returned but not cached
+            });
+        } catch (ValueRetrievalException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        toL2(key, value);
+        l1.put(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        if (l2 != null) {
+            try {
+                l2.evict(key);
+            } catch (RuntimeException e) {
+                log.warn("L2 evict failed for {}::{}: {}", name, key, e.getMessage());
+            }
+        }
+        l1.invalidate(key);
+    }
+
+    @Override
+    public void clear() {
+        if (l2 != null) {
+            try {
+                l2.clear();
+            } catch (RuntimeException e) {
+                log.warn("L2 clear failed for {}: {}", name, e.getMessage());
+            }
+        }
+        l1.invalidateAll();
+    }
+
+    private Object fromL2(Object key) {
+        if (l2 == null) {
+            return null;
+        }
+        try {
+            ValueWrapper wrapper = l2.get(key);
+            if (wrapper != null && wrapper.get() != null) {
+                l2Hits.increment();
+                return wrapper.get();
+            }
+        } catch (RuntimeException e) {
+            log.debug("L2 read failed for {}::{}: {}", name, key, e.getMessage());
+        }
+        l2Misses.increment();
+        return null;
+    }
+
+    private void toL2(Object key, Object value) {
+        if (l2 == null) {
+            return;
+        }
+        try {
+            l2.put(key, value);
+        } catch (RuntimeException e) {
+            log.debug("L2 write failed for {}::{}: {}", name, key, e.getMessage());
+        }
+    }
+
+    private Counter lookups(MeterRegistry meterRegistry, String level, String result) {
+        return Counter.builder("cache.lookups")
+                .tag("cache", name)
+                .tag("level", level)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,62 @@
+package com.edutech.healthcare_appointment_management_system.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out {@link TwoLevelCache}s: a Caffeine L1 per cache name backed by the matching cache of
+ * an optional L2 {@link CacheManager}. L1 entries live at most {@code l1MaxTtl} so that nodes
+ * sharing one L2 converge quickly after an eviction made elsewhere.
+ */
+public class TwoLevelCacheManager implements CacheManager {
+
+    private final Map<String, Duration> ttls;
+    private final Duration defaultTtl;
+    private final Duration l1MaxTtl;
+    private final long l1MaximumSize;
+    private final CacheManager l2;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(Map<String, Duration> ttls, Duration defaultTtl, Duration l1MaxTtl,
+                                long l1MaximumSize, CacheManager l2, MeterRegistry meterRegistry) {
+        this.ttls = ttls;
+        this.defaultTtl = defaultTtl;
+        this.l1MaxTtl = l1MaxTtl;
+        this.l1MaximumSize = l1MaximumSize;
+        this.l2 = l2;
+        this.meterRegistry = meterRegistry;
+        ttls.keySet().forEach(this::getCache);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    private Cache createCache(String name) {
+        Duration ttl = ttls.getOrDefault(name, defaultTtl);
+        Duration l1Ttl = ttl.compareTo(l1MaxTtl) < 0 ? ttl : l1MaxTtl;
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> l1 = Caffeine.newBuilder()
+                .maximumSize(l1MaximumSize)
+                .expireAfterWrite(l1Ttl)
+                .build();
+        Cache shared = (l2 == null) ? null : l2.getCache(name);
+        return new TwoLevelCache(name, l1, shared, meterRegistry);
+    }
+}
@@ -1,37 +1,62 @@
 package com.edutech.healthcare_appointment_management_system.controller;
 import java.util.Map;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import com.edutech.healthcare_appointment_management_system.exception.GroqRateLimitedException;
 import com.edutech.healthcare_appointment_management_system.service.ChatbotService;
- 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
 @RestController
 @RequestMapping("/api/chatbot")
 @CrossOrigin(origins = "*")
 public class ChatbotController {
- 
+
     private final ChatbotService chatbotService;
- 
+
     public ChatbotController(ChatbotService chatbotService) {
         this.chatbotService = chatbotService;
     }
- 
+
+    // Whole reply at once; the request thread is released while the model generates
     @PostMapping("/chat")
-    public ResponseEntity<?> chat(@RequestBody Map<String, String> body) {
- 
+    public Mono<ResponseEntity<?>> chat(@RequestBody Map<String, String> body) {
+
         if (!body.containsKey("message") || body.get("message").trim().isEmpty()) {
-            return ResponseEntity.badRequest()
-                    .body(Map.of("error", "Message is required"));
+            return Mono.just(ResponseEntity.badRequest()
+                    .body(Map.of("error", "Message is required")));
         }
- 
-        String reply = chatbotService.chat(body.get("message"));
- 
+
         // ✅ Always return JSON
-        return ResponseEntity.ok(
-                Map.of("reply", reply)
-        );
+        return chatbotService.chat(body.get("message"))
+                .map(reply -> ResponseEntity.ok(Map.of("reply", reply)));
     }
-}
\ No newline at end of file
+
+    /**
+     * Reply streamed as server-sent events: one "token" event per generated token
+     * ({"token": "..."}), then "done"; or a single "error" event ({"error": "..."}).
+     */
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Map<String, String>>> chatStream(@RequestBody Map<String, String> body) {
+
+        if (!body.containsKey("message") || body.get("message").trim().isEmpty()) {
+            return Flux.just(event("error", Map.of("error", "Message is required")));
+        }
+
+        return chatbotService.streamChat(body.get("message"))
+                .map(token -> event("token", Map.of("token", token)))
+                .concatWith(Mono.just(event("done", Map.of())))
+                .onErrorResume(e -> Mono.just(event("error", Map.of("error",
+                        e instanceof GroqRateLimitedException ? e.getMessage() : "Chat is unavailable right now"))));
+    }
+
+    private static ServerSentEvent<Map<String, String>> event(String name, Map<String, String> data) {
+        return ServerSentEvent.builder(data).event(name).build();
+    }
+}
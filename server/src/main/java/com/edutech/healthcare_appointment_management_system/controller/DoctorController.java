@@ -144,9 +144,9 @@ public ResponseEntity<String> getDoctorUsername(@PathVariable Long id) {
 // NEW: returns { id, username }
     @GetMapping("/api/doctor/brief/{id}")
     public ResponseEntity<DoctorBrief> getDoctorBrief(@PathVariable Long id) {
-        Doctor d = doctorService.findDoctorByID(id);
-        if (d == null) return ResponseEntity.notFound().build();
-        return ResponseEntity.ok(new DoctorBrief(d.getId(), d.getUsername()));
+        DoctorBrief brief = doctorService.getDoctorBrief(id);
+        if (brief == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(brief);
     }
 
 
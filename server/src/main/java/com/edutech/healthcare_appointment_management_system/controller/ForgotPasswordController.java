@@ -8,6 +8,7 @@ import org.springframework.web.bind.annotation.*;
 import com.edutech.healthcare_appointment_management_system.dto.EmailRequest;
 import com.edutech.healthcare_appointment_management_system.dto.OtpRequest;
 import com.edutech.healthcare_appointment_management_system.dto.ResetPasswordRequest;
+import com.edutech.healthcare_appointment_management_system.jwt.TokenRevocationService;
 import com.edutech.healthcare_appointment_management_system.repository.UserRepository;
 import com.edutech.healthcare_appointment_management_system.service.EmailService;
 import com.edutech.healthcare_appointment_management_system.service.OtpService;
@@ -29,6 +30,9 @@ public class ForgotPasswordController {
     @Autowired
     private PasswordEncoder passwordEncoder;
  
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+ 
     // STEP 1: SEND OTP
     @PostMapping("/send-otp")
     public ResponseEntity<?> sendOtp(@RequestBody EmailRequest request) {
@@ -72,6 +76,8 @@ public class ForgotPasswordController {
                             passwordEncoder.encode(request.getNewPassword())
                     );
                     userRepository.save(user);
+                    // Sessions opened with the old password must not outlive the reset
+                    tokenRevocationService.revokeAllFor(user.getEmail());
                     return ResponseEntity.ok("Password reset successful");
                 })
                 .orElse(ResponseEntity.badRequest().body("User not found"));
@@ -1,22 +1,42 @@
 package com.edutech.healthcare_appointment_management_system.controller;
  
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
  
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+ 
+import com.edutech.healthcare_appointment_management_system.dto.CursorPage;
 import com.edutech.healthcare_appointment_management_system.dto.PatientSummary;
 import com.edutech.healthcare_appointment_management_system.dto.DoctorBrief;
 import com.edutech.healthcare_appointment_management_system.dto.PatientBrief;
 import com.edutech.healthcare_appointment_management_system.dto.MedicalRecordView;
+import com.edutech.healthcare_appointment_management_system.dto.ReportExportRequest;
  
 import com.edutech.healthcare_appointment_management_system.entity.MedicalRecord;
-import com.edutech.healthcare_appointment_management_system.entity.Patient;
 import com.edutech.healthcare_appointment_management_system.service.MedicalRecordService;
 import com.edutech.healthcare_appointment_management_system.service.PatientService;
-import com.edutech.healthcare_appointment_management_system.service.ReportService;
+import com.edutech.healthcare_appointment_management_system.exception.ReportQueueFullException;
+import com.edutech.healthcare_appointment_management_system.service.ReportExportService;
+import com.edutech.healthcare_appointment_management_system.service.ReportJobService;
+import com.edutech.healthcare_appointment_management_system.service.ReportJobService.ReportJob;
+import com.edutech.healthcare_appointment_management_system.service.ReportService.ReportData;
  
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
  
 @RestController
 @CrossOrigin(
@@ -26,6 +46,8 @@ import java.util.stream.Collectors;
     exposedHeaders = { HttpHeaders.CONTENT_DISPOSITION }
 )
 public class MedicalRecordController {
+
+    private static final Logger log = LoggerFactory.getLogger(MedicalRecordController.class);
  
     @Autowired
     private MedicalRecordService medicalRecordService;
@@ -34,49 +56,49 @@ public class MedicalRecordController {
     private PatientService patientService;
  
     @Autowired
-    private ReportService reportService;
+    private ReportJobService reportJobService;
+
+    @Autowired
+    private ReportExportService reportExportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // How long the plain download endpoint waits for a report that is not cached yet
+    @Value("${reports.download-wait:10s}")
+    private Duration downloadWait;
  
-    // Search patients (returns lightweight DTOs)
+    // Search or list patients one page at a time (lightweight DTOs); pass nextCursor back as 'after'
     @GetMapping("/api/patients/search")
-    public ResponseEntity<List<PatientSummary>> searchPatients(
-            @RequestParam(required = false, defaultValue = "") String searchTerm) {
+    public ResponseEntity<CursorPage<PatientSummary>> searchPatients(
+            @RequestParam(required = false, defaultValue = "") String searchTerm,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
         try {
-            List<Patient> patients = patientService.searchPatients(searchTerm);
-            List<PatientSummary> result = patients.stream()
-                    .map(p -> new PatientSummary(p.getId(), p.getUsername(), p.getEmail()))
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(result);
+            return ResponseEntity.ok(patientService.searchPatients(searchTerm, after, limit));
         } catch (Exception e) {
             e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(List.of());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new CursorPage<>(List.of(), null));
         }
     }
  
-    // Doctor: view patient medical history (DTO list)
+    // Doctor: view patient medical history, newest first, one page at a time; pass nextCursor back as 'after'
     @GetMapping("/api/doctor/patients/{patientId}/records")
-    public ResponseEntity<List<MedicalRecordView>> getPatientRecords(@PathVariable Long patientId) {
+    public ResponseEntity<CursorPage<MedicalRecordView>> getPatientRecords(
+            @PathVariable Long patientId,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
         System.out.println("Doctor view history => patientId=" + patientId);
-        List<MedicalRecord> records = medicalRecordService.getMedicalRecordsByPatientId(patientId);
- 
-        List<MedicalRecordView> dto = records.stream().map(r ->
-            new MedicalRecordView(
-                r.getId(),
-                r.getRecordDate(),
-                r.getDiagnosis(),
-                r.getTreatment(),
-                new PatientBrief(
-                    r.getPatient() != null ? r.getPatient().getId() : null,
-                    r.getPatient() != null ? r.getPatient().getUsername() : null
-                ),
-                new DoctorBrief(
-                    r.getDoctor() != null ? r.getDoctor().getId() : null,
-                    r.getDoctor() != null ? r.getDoctor().getUsername() : null
-                )
-            )
-        ).collect(Collectors.toList());
- 
-        System.out.println("Records found: " + (dto == null ? 0 : dto.size()));
-        return ResponseEntity.ok(dto);
+        CursorPage<MedicalRecordView> page = medicalRecordService.getPatientMedicalHistory(patientId, after, limit);
+ 
+        System.out.println("Records found: " + page.getItems().size());
+        return ResponseEntity.ok(page);
+    }
+ 
+    // Doctor: the whole history in the same order as NDJSON, one record per line as it is read
+    @GetMapping(value = "/api/doctor/patients/{patientId}/records/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPatientRecords(@PathVariable Long patientId) {
+        return historyStream(patientId);
     }
  
     // Doctor: add a medical record (return DTO)
@@ -114,57 +136,193 @@ public class MedicalRecordController {
         }
     }
  
-    // Receptionist: view patient medical history (DTO list)
+    // Receptionist: view patient medical history, paged like the doctor's view
     @GetMapping("/api/receptionist/patients/{patientId}/records")
-    public ResponseEntity<List<MedicalRecordView>> getPatientRecordsByReceptionist(@PathVariable Long patientId) {
-        List<MedicalRecord> records = medicalRecordService.getMedicalRecordsByPatientId(patientId);
-        List<MedicalRecordView> dto = records.stream().map(r ->
-            new MedicalRecordView(
-                r.getId(),
-                r.getRecordDate(),
-                r.getDiagnosis(),
-                r.getTreatment(),
-                new PatientBrief(
-                    r.getPatient() != null ? r.getPatient().getId() : null,
-                    r.getPatient() != null ? r.getPatient().getUsername() : null
-                ),
-                new DoctorBrief(
-                    r.getDoctor() != null ? r.getDoctor().getId() : null,
-                    r.getDoctor() != null ? r.getDoctor().getUsername() : null
-                )
-            )
-        ).collect(Collectors.toList());
-        return ResponseEntity.ok(dto);
+    public ResponseEntity<CursorPage<MedicalRecordView>> getPatientRecordsByReceptionist(
+            @PathVariable Long patientId,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(medicalRecordService.getPatientMedicalHistory(patientId, after, limit));
+    }
+ 
+    @GetMapping(value = "/api/receptionist/patients/{patientId}/records/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPatientRecordsByReceptionist(@PathVariable Long patientId) {
+        return historyStream(patientId);
     }
  
-    // ✅ NEW: Download PDF report for a medical record
+    // Download PDF report for a medical record. Served from the report cache when the
+    // record's current version has been rendered; otherwise waits a bounded time for the
+    // background job and answers 202 with the job (see /report/jobs) if it is still running.
     @GetMapping("/api/records/{recordId}/report")
-    public ResponseEntity<byte[]> downloadMedicalRecordReport(@PathVariable Long recordId) {
+    public ResponseEntity<?> downloadMedicalRecordReport(@PathVariable Long recordId) {
         try {
-            MedicalRecord found = medicalRecordService.getMedicalRecordById(recordId);
-            if (found == null) {
+            Optional<ReportJob> submitted = reportJobService.submit(recordId);
+            if (submitted.isEmpty()) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(("Record not found: " + recordId).getBytes());
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .body("Record not found: " + recordId);
             }
- 
-            byte[] pdf = reportService.buildMedicalRecordPdf(recordId);
-            String filename = "Record_" + recordId + (found.getPatient() != null ? ("_Patient_" + found.getPatient().getId()) : "") + ".pdf";
- 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
-            headers.setCacheControl(CacheControl.noCache().getHeaderValue());
-            headers.setContentLength(pdf.length);
- 
-            return new ResponseEntity<>(pdf, headers, HttpStatus.OK);
- 
+            ReportJob job = reportJobService.await(submitted.get(), downloadWait);
+            if (job.getStatus() == ReportJobService.Status.FAILED) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .body(job.getError());
+            }
+            if (job.getStatus() != ReportJobService.Status.DONE) {
+                return ResponseEntity.accepted()
+                        .location(URI.create("/api/records/report-jobs/" + job.getId()))
+                        .body(jobView(job));
+            }
+            return reportFile(job);
+
+        } catch (ReportQueueFullException e) {
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
             // Return error text so client can show the message if needed
             String msg = "Error generating report: " + e.getMessage();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .contentType(MediaType.TEXT_PLAIN)
-                    .body(msg.getBytes());
+                    .body(msg);
+        }
+    }
+
+    // Start generating a report in the background; poll the returned job, then fetch its file
+    @PostMapping("/api/records/{recordId}/report/jobs")
+    public ResponseEntity<Map<String, Object>> submitReportJob(@PathVariable Long recordId) {
+        return reportJobService.submit(recordId)
+                .map(job -> ResponseEntity.accepted()
+                        .location(URI.create("/api/records/report-jobs/" + job.getId()))
+                        .body(jobView(job)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "Record not found: " + recordId)));
+    }
+
+    @GetMapping("/api/records/report-jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getReportJob(@PathVariable String jobId) {
+        return reportJobService.findJob(jobId)
+                .map(job -> ResponseEntity.ok(jobView(job)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "Unknown or expired report job: " + jobId)));
+    }
+
+    @GetMapping("/api/records/report-jobs/{jobId}/file")
+    public ResponseEntity<?> downloadReportJobFile(@PathVariable String jobId) {
+        Optional<ReportJob> found = reportJobService.findJob(jobId);
+        if (found.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Unknown or expired report job: " + jobId));
+        }
+        ReportJob job = found.get();
+        if (job.getStatus() == ReportJobService.Status.FAILED) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(jobView(job));
+        }
+        if (job.getStatus() != ReportJobService.Status.DONE) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(jobView(job));
+        }
+        return reportFile(job);
+    }
+
+    // Bulk export: {"patientId": 3} or {"recordIds": [4, 9]}; ?format=pdf (one merged document)
+    // or ?format=zip (one PDF per record). Records render in parallel before the first byte is sent.
+    // ?narrative=llm (the default unless reports.narrative.mode is TEMPLATE) waits for the Groq
+    // narrative of every record not rendered before, which takes seconds per batch of records;
+    // ?narrative=template returns within milliseconds but prints the template narrative, which
+    // downloads only show until the Groq version is ready.
+    @PostMapping("/api/records/report/export")
+    public ResponseEntity<?> exportReports(@RequestBody ReportExportRequest request,
+                                           @RequestParam(defaultValue = "pdf") String format,
+                                           @RequestParam(required = false) String narrative) {
+        ReportExportService.Format exportFormat;
+        try {
+            exportFormat = ReportExportService.Format.valueOf(format.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown export format: " + format);
+        }
+        ReportJobService.NarrativeMode narrativeMode = reportJobService.defaultExportMode();
+        if (narrative != null) {
+            try {
+                narrativeMode = ReportJobService.NarrativeMode.valueOf(narrative.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                narrativeMode = null;
+            }
+            if (narrativeMode == null || narrativeMode == ReportJobService.NarrativeMode.TEMPLATE_THEN_LLM) {
+                throw new IllegalArgumentException("Unknown export narrative: " + narrative + " (use llm or template)");
+            }
+        }
+
+        List<ReportData> records = reportExportService.selectRecords(request);
+        List<Path> files;
+        try {
+            files = reportExportService.render(records, narrativeMode);
+        } catch (IllegalStateException e) {
+            log.error("Report export of {} records failed", records.size(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body("Error generating reports: " + e.getMessage());
+        }
+
+        String base = request.getPatientId() != null
+                ? "Patient_" + request.getPatientId() + "_Records"
+                : "Records_" + records.size();
+        boolean zip = exportFormat == ReportExportService.Format.ZIP;
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(zip ? MediaType.parseMediaType("application/zip") : MediaType.APPLICATION_PDF);
+        headers.set(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + base + (zip ? ".zip" : ".pdf") + "\"");
+        headers.setCacheControl(CacheControl.noCache().getHeaderValue());
+
+        StreamingResponseBody body = out -> reportExportService.write(exportFormat, records, files, out);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    // Streams the PDF straight from the report cache file; it is never loaded into the heap
+    private ResponseEntity<?> reportFile(ReportJob job) {
+        Path file = job.getFile().orElseThrow();
+        if (!Files.isReadable(file)) {
+            // Replaced by a newer version of the record, or swept from the cache, since the job finished
+            return ResponseEntity.status(HttpStatus.GONE)
+                    .body(Map.of("error", "Report is out of date; request it again"));
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + job.getFileName() + "\"");
+        headers.setCacheControl(CacheControl.noCache().getHeaderValue());
+        // The cache file name carries the content hash and which narrative was used, so the
+        // same name means the same bytes and browsers can revalidate cheaply
+        String name = file.getFileName().toString();
+        headers.setETag("\"" + name.substring(0, name.length() - ".pdf".length()) + "\"");
+        return new ResponseEntity<>(new FileSystemResource(file), headers, HttpStatus.OK);
+    }
+
+    // Rows are written as the database returns them; the servlet buffer sends them out as it fills
+    private ResponseEntity<StreamingResponseBody> historyStream(Long patientId) {
+        StreamingResponseBody body = out -> medicalRecordService.streamPatientMedicalHistory(patientId, view -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(view));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .cacheControl(CacheControl.noCache())
+                .body(body);
+    }
+
+    private static Map<String, Object> jobView(ReportJob job) {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("jobId", job.getId());
+        view.put("recordId", job.getRecordId());
+        view.put("status", job.getStatus().name());
+        view.put("statusUrl", "/api/records/report-jobs/" + job.getId());
+        if (job.getStatus() == ReportJobService.Status.DONE) {
+            view.put("downloadUrl", "/api/records/report-jobs/" + job.getId() + "/file");
+        }
+        if (job.getError() != null) {
+            view.put("error", job.getError());
         }
+        return view;
     }
 }
\ No newline at end of file
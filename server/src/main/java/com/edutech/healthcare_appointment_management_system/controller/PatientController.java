@@ -40,17 +40,16 @@ import org.springframework.web.bind.annotation.GetMapping;
 
 import org.springframework.web.bind.annotation.RequestParam;
 
+import com.edutech.healthcare_appointment_management_system.dto.CursorPage;
+import com.edutech.healthcare_appointment_management_system.dto.DoctorProfileResponseDTO;
 import com.edutech.healthcare_appointment_management_system.dto.DoctorRecommendationDTO;
+import com.edutech.healthcare_appointment_management_system.dto.MedicalRecordView;
 import com.edutech.healthcare_appointment_management_system.dto.PatientBrief;
 import com.edutech.healthcare_appointment_management_system.dto.SymptomRequestDTO;
 import com.edutech.healthcare_appointment_management_system.dto.TimeDto;
 
 import com.edutech.healthcare_appointment_management_system.entity.Appointment;
 
-import com.edutech.healthcare_appointment_management_system.entity.Doctor;
-
-import com.edutech.healthcare_appointment_management_system.entity.MedicalRecord;
-
 import com.edutech.healthcare_appointment_management_system.service.AppointmentService;
 import com.edutech.healthcare_appointment_management_system.service.DoctorRecommendationService;
 import com.edutech.healthcare_appointment_management_system.service.DoctorService;
@@ -84,11 +83,11 @@ public class PatientController {
     private PatientService patientService;
     @GetMapping("/api/patient/doctors")
 
-    public ResponseEntity<List<Doctor>> getDoctors() {
+    public ResponseEntity<List<DoctorProfileResponseDTO>> getDoctors() {
 
         // get all doctors
 
-        return new ResponseEntity<List<Doctor>>(doctorService.getDoctors(),HttpStatus.OK);
+        return new ResponseEntity<List<DoctorProfileResponseDTO>>(doctorService.getDoctors(),HttpStatus.OK);
 
     }
  
@@ -122,11 +121,13 @@ public class PatientController {
  
     @GetMapping("/api/patient/medicalrecords")
 
-    public ResponseEntity<List<MedicalRecord>> viewMedicalRecords(@RequestParam Long patientId) {
+    public ResponseEntity<CursorPage<MedicalRecordView>> viewMedicalRecords(@RequestParam Long patientId,
+
+            @RequestParam(required = false) String after, @RequestParam(required = false) Integer limit) {
 
-        // view medical records
+        // view medical records, newest first, one page at a time
 
-        return new ResponseEntity<>(medicalRecordService.getMedicalRecordsByPatientId(patientId),HttpStatus.OK);
+        return new ResponseEntity<>(medicalRecordService.getPatientMedicalHistory(patientId, after, limit),HttpStatus.OK);
 
     }
 
@@ -241,9 +242,8 @@ public class PatientController {
 
     public ResponseEntity<PatientBrief> getPatientBrief(@PathVariable Long id) {
 
-        return patientService.getPatientById(id)
-                .map(p -> ResponseEntity.ok(new PatientBrief(p.getId(), p.getUsername())))
-                .orElse(ResponseEntity.notFound().build());
+        PatientBrief brief = patientService.getPatientBrief(id);
+        return (brief == null) ? ResponseEntity.notFound().build() : ResponseEntity.ok(brief);
 
     }
  
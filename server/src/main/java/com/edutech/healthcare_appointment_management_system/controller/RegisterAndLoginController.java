@@ -5,6 +5,7 @@ import com.edutech.healthcare_appointment_management_system.entity.Doctor;
 import com.edutech.healthcare_appointment_management_system.entity.Patient;
 import com.edutech.healthcare_appointment_management_system.entity.Receptionist;
 import com.edutech.healthcare_appointment_management_system.jwt.JwtUtil;
+import com.edutech.healthcare_appointment_management_system.jwt.TokenRevocationService;
 import com.edutech.healthcare_appointment_management_system.service.UserService;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +17,7 @@ import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Map;
@@ -33,6 +35,9 @@ public class RegisterAndLoginController {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     // =========================
     // REGISTER ENDPOINTS
     // =========================
@@ -96,4 +101,17 @@ public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest) {
     }
 }
 
+    // =========================
+    // LOGOUT: revokes the presented token (tokens are stateless, so this goes through the denylist)
+    // =========================
+
+@PostMapping("/api/user/logout")
+public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authorization) {
+    if (authorization != null && authorization.startsWith("Bearer ")) {
+        String token = authorization.substring(7);
+        tokenRevocationService.revokeToken(token, jwtUtil.verify(token));
+    }
+    return ResponseEntity.noContent().build();
+}
+
 }
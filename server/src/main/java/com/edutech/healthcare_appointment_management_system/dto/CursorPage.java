@@ -0,0 +1,58 @@
+package com.edutech.healthcare_appointment_management_system.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated list. The client passes nextCursor back as the
+ * 'after' request parameter to get the following page; it is null on the last page.
+ */
+public class CursorPage<T> {
+
+    // The rows of this page, in the list's order.
+    private List<T> items;
+
+    // Opaque position after the last item, or null when there is nothing more.
+    private String nextCursor;
+
+    // Default constructor required by frameworks like Jackson for JSON binding.
+    public CursorPage() {}
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Builds a page from up to size + 1 fetched rows: the extra row, when present, only
+     * tells that another page follows, and is dropped.
+     *
+     * @param fetched rows fetched with a limit of size + 1
+     * @param size    page size
+     * @param cursor  the cursor of a row, i.e. the position right after it
+     */
+    public static <T> CursorPage<T> of(List<T> fetched, int size, Function<T, String> cursor) {
+        if (fetched.size() <= size) {
+            return new CursorPage<>(fetched, null);
+        }
+        List<T> items = new ArrayList<>(fetched.subList(0, size));
+        return new CursorPage<>(items, cursor.apply(items.get(size - 1)));
+    }
+
+    // ---- Getters and Setters ----
+
+    public List<T> getItems() {
+        return items;
+    }
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
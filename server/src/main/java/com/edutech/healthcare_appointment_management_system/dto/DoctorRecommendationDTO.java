@@ -8,6 +8,8 @@ public class DoctorRecommendationDTO {
     private String recommendedSpecialist;
     private List<DoctorSummaryDTO> availableDoctors;
     private String message;
+    // LOCAL, CACHE, LLM or FALLBACK: which classifier path chose the specialist
+    private String source;
  
     // Constructors
     public DoctorRecommendationDTO() {}
@@ -51,12 +53,21 @@ public class DoctorRecommendationDTO {
         this.message = message;
     }
  
+    public String getSource() {
+        return source;
+    }
+ 
+    public void setSource(String source) {
+        this.source = source;
+    }
+ 
     @Override
     public String toString() {
         return "DoctorRecommendationDTO{" +
                 "recommendedSpecialist='" + recommendedSpecialist + '\'' +
                 ", availableDoctors=" + availableDoctors +
                 ", message='" + message + '\'' +
+                ", source='" + source + '\'' +
                 '}';
     }
 }
\ No newline at end of file
@@ -36,6 +36,23 @@ public class MedicalRecordView {
         this.doctor = doctor;
     }
  
+    /**
+     * Flat form for JPQL constructor expressions (see MedicalRecordRepository.findViewsByPatientId),
+     * which cannot nest the briefs.
+     */
+    public MedicalRecordView(Long id,
+                             LocalDateTime recordDate,
+                             String diagnosis,
+                             String treatment,
+                             Long patientId,
+                             String patientUsername,
+                             Long doctorId,
+                             String doctorUsername) {
+        this(id, recordDate, diagnosis, treatment,
+             new PatientBrief(patientId, patientUsername),
+             new DoctorBrief(doctorId, doctorUsername));
+    }
+ 
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
  
@@ -0,0 +1,42 @@
+package com.edutech.healthcare_appointment_management_system.dto;
+
+import java.util.List;
+
+/**
+ * Bulk report export: either every record of a patient or an explicit list of records.
+ */
+public class ReportExportRequest {
+    private Long patientId;
+    private List<Long> recordIds;
+
+    public ReportExportRequest() {}
+
+    public ReportExportRequest(Long patientId, List<Long> recordIds) {
+        this.patientId = patientId;
+        this.recordIds = recordIds;
+    }
+
+    public Long getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(Long patientId) {
+        this.patientId = patientId;
+    }
+
+    public List<Long> getRecordIds() {
+        return recordIds;
+    }
+
+    public void setRecordIds(List<Long> recordIds) {
+        this.recordIds = recordIds;
+    }
+
+    @Override
+    public String toString() {
+        return "ReportExportRequest{" +
+                "patientId=" + patientId +
+                ", recordIds=" + recordIds +
+                '}';
+    }
+}
@@ -1,9 +1,20 @@
 package com.edutech.healthcare_appointment_management_system.entity;
 
 import javax.persistence.*;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.Date;
 
 @Entity
+@Table(
+    indexes = @Index(name = "idx_appointment_doctor_time", columnList = "doctor_id, appointmentTime"),
+    // A doctor can hold only one appointment per 15-minute slot, even across server instances.
+    // It only catches bookings with the same slot key (9:00 and 9:10), not overlapping ones in
+    // neighbouring slots (9:10 and 9:20); those are stopped by the checks in AppointmentService.
+    // Rows older than slot_key are keyed at startup by AppointmentSlotKeyBackfill.
+    uniqueConstraints = @UniqueConstraint(name = "uk_appointment_doctor_slot", columnNames = {"doctor_id", "slot_key"})
+)
 public class Appointment {
 
     @Id
@@ -24,6 +35,24 @@ public class Appointment {
     @Column(name = "reminder_sent")
     private boolean reminderSent = false;
 
+    // Token of the dispatcher batch that claimed this reminder (see ReminderDispatcher)
+    @JsonIgnore
+    @Column(name = "reminder_claim", length = 36)
+    private String reminderClaim;
+
+    // Normalized 15-minute slot number of appointmentTime, kept in sync before every insert/update
+    @JsonIgnore
+    @Column(name = "slot_key")
+    private Long slotKey;
+
+    public static final long SLOT_MILLIS = 15 * 60 * 1000L;
+
+    @PrePersist
+    @PreUpdate
+    void computeSlotKey() {
+        slotKey = (appointmentTime == null) ? null : Math.floorDiv(appointmentTime.getTime(), SLOT_MILLIS);
+    }
+
     // ===== Getters and Setters =====
 
     public Long getId() {
@@ -56,6 +85,7 @@ public class Appointment {
 
     public void setAppointmentTime(Date appointmentTime) {
         this.appointmentTime = appointmentTime;
+        computeSlotKey();
     }
 
     public String getStatus() {
@@ -75,4 +105,16 @@ public class Appointment {
     public void setReminderSent(boolean reminderSent) {
         this.reminderSent = reminderSent;
     }
+
+    public String getReminderClaim() {
+        return reminderClaim;
+    }
+
+    public void setReminderClaim(String reminderClaim) {
+        this.reminderClaim = reminderClaim;
+    }
+
+    public Long getSlotKey() {
+        return slotKey;
+    }
 }
@@ -0,0 +1,125 @@
+package com.edutech.healthcare_appointment_management_system.entity;
+
+import javax.persistence.*;
+
+import java.util.Date;
+
+/**
+ * Outbox row for a notification about an appointment.
+ *
+ * The row is written in the same transaction as the booking, so a committed booking
+ * always has its confirmation queued; workers pick it up after commit and retry with
+ * backoff until it is SENT or gives up as FAILED.
+ */
+@Entity
+@Table(
+    name = "appointment_notification",
+    indexes = @Index(name = "idx_notification_status_next", columnList = "status, nextAttemptAt")
+)
+public class AppointmentNotification {
+
+    public static final String TYPE_CONFIRMATION = "CONFIRMATION";
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_SENDING = "SENDING";
+    public static final String STATUS_SENT = "SENT";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long appointmentId;
+
+    @Column(nullable = false, length = 32)
+    private String type;
+
+    @Column(nullable = false, length = 16)
+    private String status = STATUS_PENDING;
+
+    private int attempts;
+
+    private Date nextAttemptAt;
+
+    private Date updatedAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    public AppointmentNotification() {
+    }
+
+    public AppointmentNotification(Long appointmentId, String type) {
+        this.appointmentId = appointmentId;
+        this.type = type;
+        this.nextAttemptAt = new Date();
+        this.updatedAt = this.nextAttemptAt;
+    }
+
+    // ===== Getters and Setters =====
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getAppointmentId() {
+        return appointmentId;
+    }
+
+    public void setAppointmentId(Long appointmentId) {
+        this.appointmentId = appointmentId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Date getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(Date nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public Date getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Date updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
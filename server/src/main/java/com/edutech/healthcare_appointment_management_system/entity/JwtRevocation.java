@@ -0,0 +1,83 @@
+package com.edutech.healthcare_appointment_management_system.entity;
+
+import javax.persistence.*;
+
+import java.util.Date;
+
+/**
+ * A revoked JWT (by token hash) or a cut-off for every token of a subject issued before
+ * {@code revokedAt}. Rows are only needed until the tokens they cover would have expired.
+ */
+@Entity
+@Table(name = "jwt_revocation", indexes = @Index(name = "idx_jwt_revocation_revoked_at", columnList = "revokedAt"))
+public class JwtRevocation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // SHA-256 of a single revoked token, or null for a subject-wide revocation
+    @Column(length = 64)
+    private String tokenHash;
+
+    @Column(length = 255)
+    private String subject;
+
+    @Column(nullable = false)
+    private Date revokedAt;
+
+    @Column(nullable = false)
+    private Date expiresAt;
+
+    public JwtRevocation() {
+    }
+
+    public JwtRevocation(String tokenHash, String subject, Date revokedAt, Date expiresAt) {
+        this.tokenHash = tokenHash;
+        this.subject = subject;
+        this.revokedAt = revokedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    // ===== Getters and Setters =====
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    public void setTokenHash(String tokenHash) {
+        this.tokenHash = tokenHash;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public Date getRevokedAt() {
+        return revokedAt;
+    }
+
+    public void setRevokedAt(Date revokedAt) {
+        this.revokedAt = revokedAt;
+    }
+
+    public Date getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Date expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
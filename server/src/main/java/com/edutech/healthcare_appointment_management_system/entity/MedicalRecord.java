@@ -6,6 +6,7 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import java.time.LocalDateTime;
 @Entity
+@Table(indexes = @Index(name = "idx_medical_record_patient_date", columnList = "patient_id, recordDate, id"))
 public class MedicalRecord {
     // implement medical record entity
  
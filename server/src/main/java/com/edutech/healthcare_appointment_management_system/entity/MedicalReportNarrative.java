@@ -0,0 +1,133 @@
+package com.edutech.healthcare_appointment_management_system.entity;
+
+import javax.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * The Groq-generated narrative of a medical record's report, kept so that the report can be
+ * rendered again without another model call. {@code inputHash} covers the prompt version and
+ * every value the prompt is built from; a row whose hash no longer matches the record is
+ * regenerated and overwritten.
+ */
+@Entity
+@Table(name = "medical_report_narrative")
+public class MedicalReportNarrative {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "medical_record_id", nullable = false, unique = true)
+    private MedicalRecord medicalRecord;
+
+    @Column(nullable = false, length = 64)
+    private String inputHash;
+
+    @Lob
+    private String chiefComplaint;
+
+    @Lob
+    private String historyOfPresentIllness;
+
+    @Lob
+    private String pastMedicalHistory;
+
+    @Lob
+    private String clinicalAssessment;
+
+    @Lob
+    private String treatmentPlan;
+
+    @Lob
+    private String followUpRecommendations;
+
+    @Column(nullable = false)
+    private LocalDateTime generatedAt;
+
+    public MedicalReportNarrative() {
+    }
+
+    // ===== Getters and Setters =====
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public MedicalRecord getMedicalRecord() {
+        return medicalRecord;
+    }
+
+    public void setMedicalRecord(MedicalRecord medicalRecord) {
+        this.medicalRecord = medicalRecord;
+    }
+
+    public String getInputHash() {
+        return inputHash;
+    }
+
+    public void setInputHash(String inputHash) {
+        this.inputHash = inputHash;
+    }
+
+    public String getChiefComplaint() {
+        return chiefComplaint;
+    }
+
+    public void setChiefComplaint(String chiefComplaint) {
+        this.chiefComplaint = chiefComplaint;
+    }
+
+    public String getHistoryOfPresentIllness() {
+        return historyOfPresentIllness;
+    }
+
+    public void setHistoryOfPresentIllness(String historyOfPresentIllness) {
+        this.historyOfPresentIllness = historyOfPresentIllness;
+    }
+
+    public String getPastMedicalHistory() {
+        return pastMedicalHistory;
+    }
+
+    public void setPastMedicalHistory(String pastMedicalHistory) {
+        this.pastMedicalHistory = pastMedicalHistory;
+    }
+
+    public String getClinicalAssessment() {
+        return clinicalAssessment;
+    }
+
+    public void setClinicalAssessment(String clinicalAssessment) {
+        this.clinicalAssessment = clinicalAssessment;
+    }
+
+    public String getTreatmentPlan() {
+        return treatmentPlan;
+    }
+
+    public void setTreatmentPlan(String treatmentPlan) {
+        this.treatmentPlan = treatmentPlan;
+    }
+
+    public String getFollowUpRecommendations() {
+        return followUpRecommendations;
+    }
+
+    public void setFollowUpRecommendations(String followUpRecommendations) {
+        this.followUpRecommendations = followUpRecommendations;
+    }
+
+    public LocalDateTime getGeneratedAt() {
+        return generatedAt;
+    }
+
+    public void setGeneratedAt(LocalDateTime generatedAt) {
+        this.generatedAt = generatedAt;
+    }
+}
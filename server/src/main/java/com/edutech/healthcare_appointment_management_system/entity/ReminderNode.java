@@ -0,0 +1,46 @@
+package com.edutech.healthcare_appointment_management_system.entity;
+
+import javax.persistence.*;
+
+import java.util.Date;
+
+/**
+ * Heartbeat of a server instance taking part in reminder dispatch; used to size each
+ * node's fair share of reminder partitions.
+ */
+@Entity
+@Table(name = "reminder_node")
+public class ReminderNode {
+
+    @Id
+    @Column(length = 100)
+    private String nodeId;
+
+    private Date aliveUntil;
+
+    public ReminderNode() {
+    }
+
+    public ReminderNode(String nodeId, Date aliveUntil) {
+        this.nodeId = nodeId;
+        this.aliveUntil = aliveUntil;
+    }
+
+    // ===== Getters and Setters =====
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public Date getAliveUntil() {
+        return aliveUntil;
+    }
+
+    public void setAliveUntil(Date aliveUntil) {
+        this.aliveUntil = aliveUntil;
+    }
+}
@@ -0,0 +1,90 @@
+package com.edutech.healthcare_appointment_management_system.entity;
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+
+import java.util.Date;
+
+/**
+ * Ownership of one reminder partition (doctor id modulo the partition count).
+ * A node may only dispatch reminders of partitions it holds an unexpired lease on.
+ */
+@Entity
+@Table(name = "reminder_partition_lease")
+public class ReminderPartitionLease implements Persistable<Integer> {
+
+    @Id
+    @Column(name = "partition_no")
+    private Integer partitionNo;
+
+    @Column(length = 100)
+    private String owner;
+
+    private Date leaseUntil;
+
+    // End of the last reminder window dispatched for this partition; the next one starts there
+    private Date remindedUntil;
+
+    // Rows are only ever created fresh; saving one must INSERT, never merge over another node's lease
+    @Transient
+    private boolean newRow;
+
+    public ReminderPartitionLease() {
+    }
+
+    public ReminderPartitionLease(Integer partitionNo) {
+        this.partitionNo = partitionNo;
+        this.newRow = true;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        newRow = false;
+    }
+
+    @Override
+    public Integer getId() {
+        return partitionNo;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newRow;
+    }
+
+    // ===== Getters and Setters =====
+
+    public Integer getPartitionNo() {
+        return partitionNo;
+    }
+
+    public void setPartitionNo(Integer partitionNo) {
+        this.partitionNo = partitionNo;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Date getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    public void setLeaseUntil(Date leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
+
+    public Date getRemindedUntil() {
+        return remindedUntil;
+    }
+
+    public void setRemindedUntil(Date remindedUntil) {
+        this.remindedUntil = remindedUntil;
+    }
+}
@@ -0,0 +1,7 @@
+package com.edutech.healthcare_appointment_management_system.exception;
+
+public class GroqRateLimitedException extends RuntimeException {
+    public GroqRateLimitedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.edutech.healthcare_appointment_management_system.exception;
+
+public class ReportQueueFullException extends RuntimeException {
+    public ReportQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.edutech.healthcare_appointment_management_system.exception;
+
+public class SlotAlreadyBookedException extends RuntimeException {
+    public SlotAlreadyBookedException(String message) {
+        super(message);
+    }
+}
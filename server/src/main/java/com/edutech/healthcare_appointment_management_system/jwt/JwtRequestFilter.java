@@ -1,9 +1,11 @@
 package com.edutech.healthcare_appointment_management_system.jwt;
 
-import io.jsonwebtoken.*;
+import io.jsonwebtoken.Claims;
 
 import org.springframework.beans.factory.annotation.Autowired;
 
+import org.springframework.beans.factory.annotation.Value;
+
 import org.springframework.context.annotation.Lazy;
 
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -42,14 +44,27 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
 
+    private final TokenRevocationService tokenRevocationService;
+
+    // Stateless: trust the role/userId claims of a verified token instead of loading the user on every request
+    private final boolean stateless;
+
     @Autowired
 
-    public JwtRequestFilter(@Lazy UserDetailsService userDetailsService, JwtUtil jwtUtil) {
+    public JwtRequestFilter(@Lazy UserDetailsService userDetailsService, JwtUtil jwtUtil,
+
+                            TokenRevocationService tokenRevocationService,
+
+                            @Value("${jwt.stateless:true}") boolean stateless) {
 
         this.userDetailsService = userDetailsService;
 
         this.jwtUtil = jwtUtil;
 
+        this.tokenRevocationService = tokenRevocationService;
+
+        this.stateless = stateless;
+
     }
 
     @Override
@@ -60,7 +75,9 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
+        // Verified once per request (or served from the verified-claims cache) and reused below
+
+        Claims claims = null;
 
         String jwt = null;
 
@@ -68,31 +85,37 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
             jwt = authorizationHeader.substring(7);
 
-            try {
+            claims = jwtUtil.verify(jwt);
 
-                username = jwtUtil.extractUsername(jwt);
+        }
 
-            } catch (ExpiredJwtException | UnsupportedJwtException | MalformedJwtException |
+        if (claims != null && claims.getSubject() != null && SecurityContextHolder.getContext().getAuthentication() == null
 
-                     SignatureException | IllegalArgumentException e) {
+                && !tokenRevocationService.isRevoked(jwt, claims)) {
 
-                // Handle invalid tokens here if needed
+            Collection<? extends GrantedAuthority> authorities =
 
-            }
+                    AuthorityUtils.createAuthorityList((String) claims.get("role"));
 
-        }
+            UserDetails userDetails = null;
+
+            if (stateless) {
+
+                userDetails = new JwtUserPrincipal(claims.getSubject(), userIdOf(claims), authorities);
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            } else {
 
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                UserDetails loaded = userDetailsService.loadUserByUsername(claims.getSubject());
 
-            if (jwtUtil.validateToken(jwt, userDetails)) {
+                if (jwtUtil.validateClaims(claims, loaded)) {
 
-                Claims claims = jwtUtil.extractAllClaims(jwt);
+                    userDetails = loaded;
 
-                Collection<? extends GrantedAuthority> authorities =
+                }
+
+            }
 
-                        AuthorityUtils.createAuthorityList((String) claims.get("role"));
+            if (userDetails != null) {
 
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
 
@@ -108,5 +131,12 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
     }
 
+    private static Long userIdOf(Claims claims) {
+
+        Object userId = claims.get("userId");
+
+        return (userId instanceof Number) ? ((Number) userId).longValue() : null;
+
+    }
+
 }
- 
\ No newline at end of file
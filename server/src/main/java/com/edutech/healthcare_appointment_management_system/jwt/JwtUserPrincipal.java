@@ -0,0 +1,24 @@
+package com.edutech.healthcare_appointment_management_system.jwt;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Principal rebuilt from verified JWT claims in stateless mode: email as username,
+ * role as authority, plus the user id the token was issued for. Carries no password.
+ */
+public class JwtUserPrincipal extends User {
+
+    private final Long userId;
+
+    public JwtUserPrincipal(String email, Long userId, Collection<? extends GrantedAuthority> authorities) {
+        super(email, "", authorities);
+        this.userId = userId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+}
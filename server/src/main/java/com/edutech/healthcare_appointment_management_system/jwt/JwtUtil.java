@@ -8,6 +8,7 @@ import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.Date;
@@ -20,9 +21,14 @@ public class JwtUtil {
 
     private final UserRepository userRepository;
 
+    // Claims of already verified tokens, so repeat requests of a session skip the HS512 check
+    private final VerifiedClaimsCache verifiedClaims;
+
     @Autowired
-    public JwtUtil(UserRepository userRepository) {
+    public JwtUtil(UserRepository userRepository,
+                   @Value("${jwt.claims-cache.max-entries:10000}") int claimsCacheMaxEntries) {
         this.userRepository = userRepository;
+        this.verifiedClaims = new VerifiedClaimsCache(claimsCacheMaxEntries);
     }
 
     // NOTE: consider moving these to application.properties in the future
@@ -30,6 +36,8 @@ public class JwtUtil {
             "secretKey000000000000000000000000000000000000000000000000000000000000000000000000000000000000000";
     private final int expiration = 86400; // seconds = 24h
 
+    public static final long TOKEN_LIFETIME_MS = 24L * 60 * 60 * 1000;
+
     /**
      * principal can be an email (new flow) or username (legacy).
      * We try email first, then fallback to username.
@@ -38,7 +46,7 @@ public class JwtUtil {
         final String subject = (principal == null) ? null : principal.trim().toLowerCase();
 
         Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + (24L * 60 * 60 * 1000));
+        Date expiryDate = new Date(now.getTime() + TOKEN_LIFETIME_MS);
 
         // Try by email first (new login flow), then fallback to username
         User user = null;
@@ -59,7 +67,7 @@ public class JwtUtil {
         }
 
         // 🔵 Logging (safe)
-        log.info("Generating JWT for subject={} role={}", subject, role);
+        log.debug("Generating JWT for subject={} role={}", subject, role);
         if (log.isDebugEnabled()) {
             log.debug("JWT expiresAt={} (msSinceEpoch={})", expiryDate, expiryDate.getTime());
         }
@@ -73,71 +81,75 @@ public class JwtUtil {
                 .compact();
     }
 
-    public Claims extractAllClaims(String token) {
+    /**
+     * Parses and verifies the token once and returns its claims, or null when the token is
+     * malformed, badly signed or expired. Verified tokens are cached until they expire.
+     */
+    public Claims verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        Date now = new Date();
+        String key = VerifiedClaimsCache.keyOf(token);
+        Claims claims = verifiedClaims.get(key, now);
+        if (claims != null) {
+            return claims;
+        }
         try {
-            Claims claims = Jwts.parser()
+            claims = Jwts.parser()
                     .setSigningKey(secret)
                     .parseClaimsJws(token)
                     .getBody();
-            log.info("claimes extracted successfully for the given token");
-            return claims;
         } catch (Exception e) {
-            
-            log.warn("Failed to extract claims from JWT: {}", e.getMessage());
+            log.debug("Rejected JWT: {}", e.getMessage());
             return null;
         }
+        verifiedClaims.put(key, claims);
+        if (log.isDebugEnabled()) {
+            log.debug("Verified JWT for subject={}", claims.getSubject());
+        }
+        return claims;
+    }
+
+    /** Stable, non-reversible key of a token (SHA-256), used for caching and revocation. */
+    public static String tokenKey(String token) {
+        return VerifiedClaimsCache.keyOf(token);
+    }
+
+    public Claims extractAllClaims(String token) {
+        return verify(token);
     }
 
     public String extractUsername(String token) {
-        try {
-            String subject = Jwts.parser()
-                    .setSigningKey(secret)
-                    .parseClaimsJws(token)
-                    .getBody()
-                    .getSubject();
-            if (log.isDebugEnabled()) {
-                log.debug("Extracted subject from JWT: {}", subject);
-            }
-            return subject;
-        } catch (Exception e) {
-            log.warn("Failed to extract subject from JWT: {}", e.getMessage());
-            return null;
-        }
+        Claims claims = verify(token);
+        return (claims == null) ? null : claims.getSubject();
     }
 
     public boolean isTokenExpired(String token) {
-        try {
-            Date expirationDate = Jwts.parser()
-                    .setSigningKey(secret)
-                    .parseClaimsJws(token)
-                    .getBody()
-                    .getExpiration();
-            boolean expired = expirationDate.before(new Date());
-            if (expired) {
-                log.info("JWT is expired at {}", expirationDate);
-            }
-            return expired;
-        } catch (Exception e) {
-            log.warn("Failed to read JWT expiration: {}", e.getMessage());
-            // If we cannot parse, treat as expired/invalid at higher level
-            return true;
-        }
+        // verify() never returns expired claims; unparseable tokens count as expired as before
+        return verify(token) == null;
     }
 
     public boolean validateToken(String token, org.springframework.security.core.userdetails.UserDetails userDetails) {
-        String subject = extractUsername(token);
-        if (subject == null) {
-            log.warn("JWT validation failed: subject is null");
+        return validateClaims(verify(token), userDetails);
+    }
+
+    /**
+     * Checks already verified claims against the loaded user without touching the token again.
+     */
+    public boolean validateClaims(Claims claims, org.springframework.security.core.userdetails.UserDetails userDetails) {
+        if (claims == null || claims.getSubject() == null) {
+            log.debug("JWT validation failed: no verified subject");
             return false;
         }
-        boolean notExpired = !isTokenExpired(token);
-        boolean subjectMatches = subject.equalsIgnoreCase(userDetails.getUsername());
+        boolean notExpired = claims.getExpiration() == null || claims.getExpiration().after(new Date());
+        boolean subjectMatches = claims.getSubject().equalsIgnoreCase(userDetails.getUsername());
 
         if (!subjectMatches) {
-            log.warn("JWT subject does not match userDetails: tokenSubject={} expected={}", subject, userDetails.getUsername());
+            log.warn("JWT subject does not match userDetails: tokenSubject={} expected={}", claims.getSubject(), userDetails.getUsername());
         }
         if (!notExpired) {
-            log.warn("JWT validation failed: token expired");
+            log.debug("JWT validation failed: token expired");
         }
 
         return subjectMatches && notExpired;
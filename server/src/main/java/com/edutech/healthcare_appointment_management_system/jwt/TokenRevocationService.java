@@ -0,0 +1,115 @@
+package com.edutech.healthcare_appointment_management_system.jwt;
+
+import com.edutech.healthcare_appointment_management_system.entity.JwtRevocation;
+import com.edutech.healthcare_appointment_management_system.repository.JwtRevocationRepository;
+
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Denylist that lets logout and password reset take effect for stateless JWTs.
+ *
+ * Lookups are served from memory, so checking a request costs no database round-trip.
+ * Revocations are written to jwt_revocation and every instance pulls new rows on a
+ * short interval ({@code jwt.revocation.refresh-ms}); entries disappear once the tokens
+ * they cover would have expired anyway.
+ */
+@Slf4j
+@Component
+public class TokenRevocationService {
+
+    private final JwtRevocationRepository revocationRepository;
+    private final boolean enabled;
+
+    // token hash -> expiry of that token
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    // subject -> tokens issued up to this instant (millis, truncated to seconds like "iat") are revoked
+    private final Map<String, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    private volatile Date lastRefresh = new Date(0);
+
+    @Autowired
+    public TokenRevocationService(JwtRevocationRepository revocationRepository,
+                                  @Value("${jwt.revocation.enabled:true}") boolean enabled) {
+        this.revocationRepository = revocationRepository;
+        this.enabled = enabled;
+    }
+
+    public boolean isRevoked(String token, Claims claims) {
+        if (!enabled) {
+            return false;
+        }
+        if (!revokedTokens.isEmpty() && revokedTokens.containsKey(JwtUtil.tokenKey(token))) {
+            return true;
+        }
+        if (!revokedBefore.isEmpty() && claims.getSubject() != null) {
+            Long cutoff = revokedBefore.get(claims.getSubject().toLowerCase());
+            Date issuedAt = claims.getIssuedAt();
+            // "iat" has second precision: a token from the same second as the revocation is treated as revoked
+            return cutoff != null && (issuedAt == null || issuedAt.getTime() <= cutoff);
+        }
+        return false;
+    }
+
+    /** Revokes a single token (logout). */
+    public void revokeToken(String token, Claims claims) {
+        if (!enabled || claims == null) {
+            return;
+        }
+        Date expiresAt = claims.getExpiration() != null ? claims.getExpiration() : new Date(System.currentTimeMillis() + JwtUtil.TOKEN_LIFETIME_MS);
+        String key = JwtUtil.tokenKey(token);
+        revocationRepository.save(new JwtRevocation(key, claims.getSubject(), new Date(), expiresAt));
+        revokedTokens.put(key, expiresAt.getTime());
+    }
+
+    /** Revokes every token issued to the subject until now (password reset). */
+    public void revokeAllFor(String subject) {
+        if (!enabled || subject == null) {
+            return;
+        }
+        String normalized = subject.trim().toLowerCase();
+        long now = System.currentTimeMillis();
+        revocationRepository.save(new JwtRevocation(null, normalized, new Date(now), new Date(now + JwtUtil.TOKEN_LIFETIME_MS)));
+        revokedBefore.merge(normalized, truncateToSeconds(now), Math::max);
+    }
+
+    /** Pulls revocations made by other instances and forgets entries whose tokens have expired. */
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-ms:10000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        Date now = new Date();
+        // Overlap the previous window a little so rows committed late by another instance are not missed
+        Date since = new Date(lastRefresh.getTime() - 60_000L);
+        for (JwtRevocation revocation : revocationRepository.findActiveSince(since, now)) {
+            if (revocation.getTokenHash() != null) {
+                revokedTokens.put(revocation.getTokenHash(), revocation.getExpiresAt().getTime());
+            } else if (revocation.getSubject() != null) {
+                revokedBefore.merge(revocation.getSubject(), truncateToSeconds(revocation.getRevokedAt().getTime()), Math::max);
+            }
+        }
+        lastRefresh = now;
+
+        long nowMillis = now.getTime();
+        revokedTokens.values().removeIf(expiry -> expiry <= nowMillis);
+        revokedBefore.values().removeIf(cutoff -> cutoff + JwtUtil.TOKEN_LIFETIME_MS <= nowMillis);
+        int purged = revocationRepository.deleteExpired(now);
+        if (purged > 0) {
+            log.debug("Purged {} expired JWT revocations", purged);
+        }
+    }
+
+    private static long truncateToSeconds(long millis) {
+        return millis - Math.floorMod(millis, 1000L);
+    }
+}
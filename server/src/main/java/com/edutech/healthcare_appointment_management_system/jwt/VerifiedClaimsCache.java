@@ -0,0 +1,85 @@
+package com.edutech.healthcare_appointment_management_system.jwt;
+
+import io.jsonwebtoken.Claims;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of JWT claims whose signature has already been verified.
+ *
+ * Entries are keyed by the SHA-256 of the token (the raw token is never kept) and are
+ * dropped as soon as the token expires, so a hit is only ever served for a token that
+ * would still pass verification.
+ */
+class VerifiedClaimsCache {
+
+    private final Map<String, Claims> entries;
+
+    VerifiedClaimsCache(int maxEntries) {
+        this.entries = new LinkedHashMap<String, Claims>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Claims> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /** Cached claims of a still valid token, or null. */
+    Claims get(String key, Date now) {
+        synchronized (entries) {
+            Claims claims = entries.get(key);
+            if (claims != null && isExpired(claims, now)) {
+                entries.remove(key);
+                return null;
+            }
+            return claims;
+        }
+    }
+
+    void put(String key, Claims claims) {
+        // Tokens without an expiration would stay valid forever; never cache them
+        if (claims.getExpiration() == null) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key, claims);
+        }
+    }
+
+    void remove(String key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    static String keyOf(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static boolean isExpired(Claims claims, Date now) {
+        return !claims.getExpiration().after(now);
+    }
+}
@@ -0,0 +1,36 @@
+package com.edutech.healthcare_appointment_management_system.repository;
+
+import com.edutech.healthcare_appointment_management_system.entity.AppointmentNotification;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface AppointmentNotificationRepository extends JpaRepository<AppointmentNotification, Long> {
+
+    @Query("select n.id from AppointmentNotification n " +
+           "where n.status = 'PENDING' and n.nextAttemptAt <= :now order by n.nextAttemptAt, n.id")
+    List<Long> findDueIds(@Param("now") Date now, Pageable page);
+
+    // Only one worker wins the PENDING -> SENDING transition for a row
+    @Transactional
+    @Modifying
+    @Query("update AppointmentNotification n set n.status = 'SENDING', n.updatedAt = :now " +
+           "where n.id = :id and n.status = 'PENDING' and n.nextAttemptAt <= :now")
+    int claim(@Param("id") Long id, @Param("now") Date now);
+
+    // Rows left in SENDING by a worker that died mid-send go back to the queue
+    @Transactional
+    @Modifying
+    @Query("update AppointmentNotification n set n.status = 'PENDING', n.nextAttemptAt = :now " +
+           "where n.status = 'SENDING' and n.updatedAt < :staleBefore")
+    int releaseStale(@Param("staleBefore") Date staleBefore, @Param("now") Date now);
+}
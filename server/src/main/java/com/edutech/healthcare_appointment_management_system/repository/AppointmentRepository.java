@@ -3,10 +3,13 @@ package com.edutech.healthcare_appointment_management_system.repository;
  
 // import com.wecp.healthcare_appointment_management_system.entity.Appointment;
  
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
  
 import com.edutech.healthcare_appointment_management_system.entity.Appointment;
  
@@ -23,6 +26,13 @@ public interface AppointmentRepository  extends JpaRepository<Appointment,Long>
     public List<Appointment> getAppointmentsByDoctorId(Long doctorId);
  
     List<Appointment> findByAppointmentTimeBetween(Date start, Date end);
+
+    // Bounded slot lookup used by SlotOccupancyIndex: only id + time for one doctor and one time window
+    @Query("select a.id as id, a.appointmentTime as appointmentTime from Appointment a " +
+           "where a.doctor.id = :doctorId and a.appointmentTime >= :from and a.appointmentTime < :to")
+    List<SlotView> findSlotsByDoctorIdAndTimeRange(@Param("doctorId") Long doctorId,
+                                                   @Param("from") Date from,
+                                                   @Param("to") Date to);
  
     @Query("SELECT a FROM Appointment a WHERE a.appointmentTime BETWEEN :from AND :to AND a.reminderSent = false AND a.status = 'Scheduled'")
 List<Appointment> findAppointmentsForReminder(
@@ -30,4 +40,55 @@ List<Appointment> findAppointmentsForReminder(
         @Param("to") Date to
 );
 
+    // ===== Reminder dispatch: select a batch, claim it with one bulk UPDATE, load what was won =====
+
+    // Only the reminder partitions (doctor id modulo partition count) owned by the calling node
+    @Query("select a.id from Appointment a where a.reminderSent = false and a.status = 'Scheduled' " +
+           "and a.appointmentTime between :from and :to and mod(a.doctor.id, :partitions) in :owned " +
+           "order by a.appointmentTime, a.id")
+    List<Long> findDueReminderIds(@Param("from") Date from, @Param("to") Date to,
+                                  @Param("partitions") int partitions, @Param("owned") List<Integer> owned,
+                                  Pageable page);
+
+    @Transactional
+    @Modifying
+    @Query("update Appointment a set a.reminderSent = true, a.reminderClaim = :claim " +
+           "where a.id in :ids and a.reminderSent = false")
+    int claimReminders(@Param("ids") List<Long> ids, @Param("claim") String claim);
+
+    @Query("select a from Appointment a left join fetch a.patient left join fetch a.doctor " +
+           "where a.reminderClaim = :claim")
+    List<Appointment> findByReminderClaim(@Param("claim") String claim);
+
+    // Reminders of appointments that started before any window could send them: marked sent, no email
+    @Transactional
+    @Modifying
+    @Query("update Appointment a set a.reminderSent = true where a.reminderSent = false and a.status = 'Scheduled' " +
+           "and a.appointmentTime >= :from and a.appointmentTime < :before " +
+           "and mod(a.doctor.id, :partitions) in :owned")
+    int expireReminders(@Param("from") Date from, @Param("before") Date before,
+                        @Param("partitions") int partitions, @Param("owned") List<Integer> owned);
+
+    // Puts reminders whose send failed back into the queue
+    @Transactional
+    @Modifying
+    @Query("update Appointment a set a.reminderSent = false, a.reminderClaim = null where a.id in :ids")
+    int releaseReminders(@Param("ids") List<Long> ids);
+
+    // Appointments written before slot_key existed, in id order (see AppointmentSlotKeyBackfill)
+    @Query("select a.id as id, a.appointmentTime as appointmentTime from Appointment a " +
+           "where a.slotKey is null and a.appointmentTime is not null and a.id > :afterId order by a.id")
+    List<SlotView> findUnkeyedSlotsAfter(@Param("afterId") long afterId, Pageable page);
+
+    // Bypasses @PreUpdate; fails on the (doctor_id, slot_key) constraint when the slot is taken
+    @Transactional
+    @Modifying
+    @Query("update Appointment a set a.slotKey = :slotKey where a.id = :id and a.slotKey is null")
+    int setSlotKey(@Param("id") Long id, @Param("slotKey") long slotKey);
+
+    interface SlotView {
+        Long getId();
+        Date getAppointmentTime();
+    }
+
 }
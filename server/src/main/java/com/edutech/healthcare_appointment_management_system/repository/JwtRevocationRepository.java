@@ -0,0 +1,25 @@
+package com.edutech.healthcare_appointment_management_system.repository;
+
+import com.edutech.healthcare_appointment_management_system.entity.JwtRevocation;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface JwtRevocationRepository extends JpaRepository<JwtRevocation, Long> {
+
+    @Query("select r from JwtRevocation r where r.revokedAt >= :since and r.expiresAt > :now")
+    List<JwtRevocation> findActiveSince(@Param("since") Date since, @Param("now") Date now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from JwtRevocation r where r.expiresAt <= :now")
+    int deleteExpired(@Param("now") Date now);
+}
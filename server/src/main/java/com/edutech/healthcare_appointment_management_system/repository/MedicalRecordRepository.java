@@ -2,24 +2,56 @@ package com.edutech.healthcare_appointment_management_system.repository;
 
  
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
  
+import com.edutech.healthcare_appointment_management_system.dto.MedicalRecordView;
 import com.edutech.healthcare_appointment_management_system.entity.MedicalRecord;
  
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
  
 @Repository
 public interface MedicalRecordRepository extends JpaRepository<MedicalRecord,Long> {
  
-    // @Query("select m from MedicalRecord m where m.patient.id =:patientId")
-    // public List<MedicalRecord> getMedicalRecordsByPatientId(Long patientId);
+    // Report export: patient and doctor fetched in the same query, newest record first
+    @Query("select m from MedicalRecord m left join fetch m.patient left join fetch m.doctor"
+            + " where m.patient.id = :patientId order by m.recordDate desc, m.id desc")
+    List<MedicalRecord> findForReportByPatientId(@Param("patientId") Long patientId);
 
+    @Query("select m from MedicalRecord m left join fetch m.patient left join fetch m.doctor where m.id in :ids")
+    List<MedicalRecord> findForReportByIds(@Param("ids") Collection<Long> ids);
 
-    @Query("select m from MedicalRecord m where m.patient.id = :patientId") ////////////////////////////////////////////
-    List<MedicalRecord> getMedicalRecordsByPatientId(@Param("patientId") Long patientId);
- 
-    @Query("select m from MedicalRecord m where m.patient.id = :patientId order by m.recordDate desc")//new
-    List<MedicalRecord> findByPatientIdOrderByRecordDateDesc(@Param("patientId") Long patientId);//new
+    // Medical history, newest first, one keyset page at a time: rows are built in the select
+    // from one query with both joins, no entities loaded. Undated rows sort last (as NULLs do
+    // in a descending MySQL sort) and page by id alone.
+    String HISTORY_VIEW = "select new com.edutech.healthcare_appointment_management_system.dto.MedicalRecordView("
+            + "m.id, m.recordDate, m.diagnosis, m.treatment, p.id, p.username, d.id, d.username)"
+            + " from MedicalRecord m left join m.patient p left join m.doctor d where p.id = :patientId";
+    String HISTORY_ORDER = " order by m.recordDate desc, m.id desc";
+
+    @Query(HISTORY_VIEW + HISTORY_ORDER)
+    List<MedicalRecordView> findHistory(@Param("patientId") Long patientId, Pageable page);
+
+    @Query(HISTORY_VIEW + " and (m.recordDate < :date or (m.recordDate = :date and m.id < :id)"
+            + " or m.recordDate is null)" + HISTORY_ORDER)
+    List<MedicalRecordView> findHistoryBefore(@Param("patientId") Long patientId, @Param("date") LocalDateTime date,
+                                              @Param("id") Long id, Pageable page);
+
+    @Query(HISTORY_VIEW + " and m.recordDate is null and m.id < :id" + HISTORY_ORDER)
+    List<MedicalRecordView> findUndatedHistoryBefore(@Param("patientId") Long patientId, @Param("id") Long id,
+                                                     Pageable page);
+
+    // The whole history in the same order, read row by row; the caller must hold a transaction.
+    // MySQL Connector/J honours the fetch size only with useCursorFetch=true, otherwise it
+    // buffers the complete result set; StreamingConfig sets it on the datasource.
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(HISTORY_VIEW + HISTORY_ORDER)
+    Stream<MedicalRecordView> streamHistory(@Param("patientId") Long patientId);
 }
@@ -0,0 +1,21 @@
+package com.edutech.healthcare_appointment_management_system.repository;
+
+import com.edutech.healthcare_appointment_management_system.entity.MedicalReportNarrative;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface MedicalReportNarrativeRepository extends JpaRepository<MedicalReportNarrative, Long> {
+
+    @Query("select n from MedicalReportNarrative n where n.medicalRecord.id = :recordId")
+    Optional<MedicalReportNarrative> findByRecordId(@Param("recordId") Long recordId);
+
+    @Query("select count(n) > 0 from MedicalReportNarrative n"
+            + " where n.medicalRecord.id = :recordId and n.inputHash = :inputHash")
+    boolean existsFor(@Param("recordId") Long recordId, @Param("inputHash") String inputHash);
+}
@@ -3,6 +3,7 @@ package com.edutech.healthcare_appointment_management_system.repository;
  
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -19,4 +20,27 @@ public interface PatientRepository  extends JpaRepository<Patient,Long> {
     List<Patient> searchPatients(String searchTerm);
     @Query(value = "SELECT * FROM users WHERE role = 'PATIENT' ORDER BY id", nativeQuery = true)
     List<Patient> findAllPatients();
+
+    // Loads PatientSearchIndex: the rows searchPatients looks at, only the columns it matches on
+    @Query(value = "SELECT id AS id, username AS username, email AS email FROM users"
+            + " WHERE role = 'PATIENT' ORDER BY id", nativeQuery = true)
+    List<SearchEntry> findSearchEntries();
+
+    // Keyset pages in id order: the patients after the given id, as many as the page asks for
+    @Query(value = "SELECT id AS id, username AS username, email AS email FROM users"
+            + " WHERE role = 'PATIENT' AND id > ?1 ORDER BY id", nativeQuery = true)
+    List<SearchEntry> findPatientsAfter(long afterId, Pageable page);
+
+    @Query(value = "SELECT id AS id, username AS username, email AS email FROM users"
+            + " WHERE role = 'PATIENT' AND id > ?2 AND ("
+            + "LOWER(username) LIKE LOWER(CONCAT('%', ?1, '%')) OR "
+            + "LOWER(email) LIKE LOWER(CONCAT('%', ?1, '%')) OR "
+            + "CAST(id AS CHAR) LIKE CONCAT('%', ?1, '%')) ORDER BY id", nativeQuery = true)
+    List<SearchEntry> searchPatientsAfter(String searchTerm, long afterId, Pageable page);
+
+    interface SearchEntry {
+        Long getId();
+        String getUsername();
+        String getEmail();
+    }
 }
\ No newline at end of file
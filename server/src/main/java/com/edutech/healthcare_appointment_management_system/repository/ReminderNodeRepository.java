@@ -0,0 +1,17 @@
+package com.edutech.healthcare_appointment_management_system.repository;
+
+import com.edutech.healthcare_appointment_management_system.entity.ReminderNode;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+
+@Repository
+public interface ReminderNodeRepository extends JpaRepository<ReminderNode, String> {
+
+    @Query("select count(n) from ReminderNode n where n.aliveUntil > :now")
+    long countAlive(@Param("now") Date now);
+}
@@ -0,0 +1,59 @@
+package com.edutech.healthcare_appointment_management_system.repository;
+
+import com.edutech.healthcare_appointment_management_system.entity.ReminderPartitionLease;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface ReminderPartitionLeaseRepository extends JpaRepository<ReminderPartitionLease, Integer> {
+
+    @Query("select l.partitionNo from ReminderPartitionLease l " +
+           "where l.owner = :owner and l.leaseUntil > :now order by l.partitionNo")
+    List<Integer> findOwned(@Param("owner") String owner, @Param("now") Date now);
+
+    @Query("select l.partitionNo from ReminderPartitionLease l " +
+           "where l.owner is null or l.leaseUntil <= :now order by l.partitionNo")
+    List<Integer> findClaimable(@Param("now") Date now);
+
+    @Transactional
+    @Modifying
+    @Query("update ReminderPartitionLease l set l.leaseUntil = :until " +
+           "where l.owner = :owner and l.leaseUntil > :now")
+    int renew(@Param("owner") String owner, @Param("now") Date now, @Param("until") Date until);
+
+    // Succeeds only for a free or expired partition, so two nodes never hold the same one
+    @Transactional
+    @Modifying
+    @Query("update ReminderPartitionLease l set l.owner = :owner, l.leaseUntil = :until " +
+           "where l.partitionNo = :partitionNo and (l.owner is null or l.leaseUntil <= :now)")
+    int claim(@Param("partitionNo") Integer partitionNo, @Param("owner") String owner,
+              @Param("now") Date now, @Param("until") Date until);
+
+    @Transactional
+    @Modifying
+    @Query("update ReminderPartitionLease l set l.owner = null, l.leaseUntil = null " +
+           "where l.partitionNo = :partitionNo and l.owner = :owner")
+    int release(@Param("partitionNo") Integer partitionNo, @Param("owner") String owner);
+
+    // Only forward, and only while the node still holds the partitions
+    @Transactional
+    @Modifying
+    @Query("update ReminderPartitionLease l set l.remindedUntil = :until " +
+           "where l.partitionNo in :partitionNos and l.owner = :owner " +
+           "and (l.remindedUntil is null or l.remindedUntil < :until)")
+    int advanceReminded(@Param("partitionNos") List<Integer> partitionNos, @Param("owner") String owner,
+                        @Param("until") Date until);
+
+    @Transactional
+    @Modifying
+    @Query("update ReminderPartitionLease l set l.owner = null, l.leaseUntil = null where l.owner = :owner")
+    int releaseAll(@Param("owner") String owner);
+}
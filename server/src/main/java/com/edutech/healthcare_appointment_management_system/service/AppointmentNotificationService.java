@@ -0,0 +1,211 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.common.QrUtil;
+import com.edutech.healthcare_appointment_management_system.entity.Appointment;
+import com.edutech.healthcare_appointment_management_system.entity.AppointmentNotification;
+import com.edutech.healthcare_appointment_management_system.entity.Doctor;
+import com.edutech.healthcare_appointment_management_system.entity.Patient;
+import com.edutech.healthcare_appointment_management_system.repository.AppointmentNotificationRepository;
+import com.edutech.healthcare_appointment_management_system.repository.AppointmentRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Delivers appointment confirmations off the request thread.
+ *
+ * Bookings only insert an outbox row; once the booking commits the row is handed to the
+ * bounded email executor, which renders the QR code and calls SendGrid. When the executor
+ * queue is full the row simply stays PENDING and the poller picks it up later, so a slow
+ * mail provider never pushes back on booking latency. Failed sends are retried with
+ * exponential backoff up to a fixed number of attempts.
+ */
+@Service
+public class AppointmentNotificationService {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentNotificationService.class);
+
+    private final AppointmentNotificationRepository notificationRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final SendGridEmailService sendGridEmailService;
+    private final Executor emailTaskExecutor;
+
+    @Value("${notification.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${notification.retry-backoff-ms:30000}")
+    private long retryBackoffMs;
+
+    @Value("${notification.max-backoff-ms:3600000}")
+    private long maxBackoffMs;
+
+    @Value("${notification.poll-batch-size:50}")
+    private int pollBatchSize;
+
+    @Value("${notification.stale-after-ms:300000}")
+    private long staleAfterMs;
+
+    @Autowired
+    public AppointmentNotificationService(AppointmentNotificationRepository notificationRepository,
+                                          AppointmentRepository appointmentRepository,
+                                          SendGridEmailService sendGridEmailService,
+                                          @Qualifier("emailTaskExecutor") Executor emailTaskExecutor) {
+        this.notificationRepository = notificationRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.sendGridEmailService = sendGridEmailService;
+        this.emailTaskExecutor = emailTaskExecutor;
+    }
+
+    /**
+     * Queues a confirmation for a freshly booked appointment. Must run inside the booking
+     * transaction; dispatch happens only after that transaction commits.
+     */
+    public void enqueueConfirmation(Appointment appointment) {
+        AppointmentNotification notification = notificationRepository.save(
+                new AppointmentNotification(appointment.getId(), AppointmentNotification.TYPE_CONFIRMATION));
+        Long id = notification.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(id);
+                }
+            });
+        } else {
+            dispatch(id);
+        }
+    }
+
+    /**
+     * Picks up notifications that were not dispatched right away (executor full, retry due,
+     * server restarted) and re-queues rows abandoned by a crashed worker.
+     */
+    @Scheduled(fixedDelayString = "${notification.poll-interval-ms:15000}")
+    public void pollDueNotifications() {
+        Date now = new Date();
+        int released = notificationRepository.releaseStale(new Date(now.getTime() - staleAfterMs), now);
+        if (released > 0) {
+            log.warn("Re-queued {} notifications stuck in SENDING", released);
+        }
+        List<Long> due = notificationRepository.findDueIds(now, PageRequest.of(0, pollBatchSize));
+        for (Long id : due) {
+            if (!dispatch(id)) {
+                break; // executor saturated, try again on the next tick
+            }
+        }
+    }
+
+    /**
+     * Processes one notification on the calling thread. Returns without doing anything
+     * if another worker already claimed it or it is not due yet.
+     */
+    public void process(Long notificationId) {
+        if (notificationRepository.claim(notificationId, new Date()) == 0) {
+            return;
+        }
+        AppointmentNotification notification = notificationRepository.findById(notificationId).orElse(null);
+        if (notification == null) {
+            return;
+        }
+        notification.setAttempts(notification.getAttempts() + 1);
+        try {
+            if (sendConfirmation(notification.getAppointmentId())) {
+                notification.setStatus(AppointmentNotification.STATUS_SENT);
+                notification.setLastError(null);
+            } else {
+                notification.setStatus(AppointmentNotification.STATUS_FAILED);
+                notification.setLastError("Appointment no longer exists");
+            }
+        } catch (Exception e) {
+            notification.setLastError(truncate(e.toString()));
+            if (notification.getAttempts() >= maxAttempts) {
+                notification.setStatus(AppointmentNotification.STATUS_FAILED);
+                log.warn("Giving up on notification {} after {} attempts: {}",
+                        notificationId, notification.getAttempts(), e.toString());
+            } else {
+                notification.setStatus(AppointmentNotification.STATUS_PENDING);
+                notification.setNextAttemptAt(new Date(System.currentTimeMillis() + backoff(notification.getAttempts())));
+            }
+        }
+        notification.setUpdatedAt(new Date());
+        notificationRepository.save(notification);
+    }
+
+    // Hands a notification to the email pool; false when the pool rejected it
+    private boolean dispatch(Long notificationId) {
+        try {
+            emailTaskExecutor.execute(() -> {
+                try {
+                    process(notificationId);
+                } catch (RuntimeException e) {
+                    log.error("Notification {} could not be processed", notificationId, e);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.debug("Email executor full, notification {} left for the poller", notificationId);
+            return false;
+        }
+    }
+
+    private boolean sendConfirmation(Long appointmentId) throws Exception {
+        Appointment appointment = appointmentRepository.findById(appointmentId).orElse(null);
+        if (appointment == null || appointment.getPatient() == null || appointment.getDoctor() == null) {
+            return false;
+        }
+        Patient p = appointment.getPatient();
+        Doctor d = appointment.getDoctor();
+
+        // Email-friendly IST strings; the stored appointment time is untouched
+        TimeZone ist = TimeZone.getTimeZone("Asia/Kolkata");
+        SimpleDateFormat dFmt = new SimpleDateFormat("yyyy-MM-dd");
+        dFmt.setTimeZone(ist);
+        SimpleDateFormat tFmt = new SimpleDateFormat("HH:mm");
+        tFmt.setTimeZone(ist);
+
+        String dateStr = dFmt.format(appointment.getAppointmentTime());
+        String timeStr = tFmt.format(appointment.getAppointmentTime());
+
+        String qrPayload = "APPT:" + appointment.getId()
+                + "|PATIENT:" + p.getUsername()
+                + "|DATE:" + dateStr
+                + "|TIME:" + timeStr;
+        byte[] qrPng = QrUtil.toPng(qrPayload, 320);
+
+        sendGridEmailService.sendAppointmentConfirmation(
+                p.getEmail(),
+                p.getUsername(),
+                d.getUsername(),
+                d.getSpecialty(),
+                dateStr,
+                timeStr,
+                appointment.getId(),
+                qrPng
+        );
+        return true;
+    }
+
+    private long backoff(int attempts) {
+        long delay = retryBackoffMs << Math.min(attempts - 1, 20);
+        return Math.min(delay, maxBackoffMs);
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= 500 ? message : message.substring(0, 500);
+    }
+}
@@ -1,24 +1,22 @@
 package com.edutech.healthcare_appointment_management_system.service;
  
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import com.edutech.healthcare_appointment_management_system.common.QrUtil;
 import com.edutech.healthcare_appointment_management_system.dto.TimeDto;
 import com.edutech.healthcare_appointment_management_system.entity.Appointment;
 import com.edutech.healthcare_appointment_management_system.entity.Doctor;
 import com.edutech.healthcare_appointment_management_system.entity.Patient;
+import com.edutech.healthcare_appointment_management_system.exception.SlotAlreadyBookedException;
 import com.edutech.healthcare_appointment_management_system.repository.*;
  
 import java.time.LocalDateTime;
 import java.util.Date;
 import java.util.List;
- 
- 
-
-import java.time.LocalDateTime;
-import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
  
 @Service
 public class AppointmentService {
@@ -42,110 +40,60 @@ private DoctorRepository doctorRepository;
 private UserRepository userRepository;
 
 @Autowired
-    private SendGridEmailService sendGridEmailService;
-
- /*
- 
-  */   
-public Appointment scheduleAppointment(Long patientId, Long doctorId, TimeDto timeDto) {
+    private AppointmentNotificationService appointmentNotificationService;
 
-    List<Appointment> existingAppointments =
-            appointmentRepository.getAppointmentsByDoctorId(doctorId);
+@Autowired
+    private TransactionTemplate transactionTemplate;
 
-    for (Appointment a : existingAppointments) {
-        if (a.getAppointmentTime() == null) continue;
+@Autowired
+    private SlotOccupancyIndex slotOccupancyIndex;
 
-        long diff = Math.abs(
-            a.getAppointmentTime().getTime() - timeDto.getTime().getTime()
-        );
+@Autowired
+    private DoctorBookingLocks doctorBookingLocks;
 
-        // Block same 15-minute slot
-        if (diff < (15 * 60 * 1000)) {
-            throw new RuntimeException("Slot already booked");
-        }
-    }
+@Autowired
+    private ReminderDispatcher reminderDispatcher;
 
-    Appointment appointment = new Appointment();
+ /*
+ 
+  */   
+public Appointment scheduleAppointment(Long patientId, Long doctorId, TimeDto timeDto) {
 
     Patient p = patientRepository.findById(patientId).orElse(null);
     Doctor d = doctorService.findDoctorByID(doctorId);
 
-    appointment.setDoctor(d);
-    appointment.setPatient(p);
-    appointment.setAppointmentTime(timeDto.getTime());
-    appointment.setStatus("Scheduled");
-
-    // return appointmentRepository.save(appointment);
-
-
-    Appointment saved = appointmentRepository.save(appointment);
- 
-// ✅ NEW: Send confirmation email with QR (async). Booking still succeeds if email fails.
-
-// NOTE: This does NOT change any time storage logic. It only formats IST text for the email body.
-
-try {
-
-    if (p != null && d != null && saved.getId() != null) {
-
-        // Build email-friendly IST strings (keeps your existing time fix intact)
-
-        java.util.TimeZone ist = java.util.TimeZone.getTimeZone("Asia/Kolkata");
-
-        java.text.SimpleDateFormat dFmt = new java.text.SimpleDateFormat("yyyy-MM-dd");
-
-        dFmt.setTimeZone(ist);
-
-        java.text.SimpleDateFormat tFmt = new java.text.SimpleDateFormat("HH:mm");
-
-        tFmt.setTimeZone(ist);
- 
-        java.util.Date apptDt = saved.getAppointmentTime();
-
-        String dateStr = dFmt.format(apptDt);
-
-        String timeStr = tFmt.format(apptDt);
- 
-        String link = ""; // optional: e.g., "https://your-ui.app/appointments/" + saved.getId()
+    Appointment saved;
 
-        String qrPayload = "APPT:" + saved.getId()
-
-        + "|PATIENT:" + p.getUsername()
-
-        + "|DATE:" + dateStr
-
-        + "|TIME:" + timeStr;
- 
-byte[] qrPng = QrUtil.toPng(qrPayload, 320);
- 
-sendGridEmailService.sendAppointmentConfirmation(
-
-    p.getEmail(),
-
-    p.getUsername(),
-
-    d.getUsername(),
-
-    d.getSpecialty(),
-
-    dateStr,
-
-    timeStr,
-
-    saved.getId(),
-
-    qrPng
+    // Check-then-save must not interleave for the same doctor (per-doctor stripe, no global lock)
+    ReentrantLock lock = doctorBookingLocks.lockFor(doctorId);
+    lock.lock();
+    try {
+        // Block same 15-minute slot (bounded per-day lookup instead of scanning the doctor's whole history);
+        // other instances' bookings reach the index within its TTL, the slot constraint covers the rest
+        if (!slotOccupancyIndex.isFree(doctorId, timeDto.getTime())) {
+            throw new SlotAlreadyBookedException("Slot already booked");
+        }
 
-);
- 
+        Appointment appointment = new Appointment();
+        appointment.setDoctor(d);
+        appointment.setPatient(p);
+        appointment.setAppointmentTime(timeDto.getTime());
+        appointment.setStatus("Scheduled");
+
+        // Booking and its confirmation outbox row commit together; the email (QR + SendGrid)
+        // is sent by the notification workers after commit, never on this request thread
+        saved = transactionTemplate.execute(status -> {
+            Appointment a = saveSlot(appointment);
+            if (p != null && d != null) {
+                appointmentNotificationService.enqueueConfirmation(a);
+            }
+            return a;
+        });
+        slotOccupancyIndex.add(doctorId, saved.getId(), saved.getAppointmentTime());
+    } finally {
+        lock.unlock();
     }
 
-} catch (Exception ignored) {
-
-    // Never break booking flow for email errors
-
-}
- 
 return saved;
 
 }
@@ -162,48 +110,47 @@ return saved;
       }
       public Appointment rescheduleAppointment(Long appointmentId,TimeDto timeDto){
           Appointment appointment = appointmentRepository.findById(appointmentId).orElse(null);
-          if(appointment!=null){
+          if(appointment==null){
+              return null;
+          }
+          Long doctorId = appointment.getDoctor() != null ? appointment.getDoctor().getId() : null;
+          ReentrantLock lock = doctorBookingLocks.lockFor(doctorId);
+          lock.lock();
+          try {
+              if (doctorId != null && !slotOccupancyIndex.isFree(doctorId, timeDto.getTime(), appointmentId)) {
+                  throw new SlotAlreadyBookedException("Slot already booked");
+              }
+              Date oldTime = appointment.getAppointmentTime();
               appointment.setAppointmentTime(timeDto.getTime());
-              return appointmentRepository.save(appointment);
+              Appointment saved = saveSlot(appointment);
+              slotOccupancyIndex.move(doctorId, saved.getId(), oldTime, saved.getAppointmentTime());
+              return saved;
+          } finally {
+              lock.unlock();
+          }
+      }
+
+      // Flushes immediately so a slot collision with another instance surfaces here as a 409,
+      // and drops the index's stale view of that day
+      private Appointment saveSlot(Appointment appointment) {
+          try {
+              return appointmentRepository.saveAndFlush(appointment);
+          } catch (DataIntegrityViolationException e) {
+              if (appointment.getDoctor() != null) {
+                  slotOccupancyIndex.invalidate(appointment.getDoctor().getId(), appointment.getAppointmentTime());
+              }
+              throw new SlotAlreadyBookedException("Slot already booked");
           }
-          return null;
       }
       public List<Appointment> getAppointmentsByDoctorId(Long doctorId){
           return appointmentRepository.getAppointmentsByDoctorId(doctorId);
       }
 
 
-      @Transactional
-public void sendAppointmentReminders() {
-
-Date now = new Date();
-Date from = new Date(now.getTime() + (0 * 60 * 1000));
-Date to   = new Date(now.getTime() + (1 * 60 * 1000));
-
-
-    List<Appointment> appointments =
-            appointmentRepository.findAppointmentsForReminder(from, to);
-
-    for (Appointment appointment : appointments) {
-
-        Patient patient = appointment.getPatient();
-        Doctor doctor = appointment.getDoctor();
-
-        if (patient == null || doctor == null) {
-            continue;
-        }
-
-        emailService.sendAppointmentReminder(
-                patient.getEmail(),
-                patient.getUsername(),
-                doctor.getUsername(),
-                appointment.getAppointmentTime()
-        );
-
-        appointment.setReminderSent(true);
-        appointmentRepository.save(appointment);
-    }
-}
+      // Claims due reminders in batches and sends them in parallel (see ReminderDispatcher)
+      public void sendAppointmentReminders() {
+          reminderDispatcher.dispatchDue();
+      }
 
     // NEW DELETE METHOD
     @Transactional
@@ -211,6 +158,9 @@ Date to   = new Date(now.getTime() + (1 * 60 * 1000));
         Appointment appointment = appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new RuntimeException("Appointment not found with id: " + appointmentId));
         appointmentRepository.delete(appointment);
+        if (appointment.getDoctor() != null) {
+            slotOccupancyIndex.remove(appointment.getDoctor().getId(), appointment.getId(), appointment.getAppointmentTime());
+        }
     }
       // public String genrateAppointmentQr(Long appointmentId) throws Exception{
       //   Appointment appointment = appointmentRepository.findById(appointmentId).orElse(null);
@@ -0,0 +1,85 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.entity.Appointment;
+import com.edutech.healthcare_appointment_management_system.repository.AppointmentRepository;
+import com.edutech.healthcare_appointment_management_system.repository.AppointmentRepository.SlotView;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills slot_key for appointments written before the column existed.
+ *
+ * Hibernate (ddl-auto=update) adds the column as NULL for existing rows, and the unique
+ * constraint on (doctor_id, slot_key) ignores NULLs, so until the keys are filled in those
+ * bookings are not protected. Rows are keyed one at a time in id order: the first booking
+ * of a doctor's 15-minute slot gets the key, and a later one that would collide with it
+ * keeps NULL and is reported, to be moved or cancelled by hand. Running on several
+ * instances at once is safe; each update only applies to a row whose key is still NULL.
+ */
+@Component
+public class AppointmentSlotKeyBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentSlotKeyBackfill.class);
+
+    private final AppointmentRepository appointmentRepository;
+    private final boolean enabled;
+    private final int batchSize;
+
+    @Autowired
+    public AppointmentSlotKeyBackfill(AppointmentRepository appointmentRepository,
+                                      @Value("${appointment.slot-key-backfill.enabled:true}") boolean enabled,
+                                      @Value("${appointment.slot-key-backfill.batch-size:500}") int batchSize) {
+        this.appointmentRepository = appointmentRepository;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (enabled) {
+            backfill();
+        }
+    }
+
+    /**
+     * Keys every unkeyed appointment that has a time; returns the ids of those left
+     * unkeyed because their slot is already taken by another booking of the same doctor.
+     */
+    public List<Long> backfill() {
+        List<Long> conflicts = new ArrayList<>();
+        int keyed = 0;
+        long afterId = 0;
+        List<SlotView> batch;
+        do {
+            batch = appointmentRepository.findUnkeyedSlotsAfter(afterId, PageRequest.of(0, batchSize));
+            for (SlotView slot : batch) {
+                long slotKey = Math.floorDiv(slot.getAppointmentTime().getTime(), Appointment.SLOT_MILLIS);
+                try {
+                    keyed += appointmentRepository.setSlotKey(slot.getId(), slotKey);
+                } catch (DataIntegrityViolationException e) {
+                    conflicts.add(slot.getId());
+                    log.warn("Appointment {} at {} shares its 15-minute slot with another booking of the same doctor;"
+                            + " left without a slot key", slot.getId(), slot.getAppointmentTime());
+                }
+                afterId = slot.getId();
+            }
+        } while (batch.size() == batchSize);
+
+        if (keyed > 0 || !conflicts.isEmpty()) {
+            log.info("Slot key backfill: {} appointments keyed, {} conflicting left unkeyed {}",
+                    keyed, conflicts.size(), conflicts);
+        }
+        return conflicts;
+    }
+}
@@ -1,57 +1,102 @@
 package com.edutech.healthcare_appointment_management_system.service;
- 
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import java.util.*;
- 
+import java.util.stream.Collectors;
+
+/**
+ * Chat assistant backed by Groq's streaming chat completions.
+ *
+ * Nothing here blocks: the reply is consumed as server-sent events while the model
+ * generates it, and each token is handed on as soon as it arrives. Requests go through
+ * GroqGateway in the CHAT lane; identical messages in flight share one upstream stream.
+ */
 @Service
 public class ChatbotService {
- 
+
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE =
+            new ParameterizedTypeReference<ServerSentEvent<String>>() {};
+
     private final WebClient webClient;
- 
+
+    // Shared Groq rate limit; chat has the lowest priority
+    private final GroqGateway groqGateway;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
     @Value("${groq.api.key}")
     private String apiKey;
- 
-    public ChatbotService(WebClient.Builder builder) {
+
+    @Value("${groq.chat.model:llama-3.1-8b-instant}")
+    private String model;
+
+    public ChatbotService(WebClient.Builder builder, GroqGateway groqGateway,
+                          @Value("${groq.chat.base-url:https://api.groq.com}") String baseUrl) {
         this.webClient = builder
-                .baseUrl("https://api.groq.com")
+                .baseUrl(baseUrl)
                 .build();
+        this.groqGateway = groqGateway;
     }
- 
-    public String chat(String userMessage) {
- 
-    if (userMessage == null || userMessage.trim().isEmpty()) {
-        throw new RuntimeException("Message cannot be empty");
+
+    /**
+     * Whole reply, assembled from the token stream.
+     */
+    public Mono<String> chat(String userMessage) {
+        return streamChat(userMessage).collect(Collectors.joining());
+    }
+
+    /**
+     * Reply tokens in the order the model generates them.
+     */
+    public Flux<String> streamChat(String userMessage) {
+        if (userMessage == null || userMessage.trim().isEmpty()) {
+            return Flux.error(new IllegalArgumentException("Message cannot be empty"));
+        }
+        return groqGateway.stream(GroqGateway.Lane.CHAT, model + "\n" + userMessage, () -> requestStream(userMessage));
+    }
+
+    private Flux<String> requestStream(String userMessage) {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", model);
+        requestBody.put("stream", true);
+        requestBody.put("messages", List.of(
+            Map.of("role", "user", "content", userMessage)
+        ));
+
+        return webClient.post()
+                .uri("/openai/v1/chat/completions")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .bodyValue(requestBody)
+                .retrieve()
+                .bodyToFlux(SSE)
+                .map(event -> event.data() != null ? event.data().trim() : "")
+                .takeWhile(data -> !"[DONE]".equals(data))
+                .filter(data -> !data.isEmpty())
+                .map(this::deltaContent)
+                .filter(token -> !token.isEmpty())
+                .doOnError(WebClientResponseException.TooManyRequests.class, e ->
+                        groqGateway.rateLimited(GroqGateway.retryAfter(e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER))));
+    }
+
+    // Each chunk: {"choices":[{"delta":{"content":"..."}}]}; role-only and final chunks carry no content
+    private String deltaContent(String chunk) {
+        try {
+            return objectMapper.readTree(chunk).path("choices").path(0).path("delta").path("content").asText("");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable chat stream chunk: " + e.getOriginalMessage(), e);
+        }
     }
- 
-    Map<String, Object> requestBody = new HashMap<>();
-    requestBody.put("model", "llama-3.1-8b-instant");
- 
-    requestBody.put("messages", List.of(
-        Map.of("role", "user", "content", userMessage)
-    ));
- 
-    Map response = webClient.post()
-            .uri("/openai/v1/chat/completions")
-            .header(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
-            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-            .bodyValue(requestBody)
-            .retrieve()
-            .bodyToMono(Map.class)
-            .block();
- 
-     
-    List<Map<String, Object>> choices =
-            (List<Map<String, Object>>) response.get("choices");
- 
-    Map<String, Object> message =
-            (Map<String, Object>) choices.get(0).get("message");
- 
-    return message.get("content").toString();
-}
- 
 }
- 
\ No newline at end of file
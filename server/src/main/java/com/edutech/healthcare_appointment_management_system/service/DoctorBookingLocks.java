@@ -0,0 +1,30 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped locks that serialize the check-then-save booking path per doctor.
+ * Bookings for different doctors only contend when they hash to the same stripe;
+ * there is no global lock. The unique (doctor_id, slot_key) constraint on
+ * Appointment remains the backstop across server instances.
+ */
+@Component
+public class DoctorBookingLocks {
+
+    private final ReentrantLock[] stripes;
+
+    public DoctorBookingLocks(@Value("${appointment.booking.lock-stripes:64}") int stripeCount) {
+        stripes = new ReentrantLock[Math.max(1, stripeCount)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public ReentrantLock lockFor(Long doctorId) {
+        int hash = (doctorId == null) ? 0 : Long.hashCode(doctorId);
+        return stripes[Math.floorMod(hash, stripes.length)];
+    }
+}
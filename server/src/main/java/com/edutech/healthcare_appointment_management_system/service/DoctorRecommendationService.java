@@ -52,9 +52,11 @@ public class DoctorRecommendationService {
  
         // ✅ STEP 1: AI → specialty
  
-        String specialty = groqAIService.getSpecialtyFromSymptoms(symptoms);
+        SpecialtyClassification classification = groqAIService.classify(symptoms);
  
-        System.out.println("Recommended Specialty: " + specialty);
+        String specialty = classification.getSpecialty();
+ 
+        System.out.println("Recommended Specialty: " + specialty + " (" + classification.getSource() + ")");
  
         // ✅ STEP 2: ONLY check specialty + availability present
  
@@ -94,6 +96,8 @@ public class DoctorRecommendationService {
  
                 new DoctorRecommendationDTO(specialty, summaries);
  
+        response.setSource(classification.getSource().name());
+ 
         if (summaries.isEmpty()) {
  
             response.setMessage("No doctors available for " + specialty);
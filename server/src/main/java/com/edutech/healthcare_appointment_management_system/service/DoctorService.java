@@ -2,8 +2,13 @@ package com.edutech.healthcare_appointment_management_system.service;
  
  
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 
+import com.edutech.healthcare_appointment_management_system.config.CacheConfig;
+import com.edutech.healthcare_appointment_management_system.dto.DoctorBrief;
 import com.edutech.healthcare_appointment_management_system.dto.DoctorProfileRequestDTO;
 import com.edutech.healthcare_appointment_management_system.dto.DoctorProfileResponseDTO;
 import com.edutech.healthcare_appointment_management_system.entity.Doctor;
@@ -12,6 +17,7 @@ import com.edutech.healthcare_appointment_management_system.repository.DoctorRep
 import com.edutech.healthcare_appointment_management_system.repository.UserRepository;
  
 import java.util.List;
+import java.util.stream.Collectors;
  
  
  
@@ -38,10 +44,24 @@ public class DoctorService {
         return doctorRepository.findById(Id).orElse(null);
     }
  
-    public List<Doctor> getDoctors(){
-        return doctorRepository.findAll();
+    // Cached as DTOs: the shared cache never holds entities (or their password hashes)
+    @Cacheable(cacheNames = CacheConfig.DOCTORS, key = "'all'", sync = true)
+    public List<DoctorProfileResponseDTO> getDoctors(){
+        return doctorRepository.findAll().stream()
+                .map(DoctorService::toProfileDto)
+                .collect(Collectors.toList());
+    }
+
+    @Cacheable(cacheNames = CacheConfig.DOCTOR_BRIEFS, key = "#doctorId", sync = true)
+    public DoctorBrief getDoctorBrief(Long doctorId) {
+        Doctor d = findDoctorByID(doctorId);
+        return (d == null) ? null : new DoctorBrief(d.getId(), d.getUsername());
     }
  
+    @Caching(evict = {
+        @CacheEvict(cacheNames = CacheConfig.DOCTORS, key = "'all'"),
+        @CacheEvict(cacheNames = CacheConfig.DOCTOR_PROFILES, key = "#doctorId")
+    })
     public Doctor updateAvailability(Long doctorId, String availability) throws Exception {
         Doctor doctorToUpdate = doctorRepository.findById(doctorId).orElse(null);
         if (doctorToUpdate == null) {
@@ -75,13 +95,20 @@ public class DoctorService {
  
      */
  
+    @Cacheable(cacheNames = CacheConfig.DOCTOR_PROFILES, key = "#doctorId", sync = true)
     public DoctorProfileResponseDTO getDoctorProfile(Long doctorId) throws Exception {
  
         Doctor doctor = doctorRepository.findById(doctorId)
  
                 .orElseThrow(() -> new Exception("Doctor not found with ID: " + doctorId));
  
-        // Map Entity to Response DTO
+        return toProfileDto(doctor);
+ 
+    }
+ 
+    // Map Entity to Response DTO
+ 
+    private static DoctorProfileResponseDTO toProfileDto(Doctor doctor) {
  
         DoctorProfileResponseDTO dto = new DoctorProfileResponseDTO();
  
@@ -143,6 +170,11 @@ public class DoctorService {
  
      */
  
+    @Caching(evict = {
+        @CacheEvict(cacheNames = CacheConfig.DOCTORS, key = "'all'"),
+        @CacheEvict(cacheNames = CacheConfig.DOCTOR_PROFILES, key = "#doctorId"),
+        @CacheEvict(cacheNames = CacheConfig.DOCTOR_BRIEFS, key = "#doctorId")
+    })
     public void updateDoctorProfile(Long doctorId, DoctorProfileRequestDTO requestDTO) throws Exception {
 
         System.out.println("Entered the update profile page!");
@@ -28,6 +28,15 @@ public class EmailService {
         String patientName,
         String doctorName,
         Date appointmentTime
+) {
+    mailSender.send(buildAppointmentReminder(toEmail, patientName, doctorName, appointmentTime));
+}
+
+    public SimpleMailMessage buildAppointmentReminder(
+        String toEmail,
+        String patientName,
+        String doctorName,
+        Date appointmentTime
 ) {
     SimpleMailMessage message = new SimpleMailMessage();
     message.setTo(toEmail);
@@ -41,10 +50,12 @@ public class EmailService {
         "Please be available 10 minutes early.\n\n" +
         "Thank you."
     );
-
-    mailSender.send(message);
+    return message;
 }
 
-
+    // Sends all messages over a single SMTP connection; failures are reported per message in MailSendException
+    public void sendBatch(SimpleMailMessage... messages) {
+        mailSender.send(messages);
+    }
 
 }
\ No newline at end of file
@@ -1,11 +1,23 @@
 package com.edutech.healthcare_appointment_management_system.service;
+import com.edutech.healthcare_appointment_management_system.common.SymptomNormalizer;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.http.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
  
 /**
 * AI Service for medical specialty classification using Groq API
@@ -23,6 +35,19 @@ import java.util.*;
 * - groq.api.key: Your Groq API key from console.groq.com
 * - groq.api.url: API endpoint
 * - groq.model: AI model name
+*
+* CACHING: successful classifications are cached by normalized symptom text
+* (see SymptomNormalizer), bounded by groq.classification-cache.max-size and
+* groq.classification-cache.ttl. Repeat symptoms never reach the API, and concurrent
+* requests for the same symptoms share one upstream call. The call runs on the first
+* caller's thread, outside the cache, and every lookup counts as exactly one hit or miss.
+*
+* LOCAL FAST PATH: LocalSpecialtyClassifier answers confident cases in-process before
+* the cache or the API is consulted; only ambiguous descriptions reach the LLM. When the
+* LLM fails, the local best guess is used instead of a blanket "General Physician".
+*
+* RATE LIMIT: API calls go through GroqGateway in the CLASSIFICATION lane, which is
+* served ahead of report narratives and chat when the shared quota runs short.
 */
  
 @Service
@@ -47,7 +72,7 @@ public class GroqAIService {
      * IMPORTANT: These MUST match the specialty values in your Doctor table
      * If AI returns a specialty not in this list, fallback is "General Physician"
      */
-    private static final List<String> VALID_SPECIALTIES = Arrays.asList(
+    static final List<String> VALID_SPECIALTIES = Arrays.asList(
         "Cardiologist",       // Heart and cardiovascular issues
         "Dermatologist",      // Skin conditions
         "Neurologist",        // Brain and nervous system
@@ -60,12 +85,45 @@ public class GroqAIService {
         "Psychiatrist"        // Mental health
     );
  
+    // normalized symptoms -> validated specialty; failed LLM calls drop out of the cache
+    private final AsyncCache<String, String> classificationCache;
+
+    // null when the local fast path is not wired in
+    private final LocalSpecialtyClassifier localClassifier;
+    private final GroqGateway gateway;
+    private final Map<SpecialtyClassification.Source, Counter> classifications =
+            new EnumMap<>(SpecialtyClassification.Source.class);
+
     /**
-     * Constructor: Initializes HTTP client and JSON parser
+     * Constructor: Takes the shared pooled HTTP client (see OutboundHttpConfig),
+     * initializes the JSON parser and the classification cache
      */
-    public GroqAIService() {
-        this.restTemplate = new RestTemplate();
+    @Autowired
+    public GroqAIService(@Qualifier("outboundRestTemplate") RestTemplate restTemplate,
+                         LocalSpecialtyClassifier localClassifier,
+                         GroqGateway gateway,
+                         MeterRegistry meterRegistry,
+                         @Value("${groq.classification-cache.max-size:5000}") long cacheMaxSize,
+                         @Value("${groq.classification-cache.ttl:12h}") Duration cacheTtl) {
+        this.restTemplate = restTemplate;
+        this.localClassifier = localClassifier;
+        this.gateway = gateway;
         this.objectMapper = new ObjectMapper();
+        this.classificationCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheTtl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, classificationCache, "symptomSpecialty");
+        for (SpecialtyClassification.Source source : SpecialtyClassification.Source.values()) {
+            classifications.put(source, Counter.builder("symptom.classifications")
+                    .tag("source", source.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+    }
+ 
+    GroqAIService(RestTemplate restTemplate, MeterRegistry meterRegistry, long cacheMaxSize, Duration cacheTtl) {
+        this(restTemplate, null, new GroqGateway(meterRegistry), meterRegistry, cacheMaxSize, cacheTtl);
     }
  
     /**
@@ -82,6 +140,52 @@ public class GroqAIService {
      * @return Medical specialty name (e.g., "Cardiologist")
      */
     public String getSpecialtyFromSymptoms(String symptoms) {
+        return classify(symptoms).getSpecialty();
+    }
+
+    /**
+     * Same as {@link #getSpecialtyFromSymptoms(String)}, also reporting which path answered:
+     * local classifier, classification cache, LLM, or fallback.
+     */
+    public SpecialtyClassification classify(String symptoms) {
+        LocalSpecialtyClassifier.Prediction local =
+                localClassifier != null ? localClassifier.predict(symptoms) : LocalSpecialtyClassifier.Prediction.NONE;
+        if (local.isConfident()) {
+            return count(local.getSpecialty(), SpecialtyClassification.Source.LOCAL);
+        }
+
+        String key = SymptomNormalizer.normalize(symptoms);
+        // A single lookup: the first caller installs an empty future (recorded as the miss) and
+        // fills it below; everyone else, including concurrent callers, gets the shared future
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> shared = classificationCache.get(key, (k, executor) -> pending);
+        if (shared == pending) {
+            try {
+                // Blocking Groq call outside the cache, so no map lock is held during the round trip
+                pending.complete(classifyWithLlm(symptoms));
+            } catch (RuntimeException e) {
+                // Failed futures are evicted, so the next request retries
+                pending.completeExceptionally(e);
+            }
+        }
+        try {
+            return count(shared.join(), shared == pending
+                    ? SpecialtyClassification.Source.LLM : SpecialtyClassification.Source.CACHE);
+        } catch (CompletionException e) {
+            // If AI fails, log error and return safe fallback
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            System.err.println("Groq AI Error: " + cause.getMessage());
+            String guess = local.getSpecialty() != null ? local.getSpecialty() : "General Physician";
+            return count(guess, SpecialtyClassification.Source.FALLBACK);
+        }
+    }
+
+    private SpecialtyClassification count(String specialty, SpecialtyClassification.Source source) {
+        classifications.get(source).increment();
+        return new SpecialtyClassification(specialty, source);
+    }
+
+    private String classifyWithLlm(String symptoms) {
         try {
  
             // STEP 1: Create AI prompt with instructions
@@ -95,11 +199,10 @@ public class GroqAIService {
  
             // STEP 4: Validate against allowed specialties
             return validateSpecialty(specialty);
+        } catch (RuntimeException e) {
+            throw e;
         } catch (Exception e) {
-            // If AI fails, log error and return safe fallback
-            System.err.println("Groq AI Error: " + e.getMessage());
-            e.printStackTrace();
-            return "General Physician";  // Fallback specialty
+            throw new IllegalStateException(e.getMessage(), e);
         }
     }
  
@@ -159,13 +262,16 @@ public class GroqAIService {
         headers.setBearerAuth(apiKey);  // API key for authentication
         HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
         System.out.println("🚀 Calling Groq API...");
-        // Make POST request to Groq
-        ResponseEntity<String> response = restTemplate.exchange(
-            apiUrl,
-            HttpMethod.POST,
-            entity,
-            String.class
-        );
+        // Make POST request to Groq, within the shared rate limit
+        ResponseEntity<String> response = gateway.execute(GroqGateway.Lane.CLASSIFICATION, model + "\n" + prompt, () -> {
+            try {
+                return restTemplate.exchange(apiUrl, HttpMethod.POST, entity, String.class);
+            } catch (HttpClientErrorException.TooManyRequests e) {
+                gateway.rateLimited(GroqGateway.retryAfter(e.getResponseHeaders() != null
+                        ? e.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER) : null));
+                throw e;
+            }
+        });
         // Check if successful
         if (response.getStatusCode() == HttpStatus.OK) {
             System.out.println("✅ Groq API Success!");
@@ -0,0 +1,274 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.exception.GroqRateLimitedException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Single entry point for every call to the Groq API, whatever HTTP client the caller uses.
+ *
+ * Calls draw from one token bucket (groq.rate-limit.requests-per-minute, refilled
+ * continuously, at most groq.rate-limit.burst stored) so that together they stay inside
+ * the account quota. When tokens run out, waiting calls are served by lane priority -
+ * booking-path classification first, then report narratives, then chat - and FIFO within
+ * a lane. A call that cannot get a token within its lane's max wait fails with
+ * {@link GroqRateLimitedException}. Identical calls already in flight (same lane and key)
+ * are not sent again; the later callers wait for and share the first call's result.
+ * {@link #stream} does the same for streaming responses without holding a thread per call.
+ *
+ * With the defaults (50 per minute, burst 10) no 60 second window exceeds 60 requests.
+ */
+@Component
+public class GroqGateway {
+
+    /** Priority lanes, highest first. */
+    public enum Lane {
+        CLASSIFICATION,
+        REPORT,
+        CHAT
+    }
+
+    private final double tokensPerNano;
+    private final double burst;
+    private final Map<Lane, Long> maxWaitNanos = new EnumMap<>(Lane.class);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(
+            Comparator.comparingInt((Waiter w) -> w.lane.ordinal()).thenComparingLong(w -> w.seq));
+    private double tokens;
+    private long refilledAt;
+    private long blockedUntil;
+    private long seq;
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Flux<Object>> inFlightStreams = new ConcurrentHashMap<>();
+
+    private final Map<Lane, AtomicInteger> queued = new EnumMap<>(Lane.class);
+    private final Map<Lane, Timer> waitTimers = new EnumMap<>(Lane.class);
+    private final Map<Lane, Counter> executed = new EnumMap<>(Lane.class);
+    private final Map<Lane, Counter> coalesced = new EnumMap<>(Lane.class);
+    private final Map<Lane, Counter> rejected = new EnumMap<>(Lane.class);
+
+    @Autowired
+    public GroqGateway(MeterRegistry meterRegistry,
+                       @Value("${groq.rate-limit.requests-per-minute:50}") int requestsPerMinute,
+                       @Value("${groq.rate-limit.burst:10}") int burst,
+                       @Value("${groq.rate-limit.max-wait.classification:5s}") Duration classificationWait,
+                       @Value("${groq.rate-limit.max-wait.report:60s}") Duration reportWait,
+                       @Value("${groq.rate-limit.max-wait.chat:20s}") Duration chatWait) {
+        this.tokensPerNano = requestsPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.burst = burst;
+        this.tokens = burst;
+        this.refilledAt = System.nanoTime();
+        this.blockedUntil = refilledAt;
+        maxWaitNanos.put(Lane.CLASSIFICATION, classificationWait.toNanos());
+        maxWaitNanos.put(Lane.REPORT, reportWait.toNanos());
+        maxWaitNanos.put(Lane.CHAT, chatWait.toNanos());
+
+        for (Lane lane : Lane.values()) {
+            String tag = lane.name().toLowerCase(Locale.ROOT);
+            AtomicInteger depth = new AtomicInteger();
+            queued.put(lane, depth);
+            Gauge.builder("groq.gateway.queue.depth", depth, AtomicInteger::get)
+                 .tag("lane", tag).register(meterRegistry);
+            waitTimers.put(lane, Timer.builder("groq.gateway.wait").tag("lane", tag).register(meterRegistry));
+            executed.put(lane, requests(meterRegistry, tag, "executed"));
+            coalesced.put(lane, requests(meterRegistry, tag, "coalesced"));
+            rejected.put(lane, requests(meterRegistry, tag, "rejected"));
+        }
+    }
+
+    /** Defaults only; for callers constructed outside the Spring context (tests). */
+    GroqGateway(MeterRegistry meterRegistry) {
+        this(meterRegistry, 50, 10, Duration.ofSeconds(5), Duration.ofSeconds(60), Duration.ofSeconds(20));
+    }
+
+    /**
+     * Runs the call once a rate-limit token is available, or joins an identical call
+     * already in flight. Checked exceptions from the call are rethrown wrapped in an
+     * IllegalStateException.
+     *
+     * @param key identifies identical requests, typically model plus prompt
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(Lane lane, String key, Callable<T> call) {
+        String flightKey = lane + "\n" + key;
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(flightKey, mine);
+        if (leader != null) {
+            coalesced.get(lane).increment();
+            try {
+                return (T) leader.join();
+            } catch (CompletionException e) {
+                throw rethrow(e.getCause());
+            }
+        }
+
+        try {
+            acquire(lane);
+            executed.get(lane).increment();
+            T result = call.call();
+            mine.complete(result);
+            return result;
+        } catch (Exception e) {
+            mine.completeExceptionally(e);
+            throw rethrow(e);
+        } finally {
+            inFlight.remove(flightKey, mine);
+        }
+    }
+
+    /**
+     * Reactive counterpart of {@link #execute} for streaming calls. The upstream stream is
+     * subscribed once a token is granted; a subscriber arriving while an identical stream
+     * is still running gets the elements emitted so far replayed, then the live ones.
+     * Only the wait for a token (normally none) occupies a bounded-elastic thread.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Flux<T> stream(Lane lane, String key, Supplier<Flux<T>> call) {
+        String flightKey = lane + "\n" + key;
+        boolean[] leader = new boolean[1];
+        Flux<Object> shared = inFlightStreams.computeIfAbsent(flightKey, k -> {
+            leader[0] = true;
+            Flux<Object>[] self = new Flux[1];
+            self[0] = Flux.defer(() -> {
+                        acquire(lane);
+                        executed.get(lane).increment();
+                        return call.get();
+                    })
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .doFinally(signal -> inFlightStreams.remove(k, self[0]))
+                    .map(Object.class::cast)
+                    .replay()
+                    .refCount();
+            return self[0];
+        });
+        if (!leader[0]) {
+            coalesced.get(lane).increment();
+        }
+        return (Flux<T>) shared;
+    }
+
+    /**
+     * Called when Groq answered 429 anyway (quota shared with other clients, or a lower
+     * server-side limit): no call is let through until retryAfter has passed.
+     */
+    public void rateLimited(Duration retryAfter) {
+        lock.lock();
+        try {
+            blockedUntil = Math.max(blockedUntil, System.nanoTime() + retryAfter.toNanos());
+            tokens = 0;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Parses a Retry-After header in seconds, defaulting to five seconds. */
+    public static Duration retryAfter(String header) {
+        try {
+            return Duration.ofSeconds(Math.max(1, Long.parseLong(header.trim())));
+        } catch (RuntimeException e) {
+            return Duration.ofSeconds(5);
+        }
+    }
+
+    private void acquire(Lane lane) {
+        long start = System.nanoTime();
+        long deadline = start + maxWaitNanos.get(lane);
+        queued.get(lane).incrementAndGet();
+        lock.lock();
+        try {
+            Waiter me = new Waiter(lane, seq++);
+            waiters.add(me);
+            try {
+                while (true) {
+                    long now = System.nanoTime();
+                    refill(now);
+                    boolean first = waiters.peek() == me;
+                    if (first && tokens >= 1 && now >= blockedUntil) {
+                        tokens -= 1;
+                        return;
+                    }
+                    long remaining = deadline - now;
+                    if (remaining <= 0) {
+                        rejected.get(lane).increment();
+                        throw new GroqRateLimitedException("AI service is busy, please try again shortly");
+                    }
+                    long wait = remaining;
+                    if (first) {
+                        long untilToken = (long) Math.ceil((1 - tokens) / tokensPerNano);
+                        wait = Math.min(wait, Math.max(untilToken, blockedUntil - now));
+                    }
+                    changed.awaitNanos(Math.max(wait, 1));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new GroqRateLimitedException("Interrupted while waiting for the AI service");
+            } finally {
+                waiters.remove(me);
+                // The next in line may be able to go now
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+            queued.get(lane).decrementAndGet();
+            waitTimers.get(lane).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void refill(long now) {
+        // Nothing accrues while blocked after a 429
+        long from = Math.max(refilledAt, blockedUntil);
+        if (now > from) {
+            tokens = Math.min(burst, tokens + (now - from) * tokensPerNano);
+        }
+        refilledAt = now;
+    }
+
+    private static Counter requests(MeterRegistry registry, String lane, String outcome) {
+        return Counter.builder("groq.gateway.requests").tag("lane", lane).tag("outcome", outcome).register(registry);
+    }
+
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException) return (RuntimeException) t;
+        if (t instanceof Error) throw (Error) t;
+        return new IllegalStateException(t.getMessage(), t);
+    }
+
+    private static final class Waiter {
+        final Lane lane;
+        final long seq;
+
+        Waiter(Lane lane, long seq) {
+            this.lane = lane;
+            this.seq = seq;
+        }
+    }
+}
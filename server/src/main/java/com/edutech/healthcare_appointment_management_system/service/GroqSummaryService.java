@@ -3,11 +3,10 @@ package com.edutech.healthcare_appointment_management_system.service;
 import okhttp3.*;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
-import java.util.concurrent.TimeUnit;
 
 @Service
 public class GroqSummaryService {
@@ -22,15 +21,19 @@ public class GroqSummaryService {
     @Value("${groq.model}")
     private String model;
 
-    // Reusable OkHttpClient instance with timeouts configured
+    // Bump when the report prompt or generation settings change; persisted narratives
+    // (ReportNarrativeStore) are keyed by it and regenerate on the next render
+    public static final String PROMPT_VERSION = "1";
+
+    // Shared Groq rate limit; report narratives run in the REPORT lane
+    @Autowired
+    private GroqGateway groqGateway;
+
+    // Shared pooled client (keep-alive, timeouts, per-host limits; see OutboundHttpConfig)
     private final OkHttpClient client;
 
-    public GroqSummaryService() {
-        this.client = new OkHttpClient.Builder()
-                .connectTimeout(30, TimeUnit.SECONDS) // Max time to establish TCP connection
-                .writeTimeout(30, TimeUnit.SECONDS)   // Max time for sending request body
-                .readTimeout(30, TimeUnit.SECONDS)    // Max time to wait for server response
-                .build();
+    public GroqSummaryService(OkHttpClient outboundHttpClient) {
+        this.client = outboundHttpClient;
     }
 
     /**
@@ -77,29 +80,37 @@ public class GroqSummaryService {
                     .addHeader("Content-Type", "application/json")
                     .build();
 
-            // Execute request synchronously and handle response
-            try (Response response = client.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    // On non-2xx, log and return fallback content
-                    System.err.println("Groq API call failed: " + response);
-                    return generateFallbackReport(patientName, diagnosis, treatment);
+            // Execute request synchronously (within the shared rate limit) and handle response
+            String responseBody = groqGateway.execute(GroqGateway.Lane.REPORT, model + "\n" + prompt, () -> {
+                try (Response response = client.newCall(request).execute()) {
+                    if (response.code() == 429) {
+                        groqGateway.rateLimited(GroqGateway.retryAfter(response.header("Retry-After")));
+                    }
+                    if (!response.isSuccessful()) {
+                        // On non-2xx, log and return fallback content
+                        System.err.println("Groq API call failed: " + response);
+                        return null;
+                    }
+                    // Read body as string
+                    return response.body().string();
                 }
+            });
+            if (responseBody == null) {
+                return generateFallbackReport(patientName, diagnosis, treatment);
+            }
+            // Parse JSON
+            JSONObject jsonResponse = new JSONObject(responseBody);
 
-                // Read body as string and parse JSON
-                String responseBody = response.body().string();
-                JSONObject jsonResponse = new JSONObject(responseBody);
-
-                // Navigate to the assistant message content
-                String content = jsonResponse
-                        .getJSONArray("choices")
-                        .getJSONObject(0)
-                        .getJSONObject("message")
-                        .getString("content")
-                        .trim();
+            // Navigate to the assistant message content
+            String content = jsonResponse
+                    .getJSONArray("choices")
+                    .getJSONObject(0)
+                    .getJSONObject("message")
+                    .getString("content")
+                    .trim();
 
-                // Parse the structured text into the internal DTO
-                return parseAIResponse(content, patientName, diagnosis, treatment);
-            }
+            // Parse the structured text into the internal DTO
+            return parseAIResponse(content, patientName, diagnosis, treatment);
 
         } catch (Exception e) {
             // Any exception along the way triggers a safe fallback
@@ -279,6 +290,7 @@ public class GroqSummaryService {
      */
     private MedicalReportContent generateFallbackReport(String patientName, String diagnosis, String treatment) {
         MedicalReportContent report = new MedicalReportContent();
+        report.fallback = true;
 
         report.chiefComplaint = String.format(
                 "%s presents to the clinic with primary complaints consistent with %s. The patient reports experiencing significant discomfort " +
@@ -348,6 +360,8 @@ public class GroqSummaryService {
         public String clinicalAssessment = "";
         public String treatmentPlan = "";
         public String followUpRecommendations = "";
+        // True when the generic fallback text was used instead of a model answer
+        public boolean fallback;
     }
 }
 
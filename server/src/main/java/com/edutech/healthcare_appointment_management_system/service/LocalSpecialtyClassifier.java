@@ -0,0 +1,204 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.common.SymptomNormalizer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-process multinomial naive-Bayes classifier mapping symptom text to one of the
+ * specialties in {@link GroqAIService#VALID_SPECIALTIES}.
+ *
+ * The model is trained at startup from a small labeled corpus (classifier.local.corpus,
+ * one "specialty TAB symptoms" line per example) and answers in microseconds. A prediction
+ * is only trusted when its posterior probability reaches classifier.local.min-confidence;
+ * anything less confident is left to the LLM.
+ */
+@Component
+public class LocalSpecialtyClassifier {
+
+    // Additive smoothing for unseen (token, specialty) pairs; kept well below 1 so that a
+    // handful of telling words can outweigh a vocabulary that is large for the corpus size
+    private static final double ALPHA = 0.1;
+
+    private final boolean enabled;
+    private final double minConfidence;
+    private final String[] specialties;
+    private final double[] logPriors;
+    private final double[] logUnseen;
+    // token -> log P(token | specialty), indexed like specialties
+    private final Map<String, double[]> logLikelihoods;
+
+    @Autowired
+    public LocalSpecialtyClassifier(@Value("${classifier.local.enabled:true}") boolean enabled,
+                                    @Value("${classifier.local.min-confidence:0.85}") double minConfidence,
+                                    @Value("${classifier.local.corpus:classpath:classifier/specialty-seed.tsv}") Resource corpus) {
+        this(enabled, minConfidence, read(corpus));
+    }
+
+    LocalSpecialtyClassifier(boolean enabled, double minConfidence, Reader corpus) {
+        this.enabled = enabled;
+        this.minConfidence = minConfidence;
+
+        Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+        Map<String, Integer> examples = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(corpus)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty() || line.startsWith("#")) continue;
+                int tab = line.indexOf('\t');
+                if (tab < 0) {
+                    throw new IllegalArgumentException("Malformed classifier corpus line: " + line);
+                }
+                String specialty = line.substring(0, tab).trim();
+                if (!GroqAIService.VALID_SPECIALTIES.contains(specialty)) {
+                    throw new IllegalArgumentException("Unknown specialty in classifier corpus: " + specialty);
+                }
+                Map<String, Integer> tokenCounts = counts.computeIfAbsent(specialty, s -> new HashMap<>());
+                for (String token : tokenize(line.substring(tab + 1))) {
+                    tokenCounts.merge(token, 1, Integer::sum);
+                }
+                examples.merge(specialty, 1, Integer::sum);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        int classes = counts.size();
+        specialties = counts.keySet().toArray(new String[0]);
+        logPriors = new double[classes];
+        logUnseen = new double[classes];
+        logLikelihoods = new HashMap<>();
+
+        int totalExamples = examples.values().stream().mapToInt(Integer::intValue).sum();
+        Map<String, Boolean> vocabulary = new HashMap<>();
+        counts.values().forEach(c -> c.keySet().forEach(t -> vocabulary.put(t, Boolean.TRUE)));
+
+        for (int i = 0; i < classes; i++) {
+            Map<String, Integer> tokenCounts = counts.get(specialties[i]);
+            int tokensInClass = tokenCounts.values().stream().mapToInt(Integer::intValue).sum();
+            double denominator = Math.log(tokensInClass + ALPHA * vocabulary.size());
+            logPriors[i] = Math.log((double) examples.get(specialties[i]) / totalExamples);
+            logUnseen[i] = Math.log(ALPHA) - denominator;
+            for (Map.Entry<String, Integer> e : tokenCounts.entrySet()) {
+                double[] row = logLikelihoods.computeIfAbsent(e.getKey(), t -> new double[classes]);
+                row[i] = Math.log(e.getValue() + ALPHA) - denominator;
+            }
+        }
+        // Tokens never seen with a specialty get the smoothed floor
+        for (double[] row : logLikelihoods.values()) {
+            for (int i = 0; i < classes; i++) {
+                if (row[i] == 0.0) row[i] = logUnseen[i];
+            }
+        }
+    }
+
+    /**
+     * Scores the symptoms against every specialty. Tokens the model has never seen are
+     * ignored; with no known token at all the prediction is empty and never confident.
+     */
+    public Prediction predict(String symptoms) {
+        if (!enabled) {
+            return Prediction.NONE;
+        }
+        double[] scores = logPriors.clone();
+        int known = 0;
+        for (String token : tokenize(symptoms)) {
+            double[] row = logLikelihoods.get(token);
+            if (row == null) continue;
+            known++;
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] += row[i];
+            }
+        }
+        if (known == 0) {
+            return Prediction.NONE;
+        }
+
+        int best = 0;
+        for (int i = 1; i < scores.length; i++) {
+            if (scores[i] > scores[best]) best = i;
+        }
+        // Softmax of the log scores gives the posterior of the winner
+        double sum = 0;
+        for (double score : scores) {
+            sum += Math.exp(score - scores[best]);
+        }
+        double confidence = 1.0 / sum;
+        return new Prediction(specialties[best], confidence, confidence >= minConfidence);
+    }
+
+    static List<String> tokenize(String symptoms) {
+        String normalized = SymptomNormalizer.normalize(symptoms);
+        List<String> tokens = new ArrayList<>();
+        if (normalized.isEmpty()) {
+            return tokens;
+        }
+        for (String token : normalized.split(" ")) {
+            tokens.add(stem(token));
+        }
+        return tokens;
+    }
+
+    // Folds the common English inflections so "headaches"/"headache", "itching"/"itchy" meet
+    private static String stem(String token) {
+        if (token.length() > 5 && token.endsWith("ing")) return token.substring(0, token.length() - 3);
+        if (token.length() > 4 && token.endsWith("ed")) return token.substring(0, token.length() - 2);
+        if (token.length() > 4 && token.endsWith("y")) return token.substring(0, token.length() - 1);
+        if (token.length() > 3 && token.endsWith("s") && !token.endsWith("ss")) return token.substring(0, token.length() - 1);
+        return token;
+    }
+
+    private static Reader read(Resource corpus) {
+        try {
+            return new InputStreamReader(corpus.getInputStream(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read classifier corpus " + corpus, e);
+        }
+    }
+
+    /**
+     * Best specialty with its posterior probability; confident when the probability
+     * reached the configured threshold.
+     */
+    public static final class Prediction {
+
+        static final Prediction NONE = new Prediction(null, 0.0, false);
+
+        private final String specialty;
+        private final double confidence;
+        private final boolean confident;
+
+        Prediction(String specialty, double confidence, boolean confident) {
+            this.specialty = specialty;
+            this.confidence = confidence;
+            this.confident = confident;
+        }
+
+        public String getSpecialty() {
+            return specialty;
+        }
+
+        public double getConfidence() {
+            return confidence;
+        }
+
+        public boolean isConfident() {
+            return confident;
+        }
+    }
+}
@@ -2,10 +2,20 @@ package com.edutech.healthcare_appointment_management_system.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
 
+import org.springframework.beans.factory.annotation.Value;
+
+import org.springframework.data.domain.PageRequest;
+
+import org.springframework.data.domain.Pageable;
+
 import org.springframework.stereotype.Service;
 
 import org.springframework.transaction.annotation.Transactional;
 
+import com.edutech.healthcare_appointment_management_system.dto.CursorPage;
+
+import com.edutech.healthcare_appointment_management_system.dto.MedicalRecordView;
+
 import com.edutech.healthcare_appointment_management_system.entity.MedicalRecord;
 
 import com.edutech.healthcare_appointment_management_system.entity.Patient;
@@ -20,7 +30,13 @@ import com.edutech.healthcare_appointment_management_system.repository.DoctorRep
 
 import java.time.LocalDateTime;
 
+import java.util.Collection;
+
 import java.util.List;
+
+import java.util.function.Consumer;
+
+import java.util.stream.Stream;
  
 @Service
 
@@ -38,15 +54,80 @@ public class MedicalRecordService {
 
     private DoctorRepository doctorRepository;
  
-    public List<MedicalRecord> getMedicalRecordsByPatientId(Long patientId) {
+    // Default and largest medical history page
+    @Value("${records.history.page-size:50}")
+
+    private int maxPageSize;
+ 
+    /**
+     * One page of a patient's medical history, newest record first. The cursor is the
+     * recordDate and id of the last row of the previous page; the page size defaults to,
+     * and is capped at, records.history.page-size.
+     */
+    public CursorPage<MedicalRecordView> getPatientMedicalHistory(Long patientId, String after, Integer limit) {
+
+        int size = limit == null ? maxPageSize : Math.max(1, Math.min(limit, maxPageSize));
+
+        Pageable fetch = PageRequest.of(0, size + 1);
+
+        List<MedicalRecordView> rows;
+
+        if (after == null || after.isBlank()) {
+
+            rows = medicalRecordRepository.findHistory(patientId, fetch);
+
+        } else {
+
+            int comma = after.lastIndexOf(',');
+
+            Long id;
+
+            LocalDateTime date;
+
+            try {
+
+                id = Long.valueOf(after.substring(comma + 1));
+
+                date = comma <= 0 ? null : LocalDateTime.parse(after.substring(0, comma));
+
+            } catch (RuntimeException e) {
+
+                throw new IllegalArgumentException("Invalid history cursor: " + after);
+
+            }
+
+            rows = date == null
+
+                    ? medicalRecordRepository.findUndatedHistoryBefore(patientId, id, fetch)
+
+                    : medicalRecordRepository.findHistoryBefore(patientId, date, id, fetch);
+
+        }
+
+        return CursorPage.of(rows, size, MedicalRecordService::cursorOf);
+
+    }
+ 
+    /**
+     * Hands every record of a patient's history to the sink, in the order of
+     * getPatientMedicalHistory, as the rows arrive from the database: the history is
+     * never held in memory as a whole.
+     */
+    @Transactional(readOnly = true)
+
+    public void streamPatientMedicalHistory(Long patientId, Consumer<MedicalRecordView> sink) {
+
+        try (Stream<MedicalRecordView> rows = medicalRecordRepository.streamHistory(patientId)) {
 
-        return medicalRecordRepository.getMedicalRecordsByPatientId(patientId);
+            rows.forEach(sink);
+
+        }
 
     }
  
-    public List<MedicalRecord> getPatientMedicalHistory(Long patientId) {
+    private static String cursorOf(MedicalRecordView view) {
 
-        return medicalRecordRepository.findByPatientIdOrderByRecordDateDesc(patientId);
+        return (view.getRecordDate() == null ? "" : view.getRecordDate().toString()) + "," + view.getId();
 
     }
  
@@ -78,7 +159,7 @@ public class MedicalRecordService {
 
     }
  
-    // ✅ NEW: used by ReportService to fetch a record by ID
+    // ✅ NEW: used by ReportJobService to fetch a record by ID
 
     public MedicalRecord getMedicalRecordById(Long recordId) {
 
@@ -86,6 +167,18 @@ public class MedicalRecordService {
 
     }
 
+    // Records with patient and doctor loaded, for rendering reports outside the session
+
+    public List<MedicalRecord> getRecordsForReportByPatientId(Long patientId) {
+
+        return medicalRecordRepository.findForReportByPatientId(patientId);
+
+    }
+
+    public List<MedicalRecord> getRecordsForReportByIds(Collection<Long> recordIds) {
+
+        return medicalRecordRepository.findForReportByIds(recordIds);
+
+    }
+
 }
- 
- 
\ No newline at end of file
@@ -0,0 +1,709 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.dto.PatientSummary;
+import com.edutech.healthcare_appointment_management_system.entity.User;
+import com.edutech.healthcare_appointment_management_system.repository.PatientRepository;
+import com.edutech.healthcare_appointment_management_system.repository.PatientRepository.SearchEntry;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * In-memory index over patients for the patient search box, in place of the
+ * LIKE '%term%' scan of the users table.
+ *
+ * A patient matches exactly when PatientRepository.searchPatients would match it: the term
+ * occurs, ignoring case, in the username, the email or the decimal id. Results are ranked:
+ * exact match, username prefix, email or id prefix, anywhere else; ties in the order
+ * patients were indexed (registration order). At most patients.search.max-results are
+ * returned per call. Unlike the SQL, '%' and '_' in the term match only themselves.
+ *
+ * Further pages continue after the last patient of the previous one (see search with
+ * after): the order is fixed by the term and the data, so it needs no state between calls.
+ *
+ * Exact and prefix matches come from each field's values kept in sorted order, where they
+ * form one range found by binary search. Other matches come from posting lists of every one,
+ * two and three character substring: a term of up to three characters reads its own list,
+ * a longer one the intersection of its two rarest trigrams, checked against the strings.
+ * Lists are in indexing order, so that walk stops as soon as there are enough results.
+ *
+ * The index is loaded from the database on first use and kept current through put(), which
+ * UserService calls on registration. put() only sees this instance's registrations, so with
+ * several instances refresh() also reads the patients with ids above the highest one indexed
+ * (every patients.search.index.refresh-ms), re-reading the last few ids in case a lower one
+ * committed late. Changed usernames or emails and deleted patients are only seen through
+ * another instance after the full reload (every patients.search.index.reload-ms); where that
+ * delay is not acceptable, set patients.search.index.enabled=false to search with SQL.
+ * Posting lists are delta-encoded varints.
+ */
+@Component
+public class PatientSearchIndex {
+
+    private static final int MAX_GRAM = 3;
+
+    // Patients read per query by refresh(), and how many ids below the highest indexed it re-reads
+    private static final int REFRESH_BATCH = 500;
+    private static final int REFRESH_OVERLAP = 100;
+
+    // Ranks, best first
+    private static final int EXACT = 0;
+    private static final int USERNAME_PREFIX = 1;
+    private static final int OTHER_PREFIX = 2;
+    private static final int ANYWHERE = 3;
+
+    private final Supplier<List<SearchEntry>> loader;
+    // Up to REFRESH_BATCH patients with an id above the given one, in id order
+    private final LongFunction<List<SearchEntry>> loaderAfter;
+    private final boolean enabled;
+    private final int maxResults;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean loaded;
+
+    // Patients by ordinal, in the order they were indexed; *Lower are the matched forms
+    private long[] ids = new long[1024];
+    private String[] usernames = new String[1024];
+    private String[] emails = new String[1024];
+    private String[] usernamesLower = new String[1024];
+    private String[] emailsLower = new String[1024];
+    private int size;
+    private long maxIndexedId;
+    // Ordinals superseded by a later put() of the same patient
+    private BitSet replaced = new BitSet();
+    private LongIntMap ordinals = new LongIntMap();
+
+    // Substrings of one to three characters (see gram) to the patients containing them
+    private LongIntMap gramLists = new LongIntMap();
+    private List<Postings> postings = new ArrayList<>();
+
+    private final SortedField byUsername = new SortedField(ord -> usernamesLower[ord]);
+    private final SortedField byEmail = new SortedField(ord -> emailsLower[ord]);
+    private final SortedField byId = new SortedField(ord -> Long.toString(ids[ord]));
+
+    // Set while reload() builds the replacement index; put()s made meanwhile are replayed onto it
+    private List<PatientSummary> putsDuringReload;
+
+    @Autowired
+    public PatientSearchIndex(PatientRepository patientRepository,
+                              @Value("${patients.search.index.enabled:true}") boolean enabled,
+                              @Value("${patients.search.max-results:50}") int maxResults) {
+        this(patientRepository::findSearchEntries,
+                after -> patientRepository.findPatientsAfter(after, PageRequest.of(0, REFRESH_BATCH)),
+                enabled, maxResults);
+    }
+
+    PatientSearchIndex(Supplier<List<SearchEntry>> loader, boolean enabled, int maxResults) {
+        this(loader, after -> List.of(), enabled, maxResults);
+    }
+
+    PatientSearchIndex(Supplier<List<SearchEntry>> loader, LongFunction<List<SearchEntry>> loaderAfter,
+                       boolean enabled, int maxResults) {
+        this.loader = loader;
+        this.loaderAfter = loaderAfter;
+        this.enabled = enabled;
+        this.maxResults = maxResults;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Best matches for the term, at most patients.search.max-results; empty for a blank term.
+     */
+    public List<PatientSummary> search(String term) {
+        return search(term, maxResults);
+    }
+
+    List<PatientSummary> search(String term, int limit) {
+        return search(term, null, limit);
+    }
+
+    /**
+     * Up to limit matches for the term that come after the patient with id after in the
+     * ranked order, or the first ones when after is null. Empty when that patient no longer
+     * matches the term.
+     */
+    public List<PatientSummary> search(String term, Long after, int limit) {
+        String q = term == null ? "" : term.trim().toLowerCase(Locale.ROOT);
+        if (q.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            Query query = new Query(q, limit);
+            if (after != null && !query.resumeAfter(after)) {
+                return List.of();
+            }
+            return query.run();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Adds or updates a patient once the surrounding transaction (if any) commits. */
+    public void put(User patient) {
+        if (patient == null || patient.getId() == null) return;
+        long id = patient.getId();
+        String username = patient.getUsername();
+        String email = patient.getEmail();
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                // Before the first search the load reads it from the database anyway
+                if (loaded) {
+                    add(id, username, email);
+                }
+                if (putsDuringReload != null) {
+                    putsDuringReload.add(new PatientSummary(id, username, email));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /** Indexes patients registered through other instances since the load or the last refresh. */
+    @Scheduled(fixedDelayString = "${patients.search.index.refresh-ms:30000}")
+    public void refresh() {
+        if (!enabled || !loaded) return;
+        long after;
+        lock.readLock().lock();
+        try {
+            after = Math.max(0, maxIndexedId - REFRESH_OVERLAP);
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<SearchEntry> page;
+        do {
+            // Read outside the lock; searches only wait for the indexing
+            page = loaderAfter.apply(after);
+            if (page.isEmpty()) return;
+            lock.writeLock().lock();
+            try {
+                if (!loaded) return; // cleared meanwhile, the next load reads everything
+                for (SearchEntry entry : page) {
+                    add(entry.getId(), entry.getUsername(), entry.getEmail());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            after = page.get(page.size() - 1).getId();
+        } while (page.size() >= REFRESH_BATCH);
+    }
+
+    /**
+     * Rebuilds a loaded index from the database, picking up changed and deleted patients that
+     * refresh() does not see. The replacement is built outside the lock and swapped in at the
+     * end, so searches keep using the current index meanwhile.
+     */
+    @Scheduled(fixedDelayString = "${patients.search.index.reload-ms:3600000}",
+               initialDelayString = "${patients.search.index.reload-ms:3600000}")
+    public void reload() {
+        if (!enabled || !loaded) return;
+        lock.writeLock().lock();
+        try {
+            putsDuringReload = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        PatientSearchIndex fresh = new PatientSearchIndex(loader, loaderAfter, enabled, maxResults);
+        try {
+            fresh.ensureLoaded();
+        } finally {
+            lock.writeLock().lock();
+            try {
+                List<PatientSummary> puts = putsDuringReload;
+                putsDuringReload = null;
+                // Not swapped in when the load failed, or when cleared meanwhile
+                if (fresh.loaded && loaded) {
+                    for (PatientSummary patient : puts) {
+                        fresh.add(patient.getId(), patient.getUsername(), patient.getEmail());
+                    }
+                    takeOver(fresh);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /** Drops the index; the next search reloads it from the database. */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ids = new long[1024];
+            usernames = new String[1024];
+            emails = new String[1024];
+            usernamesLower = new String[1024];
+            emailsLower = new String[1024];
+            size = 0;
+            maxIndexedId = 0;
+            replaced.clear();
+            ordinals.clear();
+            gramLists.clear();
+            postings.clear();
+            byUsername.clear();
+            byEmail.clear();
+            byId.clear();
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                for (SearchEntry entry : loader.get()) {
+                    index(entry.getId(), entry.getUsername(), entry.getEmail());
+                }
+                postings.forEach(Postings::trim);
+                byUsername.sort(size);
+                byEmail.sort(size);
+                byId.sort(size);
+                loaded = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock; the other index is not used afterwards
+    private void takeOver(PatientSearchIndex other) {
+        ids = other.ids;
+        usernames = other.usernames;
+        emails = other.emails;
+        usernamesLower = other.usernamesLower;
+        emailsLower = other.emailsLower;
+        size = other.size;
+        maxIndexedId = other.maxIndexedId;
+        replaced = other.replaced;
+        ordinals = other.ordinals;
+        gramLists = other.gramLists;
+        postings = other.postings;
+        // Same order over the same ordinals; the values are read from this index's arrays
+        byUsername.takeOrder(other.byUsername);
+        byEmail.takeOrder(other.byEmail);
+        byId.takeOrder(other.byId);
+    }
+
+    // Caller holds the write lock; after the load, keeps the sorted fields current too
+    private void add(long id, String username, String email) {
+        int ord = index(id, username, email);
+        if (ord >= 0) {
+            byUsername.insert(ord);
+            byEmail.insert(ord);
+            byId.insert(ord);
+        }
+    }
+
+    // Caller holds the write lock. Returns the new ordinal, or -1 when nothing changed
+    private int index(long id, String username, String email) {
+        username = username == null ? "" : username;
+        email = email == null ? "" : email;
+        int previous = ordinals.get(id);
+        if (previous >= 0) {
+            if (username.equals(usernames[previous]) && email.equals(emails[previous])) {
+                return -1;
+            }
+            replaced.set(previous);
+        }
+
+        int ord = size++;
+        if (ord == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            usernames = Arrays.copyOf(usernames, capacity);
+            emails = Arrays.copyOf(emails, capacity);
+            usernamesLower = Arrays.copyOf(usernamesLower, capacity);
+            emailsLower = Arrays.copyOf(emailsLower, capacity);
+        }
+        ids[ord] = id;
+        usernames[ord] = username;
+        emails[ord] = email;
+        // toLowerCase returns the same instance when there is nothing to change
+        usernamesLower[ord] = username.toLowerCase(Locale.ROOT);
+        emailsLower[ord] = email.toLowerCase(Locale.ROOT);
+        ordinals.put(id, ord);
+        maxIndexedId = Math.max(maxIndexedId, id);
+
+        addGrams(ord, usernamesLower[ord]);
+        addGrams(ord, emailsLower[ord]);
+        addGrams(ord, Long.toString(id));
+        return ord;
+    }
+
+    private void addGrams(int ord, String value) {
+        for (int len = 1; len <= MAX_GRAM; len++) {
+            for (int i = 0; i + len <= value.length(); i++) {
+                long key = gram(value, i, len);
+                int list = gramLists.get(key);
+                if (list < 0) {
+                    list = postings.size();
+                    postings.add(new Postings());
+                    gramLists.put(key, list);
+                }
+                postings.get(list).add(ord);
+            }
+        }
+    }
+
+    private Postings postings(String s, int from, int len) {
+        int list = gramLists.get(gram(s, from, len));
+        return list < 0 ? null : postings.get(list);
+    }
+
+    // Length in bits 48-49, then one char per 16 bits
+    private static long gram(String s, int from, int len) {
+        long key = (long) len << 48;
+        for (int i = 0; i < len; i++) {
+            key |= (long) s.charAt(from + i) << (32 - 16 * i);
+        }
+        return key;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * One search. The exact and prefix ranks are marked in bit sets, read back in ordinal
+     * order; the last rank is walked from the posting lists until the result is full.
+     */
+    private final class Query {
+        private final String q;
+        private final int limit;
+        private final List<PatientSummary> result = new ArrayList<>();
+        private final BitSet exact = new BitSet();
+        private final BitSet usernamePrefix = new BitSet();
+        private final BitSet otherPrefix = new BitSet();
+        // Where an earlier page ended; nothing is skipped by default
+        private int afterRank = -1;
+        private int afterOrd = -1;
+
+        Query(String q, int limit) {
+            this.q = q;
+            this.limit = limit;
+        }
+
+        // Starts right after the given patient: later in its rank, then the worse ranks
+        boolean resumeAfter(long id) {
+            int ord = ordinals.get(id);
+            afterRank = ord < 0 ? -1 : rankOf(ord);
+            afterOrd = ord;
+            return afterRank >= 0;
+        }
+
+        List<PatientSummary> run() {
+            byUsername.mark(q, exact, usernamePrefix);
+            byEmail.mark(q, exact, otherPrefix);
+            // Only digits can occur in an id
+            if (q.chars().allMatch(Character::isDigit)) {
+                byId.mark(q, exact, otherPrefix);
+            }
+            // Each patient in its best rank only
+            usernamePrefix.andNot(exact);
+            otherPrefix.andNot(exact);
+            otherPrefix.andNot(usernamePrefix);
+
+            take(exact, EXACT);
+            take(usernamePrefix, USERNAME_PREFIX);
+            take(otherPrefix, OTHER_PREFIX);
+            if (result.size() < limit) {
+                anywhere();
+            }
+            return result;
+        }
+
+        private void take(BitSet bits, int rank) {
+            if (rank < afterRank) return;
+            int from = rank == afterRank ? afterOrd + 1 : 0;
+            for (int ord = bits.nextSetBit(from); ord >= 0 && result.size() < limit; ord = bits.nextSetBit(ord + 1)) {
+                if (!replaced.get(ord)) add(ord);
+            }
+        }
+
+        private void anywhere() {
+            // Up to three characters, the term's own list holds exactly the patients containing it
+            boolean verify = q.length() > MAX_GRAM;
+            int from = afterRank == ANYWHERE ? afterOrd + 1 : 0;
+            IntPredicate visitor = ord -> {
+                if (!replaced.get(ord) && !exact.get(ord) && !usernamePrefix.get(ord) && !otherPrefix.get(ord)
+                        && (!verify || contains(ord))) {
+                    add(ord);
+                }
+                return result.size() < limit;
+            };
+            if (!verify) {
+                Postings list = postings(q, 0, q.length());
+                if (list != null) list.forEach(from, visitor);
+                return;
+            }
+
+            Postings rarest = null;
+            Postings second = null;
+            for (int i = 0; i + MAX_GRAM <= q.length(); i++) {
+                Postings list = postings(q, i, MAX_GRAM);
+                if (list == null) return;
+                if (rarest == null || list.count < rarest.count) {
+                    second = rarest;
+                    rarest = list;
+                } else if (second == null || list.count < second.count) {
+                    second = list;
+                }
+            }
+            Postings.Cursor other = second.cursor();
+            rarest.forEach(from, ord -> other.skipTo(ord) != ord || visitor.test(ord));
+        }
+
+        private int rankOf(int ord) {
+            String id = Long.toString(ids[ord]);
+            if (usernamesLower[ord].equals(q) || emailsLower[ord].equals(q) || id.equals(q)) return EXACT;
+            if (usernamesLower[ord].startsWith(q)) return USERNAME_PREFIX;
+            if (emailsLower[ord].startsWith(q) || id.startsWith(q)) return OTHER_PREFIX;
+            return contains(ord) ? ANYWHERE : -1;
+        }
+
+        private boolean contains(int ord) {
+            return usernamesLower[ord].contains(q) || emailsLower[ord].contains(q)
+                    || Long.toString(ids[ord]).contains(q);
+        }
+
+        private void add(int ord) {
+            result.add(new PatientSummary(ids[ord], usernames[ord], emails[ord]));
+        }
+    }
+
+    /** One field's matched forms in sorted order, as ordinals; a prefix's matches are adjacent. */
+    private static final class SortedField {
+        private final IntFunction<String> value;
+        private int[] order = new int[0];
+        private int count;
+
+        SortedField(IntFunction<String> value) {
+            this.value = value;
+        }
+
+        // All ordinals below size, after a load
+        void sort(int size) {
+            String[] keys = new String[size];
+            Integer[] sorted = new Integer[size];
+            for (int ord = 0; ord < size; ord++) {
+                keys[ord] = value.apply(ord);
+                sorted[ord] = ord;
+            }
+            Arrays.sort(sorted, (a, b) -> keys[a].compareTo(keys[b]));
+            order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = sorted[i];
+            }
+            count = size;
+        }
+
+        void insert(int ord) {
+            int at = lowerBound(value.apply(ord));
+            if (count == order.length) {
+                order = Arrays.copyOf(order, Math.max(16, count + count / 2));
+            }
+            System.arraycopy(order, at, order, at + 1, count - at);
+            order[at] = ord;
+            count++;
+        }
+
+        // Sets the patients whose value is the term in exact, those starting with it in prefix
+        void mark(String q, BitSet exact, BitSet prefix) {
+            int from = lowerBound(q);
+            int exactEnd = end(from, v -> v.equals(q));
+            int prefixEnd = end(exactEnd, v -> v.startsWith(q));
+            for (int i = from; i < exactEnd; i++) {
+                exact.set(order[i]);
+            }
+            for (int i = from; i < prefixEnd; i++) {
+                prefix.set(order[i]);
+            }
+        }
+
+        void clear() {
+            order = new int[0];
+            count = 0;
+        }
+
+        void takeOrder(SortedField other) {
+            order = other.order;
+            count = other.count;
+        }
+
+        private int lowerBound(String q) {
+            int lo = 0;
+            int hi = count;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (value.apply(order[mid]).compareTo(q) < 0) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        // First position from 'from' on whose value fails the test; the ones passing come first
+        private int end(int from, Predicate<String> test) {
+            int lo = from;
+            int hi = count;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (test.test(value.apply(order[mid]))) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+    }
+
+    /** Increasing ordinals, stored as varint-encoded gaps. */
+    private static final class Postings {
+        private byte[] data = new byte[4];
+        private int length;
+        private int count;
+        private int last = -1;
+
+        void add(int ord) {
+            if (ord == last) return;
+            int gap = ord - last;
+            if (length + 5 > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 3 / 2, length + 5));
+            }
+            while ((gap & ~0x7F) != 0) {
+                data[length++] = (byte) (gap & 0x7F | 0x80);
+                gap >>>= 7;
+            }
+            data[length++] = (byte) gap;
+            last = ord;
+            count++;
+        }
+
+        // Visits ordinals from 'from' on in increasing order until the visitor returns false
+        void forEach(int from, IntPredicate visitor) {
+            Cursor cursor = cursor();
+            for (int ord = cursor.skipTo(from); ord != Integer.MAX_VALUE; ord = cursor.next()) {
+                if (!visitor.test(ord)) return;
+            }
+        }
+
+        Cursor cursor() {
+            return new Cursor();
+        }
+
+        void trim() {
+            data = Arrays.copyOf(data, length);
+        }
+
+        final class Cursor {
+            private int position;
+            private int ord = -1;
+
+            // Next ordinal, or Integer.MAX_VALUE past the end
+            int next() {
+                if (position >= length) return ord = Integer.MAX_VALUE;
+                int gap = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[position++];
+                    gap |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                return ord += gap;
+            }
+
+            // First ordinal at or after target, or Integer.MAX_VALUE
+            int skipTo(int target) {
+                while (ord < target) {
+                    next();
+                }
+                return ord;
+            }
+        }
+    }
+
+    /** long to int map, open addressing over primitive arrays; values are never negative. */
+    private static final class LongIntMap {
+        private long[] keys = new long[2048];
+        private int[] values = newValues(2048);
+        private int size;
+
+        // The value, or -1
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+                if (values[i] < 0) return -1;
+                if (keys[i] == key) return values[i];
+            }
+        }
+
+        void put(long key, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                long[] oldKeys = keys;
+                int[] oldValues = values;
+                keys = new long[oldKeys.length * 2];
+                values = newValues(oldKeys.length * 2);
+                size = 0;
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldValues[i] >= 0) put(oldKeys[i], oldValues[i]);
+                }
+            }
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (values[i] >= 0 && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (values[i] < 0) size++;
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        void clear() {
+            keys = new long[2048];
+            values = newValues(2048);
+            size = 0;
+        }
+
+        private static int[] newValues(int capacity) {
+            int[] values = new int[capacity];
+            Arrays.fill(values, -1);
+            return values;
+        }
+
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
@@ -2,84 +2,186 @@ package com.edutech.healthcare_appointment_management_system.service;
  
 import org.springframework.beans.factory.annotation.Autowired;
 
+import org.springframework.cache.annotation.Cacheable;
+
 import org.springframework.stereotype.Service;
 
+import com.edutech.healthcare_appointment_management_system.config.CacheConfig;
+
+import com.edutech.healthcare_appointment_management_system.dto.CursorPage;
+
+import com.edutech.healthcare_appointment_management_system.dto.PatientBrief;
+
+import com.edutech.healthcare_appointment_management_system.dto.PatientSummary;
+
 import com.edutech.healthcare_appointment_management_system.entity.Patient;
 
 import com.edutech.healthcare_appointment_management_system.repository.PatientRepository;
 
+import com.edutech.healthcare_appointment_management_system.repository.PatientRepository.SearchEntry;
+
+import org.springframework.beans.factory.annotation.Value;
+
+import org.springframework.data.domain.PageRequest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import io.micrometer.core.instrument.Timer;
+
+import org.slf4j.Logger;
+
+import org.slf4j.LoggerFactory;
+
 import java.util.List;
 
 import java.util.Optional;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import java.util.concurrent.TimeUnit;
+
+import java.util.stream.Collectors;
  
 @Service
 
 public class PatientService {
 
+    private static final Logger log = LoggerFactory.getLogger(PatientService.class);
+
     @Autowired
 
     private PatientRepository patientRepository;
 
-    public List<Patient> searchPatients(String searchTerm) {
+    @Autowired
 
-        System.out.println("==========================================");
+    private PatientSearchIndex patientSearchIndex;
 
-        System.out.println("PATIENT SERVICE - searchPatients()");
+    // Default and largest page size
+    @Value("${patients.search.max-results:50}")
 
-        System.out.println("Search term received: '" + searchTerm + "'");
+    private int maxPageSize;
 
-        try {
+    // Share of searches whose summary is logged at INFO (all of them at DEBUG)
+    @Value("${patients.search.log-sample-rate:0.01}")
 
-            List<Patient> results;
+    private double logSampleRate;
 
-            if (searchTerm == null || searchTerm.trim().isEmpty()) {
+    @Autowired
 
-                System.out.println("Empty search - fetching ALL patients");
+    private MeterRegistry meterRegistry;
 
-                results = patientRepository.findAllPatients();
+    // One page of patients after the cursor (a patient id). An empty term lists patients in
+    // id order; other terms go to the in-memory index (ranked), or to SQL in id order when
+    // the index is disabled. Each page costs the same however many patients there are.
+    public CursorPage<PatientSummary> searchPatients(String searchTerm, Long after, Integer limit) {
 
-            } else {
+        long start = System.nanoTime();
 
-                System.out.println("Searching for: '" + searchTerm.trim() + "'");
+        String term = searchTerm == null ? "" : searchTerm.trim();
 
-                results = patientRepository.searchPatients(searchTerm.trim());
+        String kind = term.isEmpty() ? "list" : patientSearchIndex.isEnabled() ? "index" : "sql";
 
-            }
+        int size = limit == null ? maxPageSize : Math.max(1, Math.min(limit, maxPageSize));
+
+        // One row more than the page tells whether another page follows
+        PageRequest pageAndOne = PageRequest.of(0, size + 1);
+
+        long afterId = after == null ? 0L : after;
+
+        try {
+
+            List<PatientSummary> results;
+
+            if (term.isEmpty()) {
 
-            System.out.println("Query returned " + results.size() + " patients:");
+                results = summaries(patientRepository.findPatientsAfter(afterId, pageAndOne));
 
-            for (Patient p : results) {
+            } else if (patientSearchIndex.isEnabled()) {
 
-                System.out.println("  ID: " + p.getId() + " | Username: " + p.getUsername() + " | Email: " + p.getEmail() + " | Role: " + p.getRole());
+                results = patientSearchIndex.search(term, after, size + 1);
+
+            } else {
+
+                results = summaries(patientRepository.searchPatientsAfter(term, afterId, pageAndOne));
 
             }
 
-            System.out.println("==========================================");
+            CursorPage<PatientSummary> page = CursorPage.of(results, size, p -> String.valueOf(p.getId()));
+
+            traceSearch(kind, term, page, System.nanoTime() - start);
 
-            return results;
+            return page;
 
         } catch (Exception e) {
 
-            System.out.println("!!! ERROR in searchPatients !!!");
+            searchTimer(kind, "error").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+            log.error("Patient search failed: kind={} termLength={} after={}", kind, term.length(), after, e);
+
+            return new CursorPage<>(List.of(), null);
+
+        }
+
+    }
+
+    // One summary per search and never the rows or the term itself: every search is timed,
+    // logged at DEBUG, or at INFO for a sample of patients.search.log-sample-rate
+    private void traceSearch(String kind, String term, CursorPage<PatientSummary> page, long nanos) {
 
-            System.out.println("Error message: " + e.getMessage());
+        searchTimer(kind, "ok").record(nanos, TimeUnit.NANOSECONDS);
 
-            e.printStackTrace();
+        boolean debug = log.isDebugEnabled();
 
-            System.out.println("==========================================");
+        if (debug || log.isInfoEnabled() && ThreadLocalRandom.current().nextDouble() < logSampleRate) {
 
-            return List.of();
+            String format = "Patient search: kind={} termLength={} results={} more={} tookMicros={}";
+
+            Object[] args = { kind, term.length(), page.getItems().size(), page.getNextCursor() != null, nanos / 1000 };
+
+            if (debug) {
+                log.debug(format, args);
+            } else {
+                log.info(format, args);
+            }
 
         }
 
     }
 
+    private Timer searchTimer(String kind, String outcome) {
+
+        return Timer.builder("patients.search")
+                .tag("kind", kind)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+    }
+
+    private static List<PatientSummary> summaries(List<SearchEntry> patients) {
+
+        return patients.stream()
+                .map(p -> new PatientSummary(p.getId(), p.getUsername(), p.getEmail()))
+                .collect(Collectors.toList());
+
+    }
+
     public Optional<Patient> getPatientById(Long patientId) {
 
         return patientRepository.findById(patientId);
 
     }
 
+    // { id, username } rarely changes and is fetched for every record row the UI renders
+    @Cacheable(cacheNames = CacheConfig.PATIENT_BRIEFS, key = "#patientId", sync = true)
+    public PatientBrief getPatientBrief(Long patientId) {
+
+        return patientRepository.findById(patientId)
+                .map(p -> new PatientBrief(p.getId(), p.getUsername()))
+                .orElse(null);
+
+    }
+
     public List<Patient> getAllPatients() {
 
         try {
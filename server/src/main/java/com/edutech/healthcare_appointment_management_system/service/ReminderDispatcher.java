@@ -0,0 +1,262 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.entity.Appointment;
+import com.edutech.healthcare_appointment_management_system.repository.AppointmentRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends appointment reminders in claimed batches.
+ *
+ * Each batch is claimed with a single bulk UPDATE (reminder_sent = true plus a claim token),
+ * so no transaction stays open while mail is being sent and two schedulers never remind the
+ * same appointment. The batch is split into chunks that are sent in parallel, each chunk over
+ * one SMTP connection. Failed messages are released again and picked up on the next run.
+ *
+ * Each run sends the reminders of appointments up to {@code reminder.lookahead-ms} ahead,
+ * starting where the partition's last completed window ended (kept on its lease row, so it
+ * survives restarts and failover). Appointments that fell between two windows, because a
+ * run took longer than the poll interval or no node was running, are therefore still sent,
+ * late, as long as they started less than {@code reminder.catch-up-ms} ago. A window only
+ * moves on once every reminder in it was sent, so failed sends are retried.
+ *
+ * Reminders that no window can send any more, because the appointment was booked or moved
+ * into an already dispatched window that has since started, are marked sent without an email:
+ * an "upcoming appointment" message would arrive after the fact. Appointments older than the
+ * catch-up horizon are left alone.
+ *
+ * With several server instances each node only looks at the doctor partitions it holds a
+ * lease on (see {@link ReminderPartitionLeases}), so the work is split instead of duplicated.
+ */
+@Component
+public class ReminderDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(ReminderDispatcher.class);
+
+    private final AppointmentRepository appointmentRepository;
+    private final EmailService emailService;
+    private final Executor reminderTaskExecutor;
+    private final ReminderPartitionLeases partitionLeases;
+    private final long lookaheadMs;
+    private final long catchUpMs;
+    private final int batchSize;
+    private final int chunkSize;
+
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Counter expiredCounter;
+    private final Timer batchTimer;
+    private final DistributionSummary batchThroughput;
+
+    @Autowired
+    public ReminderDispatcher(AppointmentRepository appointmentRepository,
+                              EmailService emailService,
+                              @Qualifier("reminderTaskExecutor") Executor reminderTaskExecutor,
+                              ReminderPartitionLeases partitionLeases,
+                              MeterRegistry meterRegistry,
+                              @Value("${reminder.lookahead-ms:60000}") long lookaheadMs,
+                              @Value("${reminder.catch-up-ms:3600000}") long catchUpMs,
+                              @Value("${reminder.batch-size:100}") int batchSize,
+                              @Value("${reminder.send-chunk-size:25}") int chunkSize) {
+        this.appointmentRepository = appointmentRepository;
+        this.emailService = emailService;
+        this.reminderTaskExecutor = reminderTaskExecutor;
+        this.partitionLeases = partitionLeases;
+        this.lookaheadMs = lookaheadMs;
+        this.catchUpMs = catchUpMs;
+        this.batchSize = batchSize;
+        this.chunkSize = chunkSize;
+
+        this.sentCounter = meterRegistry.counter("reminders.sent");
+        this.failedCounter = meterRegistry.counter("reminders.failed");
+        this.expiredCounter = meterRegistry.counter("reminders.expired");
+        this.batchTimer = meterRegistry.timer("reminders.batch.duration");
+        this.batchThroughput = DistributionSummary.builder("reminders.batch.throughput")
+                .baseUnit("messages/s")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sends every reminder that is due now. Returns the number of reminders sent.
+     */
+    public int dispatchDue() {
+        return dispatchDue(new Date());
+    }
+
+    /**
+     * Same as {@link #dispatchDue()} with an explicit clock, for driving several nodes in tests.
+     */
+    public int dispatchDue(Date now) {
+        List<Integer> owned = partitionLeases.acquire(now);
+        if (owned.isEmpty()) {
+            return 0;
+        }
+        long horizon = now.getTime() - catchUpMs;
+        Date to = new Date(now.getTime() + lookaheadMs);
+
+        // Partitions whose windows start at the same time are dispatched together (normally all)
+        Map<Long, List<Integer>> byStart = new TreeMap<>();
+        partitionLeases.remindedUntil(owned).forEach((partitionNo, until) -> {
+            // Not after now: unsent reminders booked into the last window since it ran are still upcoming
+            long start = until == null ? now.getTime() : Math.min(until.getTime(), now.getTime());
+            byStart.computeIfAbsent(Math.max(start, horizon), k -> new ArrayList<>()).add(partitionNo);
+        });
+
+        int sent = 0;
+        for (Map.Entry<Long, List<Integer>> window : byStart.entrySet()) {
+            sent += dispatchWindow(new Date(window.getKey()), to, window.getValue(), now);
+        }
+        return sent;
+    }
+
+    private int dispatchWindow(Date from, Date to, List<Integer> partitionNos, Date now) {
+        int partitions = partitionLeases.getPartitions();
+        int expired = appointmentRepository.expireReminders(
+                new Date(now.getTime() - catchUpMs), from, partitions, partitionNos);
+        if (expired > 0) {
+            expiredCounter.increment(expired);
+            log.info("Skipped {} reminders whose appointment time passed before they could be sent", expired);
+        }
+
+        int sent = 0;
+        while (true) {
+            List<Long> ids = appointmentRepository.findDueReminderIds(
+                    from, to, partitions, partitionNos, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            BatchResult result = dispatchBatch(ids, now);
+            sent += result.sent;
+            // Failed reminders were released; leave them and the rest of the window for the next
+            // run instead of spinning on a broken SMTP server
+            if (result.failed > 0) {
+                return sent;
+            }
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+        partitionLeases.markReminded(partitionNos, to);
+        return sent;
+    }
+
+    private BatchResult dispatchBatch(List<Long> ids, Date now) {
+        String claim = UUID.randomUUID().toString();
+        if (appointmentRepository.claimReminders(ids, claim) == 0) {
+            return new BatchResult(0, 0); // another scheduler got there first
+        }
+        List<Appointment> claimed = appointmentRepository.findByReminderClaim(claim);
+
+        long started = System.nanoTime();
+        int attempted = 0;
+        List<CompletableFuture<List<Long>>> chunks = new ArrayList<>();
+        List<Appointment> chunk = new ArrayList<>(chunkSize);
+        for (Appointment appointment : claimed) {
+            if (appointment.getPatient() == null || appointment.getDoctor() == null) {
+                continue;
+            }
+            attempted++;
+            chunk.add(appointment);
+            if (chunk.size() == chunkSize) {
+                chunks.add(sendAsync(chunk));
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(sendAsync(chunk));
+        }
+
+        List<Long> failed = new ArrayList<>();
+        for (CompletableFuture<List<Long>> future : chunks) {
+            failed.addAll(future.join());
+        }
+        if (!failed.isEmpty()) {
+            appointmentRepository.releaseReminders(failed);
+        }
+
+        long elapsedNanos = System.nanoTime() - started;
+        int sent = attempted - failed.size();
+        double perSecond = elapsedNanos > 0 ? sent * 1e9 / elapsedNanos : sent;
+        batchTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        batchThroughput.record(perSecond);
+        sentCounter.increment(sent);
+        failedCounter.increment(failed.size());
+
+        log.info("Reminder batch: {} sent, {} failed in {} ms ({} msg/s)",
+                sent, failed.size(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos), Math.round(perSecond));
+        return new BatchResult(sent, failed.size());
+    }
+
+    private CompletableFuture<List<Long>> sendAsync(List<Appointment> chunk) {
+        return CompletableFuture.supplyAsync(() -> sendChunk(chunk), reminderTaskExecutor);
+    }
+
+    // Returns the ids whose reminder could not be sent
+    private List<Long> sendChunk(List<Appointment> chunk) {
+        Map<SimpleMailMessage, Long> ids = new IdentityHashMap<>();
+        SimpleMailMessage[] messages = new SimpleMailMessage[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            Appointment appointment = chunk.get(i);
+            messages[i] = emailService.buildAppointmentReminder(
+                    appointment.getPatient().getEmail(),
+                    appointment.getPatient().getUsername(),
+                    appointment.getDoctor().getUsername(),
+                    appointment.getAppointmentTime());
+            ids.put(messages[i], appointment.getId());
+        }
+
+        List<Long> failed = new ArrayList<>();
+        try {
+            emailService.sendBatch(messages);
+        } catch (MailSendException e) {
+            for (Object message : e.getFailedMessages().keySet()) {
+                Long id = ids.get(message);
+                if (id != null) {
+                    failed.add(id);
+                }
+            }
+            if (failed.isEmpty()) {
+                failed.addAll(ids.values());
+            }
+            log.warn("{} of {} reminders failed: {}", failed.size(), chunk.size(), e.getMessage());
+        } catch (RuntimeException e) {
+            failed.addAll(ids.values());
+            log.warn("Reminder chunk of {} failed: {}", chunk.size(), e.getMessage());
+        }
+        return failed;
+    }
+
+    private static final class BatchResult {
+        final int sent;
+        final int failed;
+
+        BatchResult(int sent, int failed) {
+            this.sent = sent;
+            this.failed = failed;
+        }
+    }
+}
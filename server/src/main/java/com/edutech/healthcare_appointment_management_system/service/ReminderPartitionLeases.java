@@ -0,0 +1,156 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.entity.ReminderNode;
+import com.edutech.healthcare_appointment_management_system.entity.ReminderPartitionLease;
+import com.edutech.healthcare_appointment_management_system.repository.ReminderNodeRepository;
+import com.edutech.healthcare_appointment_management_system.repository.ReminderPartitionLeaseRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Splits reminder work between server instances through the shared database.
+ *
+ * Appointments are sharded into a fixed number of partitions by doctor id. Every node
+ * heartbeats into reminder_node and holds time-limited leases on its fair share
+ * (partitions / live nodes) of reminder_partition_lease rows. Leases are taken with a
+ * conditional UPDATE, so a partition has at most one live owner; when a node dies its
+ * leases expire and the survivors pick them up, and when a node joins the others hand
+ * back their surplus. All nodes must be configured with the same partition count.
+ */
+@Component
+public class ReminderPartitionLeases {
+
+    private static final Logger log = LoggerFactory.getLogger(ReminderPartitionLeases.class);
+
+    private final ReminderPartitionLeaseRepository leaseRepository;
+    private final ReminderNodeRepository nodeRepository;
+    private final String nodeId;
+    private final int partitions;
+    private final long leaseMs;
+
+    @Autowired
+    public ReminderPartitionLeases(ReminderPartitionLeaseRepository leaseRepository,
+                                   ReminderNodeRepository nodeRepository,
+                                   @Value("${reminder.node-id:}") String nodeId,
+                                   @Value("${reminder.partitions:16}") int partitions,
+                                   @Value("${reminder.lease-ms:120000}") long leaseMs) {
+        this.leaseRepository = leaseRepository;
+        this.nodeRepository = nodeRepository;
+        this.nodeId = nodeId.isEmpty() ? defaultNodeId() : nodeId;
+        this.partitions = partitions;
+        this.leaseMs = leaseMs;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * Heartbeats, renews this node's leases and rebalances towards the fair share.
+     * Returns the partitions this node may dispatch until the next call.
+     */
+    public List<Integer> acquire(Date now) {
+        ensurePartitions();
+        Date until = new Date(now.getTime() + leaseMs);
+        nodeRepository.save(new ReminderNode(nodeId, until));
+        leaseRepository.renew(nodeId, now, until);
+
+        long liveNodes = Math.max(1, nodeRepository.countAlive(now));
+        int share = (int) ((partitions + liveNodes - 1) / liveNodes);
+
+        List<Integer> owned = leaseRepository.findOwned(nodeId, now);
+        if (owned.size() < share) {
+            for (Integer partitionNo : leaseRepository.findClaimable(now)) {
+                if (owned.size() >= share) {
+                    break;
+                }
+                if (partitionNo < partitions && leaseRepository.claim(partitionNo, nodeId, now, until) == 1) {
+                    owned.add(partitionNo);
+                }
+            }
+        } else if (owned.size() > share) {
+            // Hand back the surplus so a newly joined node can take it on its next tick
+            while (owned.size() > share) {
+                Integer partitionNo = owned.remove(owned.size() - 1);
+                leaseRepository.release(partitionNo, nodeId);
+            }
+        }
+        owned.removeIf(p -> p >= partitions);
+        owned.sort(Integer::compare);
+        return owned;
+    }
+
+    /**
+     * End of the last reminder window dispatched for each of the partitions, by whichever
+     * node held them; null for a partition that has none yet.
+     */
+    public Map<Integer, Date> remindedUntil(List<Integer> partitionNos) {
+        Map<Integer, Date> until = new HashMap<>();
+        for (ReminderPartitionLease lease : leaseRepository.findAllById(partitionNos)) {
+            until.put(lease.getPartitionNo(), lease.getRemindedUntil());
+        }
+        return until;
+    }
+
+    /** Records that every reminder of the partitions up to the given time was dispatched. */
+    public void markReminded(List<Integer> partitionNos, Date until) {
+        leaseRepository.advanceReminded(partitionNos, nodeId, until);
+    }
+
+    /** Gives up every lease at shutdown so other nodes do not have to wait for expiry. */
+    @PreDestroy
+    public void releaseAll() {
+        try {
+            leaseRepository.releaseAll(nodeId);
+            nodeRepository.deleteById(nodeId);
+        } catch (RuntimeException e) {
+            log.debug("Could not release reminder leases of {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    private void ensurePartitions() {
+        if (leaseRepository.count() >= partitions) {
+            return;
+        }
+        Set<Integer> existing = new HashSet<>();
+        leaseRepository.findAll().forEach(l -> existing.add(l.getPartitionNo()));
+        for (int p = 0; p < partitions; p++) {
+            if (!existing.contains(p)) {
+                try {
+                    leaseRepository.saveAndFlush(new ReminderPartitionLease(p));
+                } catch (DataIntegrityViolationException e) {
+                    // another node created it at the same time
+                }
+            }
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
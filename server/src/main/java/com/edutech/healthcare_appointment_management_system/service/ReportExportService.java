@@ -0,0 +1,164 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.dto.ReportExportRequest;
+import com.edutech.healthcare_appointment_management_system.entity.MedicalRecord;
+import com.edutech.healthcare_appointment_management_system.service.ReportJobService.NarrativeMode;
+import com.edutech.healthcare_appointment_management_system.service.ReportService.ReportData;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.multipdf.PDFMergerUtility;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exports many medical record reports at once, as one merged PDF or a ZIP of per-record PDFs.
+ *
+ * Every record is rendered as its own task on a dedicated fork-join pool, so the Groq
+ * narrative calls fan out concurrently instead of running one after another. The pool's
+ * parallelism is the concurrency cap (reports.export.max-concurrent-renders); the calls
+ * also stay within the shared Groq rate limit (REPORT lane). Records go through
+ * ReportJobService.renderNow, so versions already in the report cache are not rendered
+ * again, and a render an export starts is reused by later downloads. Exports wait for the
+ * Groq narrative by default rather than taking the interim template version that downloads
+ * get under TEMPLATE_THEN_LLM; the caller can ask for the template version instead.
+ */
+@Service
+public class ReportExportService {
+
+    public enum Format { PDF, ZIP }
+
+    private final MedicalRecordService medicalRecordService;
+    private final ReportJobService reportJobService;
+    private final ForkJoinPool renderPool;
+    private final int maxRecords;
+
+    @Value("${reports.pdf.max-main-memory-bytes:2097152}")
+    private long maxMainMemoryBytes = 2L * 1024 * 1024;
+
+    public ReportExportService(MedicalRecordService medicalRecordService,
+                               ReportJobService reportJobService,
+                               @Value("${reports.export.max-concurrent-renders:10}") int maxConcurrentRenders,
+                               @Value("${reports.export.max-records:100}") int maxRecords) {
+        this.medicalRecordService = medicalRecordService;
+        this.reportJobService = reportJobService;
+        this.renderPool = new ForkJoinPool(maxConcurrentRenders);
+        this.maxRecords = maxRecords;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        renderPool.shutdownNow();
+    }
+
+    /**
+     * Loads the requested records with their patient and doctor and copies them into
+     * render snapshots: every record of the patient (newest first), or the given records
+     * in the order they were listed.
+     *
+     * @throws IllegalArgumentException for an invalid selection or an unknown record id
+     */
+    @Transactional(readOnly = true)
+    public List<ReportData> selectRecords(ReportExportRequest request) {
+        boolean byPatient = request.getPatientId() != null;
+        boolean byIds = request.getRecordIds() != null && !request.getRecordIds().isEmpty();
+        if (byPatient == byIds) {
+            throw new IllegalArgumentException("Give either patientId or recordIds");
+        }
+
+        List<MedicalRecord> records;
+        if (byPatient) {
+            records = medicalRecordService.getRecordsForReportByPatientId(request.getPatientId());
+        } else {
+            LinkedHashSet<Long> ids = new LinkedHashSet<>(request.getRecordIds());
+            if (ids.size() > maxRecords) {
+                throw new IllegalArgumentException("At most " + maxRecords + " records can be exported at once");
+            }
+            Map<Long, MedicalRecord> found = medicalRecordService.getRecordsForReportByIds(ids).stream()
+                    .collect(Collectors.toMap(MedicalRecord::getId, Function.identity()));
+            records = new ArrayList<>();
+            for (Long id : ids) {
+                MedicalRecord record = found.get(id);
+                if (record == null) {
+                    throw new IllegalArgumentException("Record not found: " + id);
+                }
+                records.add(record);
+            }
+        }
+
+        if (records.isEmpty()) {
+            throw new IllegalArgumentException("No medical records to export");
+        }
+        if (records.size() > maxRecords) {
+            throw new IllegalArgumentException("At most " + maxRecords + " records can be exported at once");
+        }
+        return records.stream().map(ReportData::of).collect(Collectors.toList());
+    }
+
+    /**
+     * Renders (or takes from the cache) every record's PDF concurrently, with the default
+     * export narrative (see ReportJobService.defaultExportMode).
+     */
+    public List<Path> render(List<ReportData> records) {
+        return render(records, reportJobService.defaultExportMode());
+    }
+
+    /**
+     * Renders (or takes from the cache) every record's PDF concurrently.
+     *
+     * @param narrative LLM or TEMPLATE
+     * @return the PDF files, in the same order as the records
+     * @throws IllegalStateException if any record fails to render
+     */
+    public List<Path> render(List<ReportData> records, NarrativeMode narrative) {
+        List<ForkJoinTask<Path>> tasks = new ArrayList<>(records.size());
+        for (ReportData data : records) {
+            tasks.add(renderPool.submit(() -> reportJobService.renderNow(data, narrative)));
+        }
+        List<Path> files = new ArrayList<>(tasks.size());
+        for (ForkJoinTask<Path> task : tasks) {
+            files.add(task.join());
+        }
+        return files;
+    }
+
+    /**
+     * Writes the rendered reports to the stream in the requested format. Pages are read
+     * from the report files; the merged document spills to a scratch file beyond the
+     * in-memory budget. The stream is not closed.
+     */
+    public void write(Format format, List<ReportData> records, List<Path> files, OutputStream out) throws IOException {
+        if (format == Format.ZIP) {
+            ZipOutputStream zip = new ZipOutputStream(out);
+            for (int i = 0; i < files.size(); i++) {
+                zip.putNextEntry(new ZipEntry(records.get(i).fileName()));
+                Files.copy(files.get(i), zip);
+                zip.closeEntry();
+            }
+            zip.finish();
+            return;
+        }
+
+        PDFMergerUtility merger = new PDFMergerUtility();
+        for (Path file : files) {
+            merger.addSource(file.toFile());
+        }
+        merger.setDestinationStream(out);
+        merger.mergeDocuments(MemoryUsageSetting.setupMixed(maxMainMemoryBytes));
+    }
+}
@@ -0,0 +1,540 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.entity.MedicalRecord;
+import com.edutech.healthcare_appointment_management_system.exception.ReportQueueFullException;
+import com.edutech.healthcare_appointment_management_system.service.ReportService.ReportData;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Generates medical record PDFs off the request thread and keeps them on disk.
+ *
+ * submit() snapshots the record and returns a job straight away; a reportTaskExecutor
+ * worker makes the Groq narrative call and renders the PDF. Finished reports are stored as
+ * record-{id}-{hash}.pdf, where the hash covers everything printed in the report, so an
+ * edited record never matches its old file and the stale version is deleted once the new
+ * one is written. Submitting a record whose current version is already on disk completes
+ * immediately, and identical submissions while one is running share that job.
+ *
+ * Where the narrative comes from is set by reports.narrative.mode:
+ * - LLM: the Groq narrative, rendered before the job completes (seconds)
+ * - TEMPLATE: the template narrative built from the record alone (milliseconds), no Groq
+ * - TEMPLATE_THEN_LLM (default): the template version completes the job and is cached as
+ *   record-{id}-{hash}-template.pdf; the Groq version is then rendered in the background
+ *   as record-{id}-{hash}.pdf, which later downloads get instead. Records whose Groq
+ *   narrative is already stored (ReportNarrativeStore) skip the template version
+ *
+ * Bulk export (renderNow) takes the narrative mode per call instead: LLM or TEMPLATE, by
+ * default LLM unless the configured mode is TEMPLATE, so exported documents are not the
+ * interim template version. The Groq version an export renders is cached for downloads.
+ *
+ * Reports rendered with the fallback narrative (Groq unavailable) are delivered to their
+ * job but not cached, so the next request tries the model again. A background upgrade that
+ * gets the fallback keeps the template version and is retried on a later download.
+ *
+ * The directory is swept on a schedule: reports not requested within reports.cache.max-age
+ * are deleted, then the least recently requested ones until it fits reports.cache.max-size.
+ * A cache hit refreshes the file's modification time, which is what both bounds go by.
+ */
+@Service
+public class ReportJobService {
+
+    public enum Status { QUEUED, RUNNING, DONE, FAILED }
+
+    public enum NarrativeMode { LLM, TEMPLATE, TEMPLATE_THEN_LLM }
+
+    public static class ReportJob {
+        private final String id;
+        private final Long recordId;
+        private final String contentHash;
+        private final String fileName;
+        private final NarrativeMode mode;
+        private final CompletableFuture<Path> result = new CompletableFuture<>();
+        private volatile Status status = Status.QUEUED;
+        private volatile String error;
+
+        ReportJob(String id, ReportData data, String contentHash, NarrativeMode mode) {
+            this.id = id;
+            this.recordId = data.recordId;
+            this.contentHash = contentHash;
+            this.fileName = data.fileName();
+            this.mode = mode;
+        }
+
+        public String getId() { return id; }
+        public Long getRecordId() { return recordId; }
+        public String getContentHash() { return contentHash; }
+        public String getFileName() { return fileName; }
+        public Status getStatus() { return status; }
+        public String getError() { return error; }
+
+        /** The generated PDF, once the job is DONE. */
+        public Optional<Path> getFile() {
+            return status == Status.DONE ? Optional.of(result.join()) : Optional.empty();
+        }
+
+        // Status first, so whoever is woken by the future already sees the outcome
+        void complete(Path file) {
+            status = Status.DONE;
+            result.complete(file);
+        }
+
+        void fail(String message) {
+            error = message;
+            status = Status.FAILED;
+            result.completeExceptionally(new IllegalStateException(message));
+        }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(ReportJobService.class);
+
+    private static final String UNCACHED_PREFIX = "uncached-";
+    private static final String TEMPLATE_SUFFIX = "-template.pdf";
+
+    private final MedicalRecordService medicalRecordService;
+    private final ReportService reportService;
+    private final Executor executor;
+    private final Path cacheDir;
+    private final MeterRegistry meterRegistry;
+    private final NarrativeMode narrativeMode;
+    private final Duration cacheMaxAge;
+    private final DataSize cacheMaxSize;
+
+    // Job ids stay resolvable for the retention period after submission
+    private final Cache<String, ReportJob> jobs;
+
+    // Queued or running jobs by record id + content hash, for coalescing repeat submits
+    private final Map<String, ReportJob> inFlight = new ConcurrentHashMap<>();
+
+    // Record id + content hash of template reports whose Groq version is being rendered
+    private final Set<String> upgrading = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public ReportJobService(MedicalRecordService medicalRecordService,
+                            ReportService reportService,
+                            @Qualifier("reportTaskExecutor") Executor executor,
+                            MeterRegistry meterRegistry,
+                            @Value("${reports.cache-dir:${java.io.tmpdir}/healthcare-reports}") String cacheDir,
+                            @Value("${reports.job-retention:1h}") Duration jobRetention,
+                            @Value("${reports.narrative.mode:TEMPLATE_THEN_LLM}") NarrativeMode narrativeMode,
+                            @Value("${reports.cache.max-age:7d}") Duration cacheMaxAge,
+                            @Value("${reports.cache.max-size:1GB}") DataSize cacheMaxSize) {
+        this.medicalRecordService = medicalRecordService;
+        this.reportService = reportService;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.narrativeMode = narrativeMode;
+        this.cacheMaxAge = cacheMaxAge;
+        this.cacheMaxSize = cacheMaxSize;
+        this.cacheDir = Paths.get(cacheDir);
+        try {
+            Files.createDirectories(this.cacheDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create report cache directory " + cacheDir, e);
+        }
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterWrite(jobRetention)
+                .removalListener((String id, ReportJob job, RemovalCause cause) ->
+                        deleteUncached(job))
+                .build();
+    }
+
+    ReportJobService(MedicalRecordService medicalRecordService, ReportService reportService, Executor executor,
+                     MeterRegistry meterRegistry, String cacheDir, Duration jobRetention, NarrativeMode narrativeMode) {
+        this(medicalRecordService, reportService, executor, meterRegistry, cacheDir, jobRetention, narrativeMode,
+                Duration.ofDays(7), DataSize.ofGigabytes(1));
+    }
+
+    /**
+     * Starts (or joins) generation of the record's report.
+     *
+     * @return the job, already DONE on a cache hit; empty if the record does not exist
+     * @throws ReportQueueFullException when every worker is busy and the queue is full
+     */
+    @Transactional(readOnly = true)
+    public Optional<ReportJob> submit(Long recordId) {
+        MedicalRecord record = medicalRecordService.getMedicalRecordById(recordId);
+        if (record == null) {
+            return Optional.empty();
+        }
+        // Copy everything out now; the worker runs without a persistence context
+        ReportData data = ReportData.of(record);
+
+        ReportJob[] created = new ReportJob[1];
+        ReportJob job = startOrJoin(data, narrativeMode, created);
+        if (created[0] == null) {
+            return Optional.of(job);
+        }
+        try {
+            executor.execute(() -> run(job, data));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(inFlightKey(job), job);
+            jobs.invalidate(job.getId());
+            outcome("rejected").increment();
+            throw new ReportQueueFullException("Too many reports are being generated; please try again shortly");
+        }
+        return Optional.of(job);
+    }
+
+    /**
+     * The narrative bulk export uses when the request does not choose one: the Groq version,
+     * unless Groq is turned off (TEMPLATE). Waiting for it costs a Groq call per record whose
+     * narrative is not stored yet, but the export is a finished document, not an interim one.
+     */
+    public NarrativeMode defaultExportMode() {
+        return narrativeMode == NarrativeMode.TEMPLATE ? NarrativeMode.TEMPLATE : NarrativeMode.LLM;
+    }
+
+    /**
+     * Synchronous variant for bulk export: the cached PDF for this version of the record,
+     * the result of a job already rendering it, or a fresh render on the calling thread.
+     *
+     * @param mode LLM or TEMPLATE; the narrative to render, whatever the configured mode
+     * @throws IllegalStateException if rendering fails
+     */
+    public Path renderNow(ReportData data, NarrativeMode mode) {
+        if (mode == NarrativeMode.TEMPLATE_THEN_LLM) {
+            throw new IllegalArgumentException("Exports render either the LLM or the TEMPLATE narrative");
+        }
+        ReportJob[] created = new ReportJob[1];
+        ReportJob job = startOrJoin(data, mode, created);
+        if (created[0] != null) {
+            run(job, data);
+        }
+        try {
+            return job.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for report of record " + data.recordId, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(job.getError(), e.getCause());
+        }
+    }
+
+    /**
+     * A DONE job on a cache hit, the in-flight job for the same record version, or a new
+     * QUEUED job (reported through created[0]) that the caller must run.
+     */
+    private ReportJob startOrJoin(ReportData data, NarrativeMode mode, ReportJob[] created) {
+        String hash = data.contentHash();
+
+        Path cached = servableFile(data.recordId, hash, mode);
+        if (cached != null) {
+            touch(cached);
+            ReportJob job = new ReportJob(UUID.randomUUID().toString(), data, hash, mode);
+            job.complete(cached);
+            jobs.put(job.getId(), job);
+            outcome("cache_hit").increment();
+            if (mode == NarrativeMode.TEMPLATE_THEN_LLM && isTemplate(cached)) {
+                // An earlier upgrade failed, was rejected or was cut short by a restart
+                upgradeLater(data, hash);
+            }
+            return job;
+        }
+
+        // Keyed by mode too: a download job may render the template while an export wants Groq
+        ReportJob job = inFlight.computeIfAbsent(data.recordId + "-" + hash + "-" + mode, k ->
+                created[0] = new ReportJob(UUID.randomUUID().toString(), data, hash, mode));
+        if (created[0] == null) {
+            outcome("coalesced").increment();
+        } else {
+            jobs.put(job.getId(), job);
+        }
+        return job;
+    }
+
+    private static String inFlightKey(ReportJob job) {
+        return job.getRecordId() + "-" + job.getContentHash() + "-" + job.mode;
+    }
+
+    public Optional<ReportJob> findJob(String jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId));
+    }
+
+    /**
+     * Waits up to the timeout for the job to finish; returns the job either way.
+     */
+    public ReportJob await(ReportJob job, Duration timeout) {
+        try {
+            job.result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Status already tells the caller what happened
+        }
+        return job;
+    }
+
+    private void run(ReportJob job, ReportData data) {
+        job.status = Status.RUNNING;
+        boolean template;
+        try {
+            // With a stored Groq narrative the Groq version is just as quick, so skip the template
+            template = job.mode == NarrativeMode.TEMPLATE
+                    || job.mode == NarrativeMode.TEMPLATE_THEN_LLM && !reportService.hasStoredNarrative(data);
+
+            // Render straight into a file next to the target, then move it into place so
+            // readers never see a partial file; the PDF is never held in memory as a whole
+            Path tmp = Files.createTempFile(cacheDir, "render-", ".tmp");
+            boolean fallback = false;
+            Path target;
+            try {
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                    if (template) {
+                        reportService.writeTemplatePdf(data, out);
+                    } else {
+                        fallback = reportService.writeMedicalRecordPdf(data, out);
+                    }
+                }
+                if (fallback) {
+                    target = cacheDir.resolve(UNCACHED_PREFIX + job.getId() + ".pdf");
+                } else if (template) {
+                    target = templateFile(data.recordId, job.getContentHash());
+                } else {
+                    target = cachedFile(data.recordId, job.getContentHash());
+                }
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+
+            if (!fallback) {
+                deleteOtherVersions(data.recordId, job.getContentHash());
+            }
+            // Leave in-flight before completing, so a submit that sees the finished job
+            // can start a fresh one (needed after an uncached fallback render)
+            inFlight.remove(inFlightKey(job), job);
+            job.complete(target);
+            outcome(fallback ? "generated_uncached" : template ? "generated_template" : "generated").increment();
+        } catch (Exception e) {
+            log.error("Report job {} for record {} failed", job.getId(), data.recordId, e);
+            inFlight.remove(inFlightKey(job), job);
+            job.fail("Error generating report: " + e.getMessage());
+            outcome("failed").increment();
+            return;
+        }
+        if (template && job.mode == NarrativeMode.TEMPLATE_THEN_LLM) {
+            upgradeLater(data, job.getContentHash());
+        }
+    }
+
+    // Queues the Groq version of a cached template report, once per record version
+    private void upgradeLater(ReportData data, String hash) {
+        String key = data.recordId + "-" + hash;
+        if (!upgrading.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    upgrade(data, hash);
+                } finally {
+                    upgrading.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Downloads come first; the next one for this record tries again
+            upgrading.remove(key);
+            outcome("upgrade_rejected").increment();
+        }
+    }
+
+    private void upgrade(ReportData data, String hash) {
+        try {
+            Path tmp = Files.createTempFile(cacheDir, "render-", ".tmp");
+            try {
+                boolean fallback;
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                    fallback = reportService.writeMedicalRecordPdf(data, out);
+                }
+                if (fallback) {
+                    // Keep the template version rather than caching the fallback text
+                    outcome("upgrade_fallback").increment();
+                    return;
+                }
+                if (!Files.exists(templateFile(data.recordId, hash))) {
+                    // The record was edited meanwhile; this version is no longer wanted
+                    outcome("upgrade_stale").increment();
+                    return;
+                }
+                Files.move(tmp, cachedFile(data.recordId, hash),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            outcome("upgraded").increment();
+        } catch (Exception e) {
+            log.warn("Could not render the Groq version of the report for record {}", data.recordId, e);
+            outcome("upgrade_failed").increment();
+        }
+    }
+
+    // The cached report this mode may serve for the record version, or null
+    private Path servableFile(Long recordId, String hash, NarrativeMode mode) {
+        Path llm = cachedFile(recordId, hash);
+        Path template = templateFile(recordId, hash);
+        switch (mode) {
+            case LLM:
+                return Files.isRegularFile(llm) ? llm : null;
+            case TEMPLATE:
+                return Files.isRegularFile(template) ? template : null;
+            default:
+                if (Files.isRegularFile(llm)) return llm;
+                return Files.isRegularFile(template) ? template : null;
+        }
+    }
+
+    Path cachedFile(Long recordId, String hash) {
+        return cacheDir.resolve("record-" + recordId + "-" + hash + ".pdf");
+    }
+
+    Path templateFile(Long recordId, String hash) {
+        return cacheDir.resolve("record-" + recordId + "-" + hash + TEMPLATE_SUFFIX);
+    }
+
+    private static boolean isTemplate(Path file) {
+        return file.getFileName().toString().endsWith(TEMPLATE_SUFFIX);
+    }
+
+    // PDFs rendered from an earlier version of the record. Both narratives of the current
+    // version stay, so jobs that finished with the template version can still be served
+    private void deleteOtherVersions(Long recordId, String currentHash) {
+        String current = "record-" + recordId + "-" + currentHash;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDir, "record-" + recordId + "-*.pdf")) {
+            for (Path file : files) {
+                if (!file.getFileName().toString().startsWith(current)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not remove stale reports for record {}", recordId, e);
+        }
+    }
+
+    private void deleteUncached(ReportJob job) {
+        if (job == null) return;
+        job.getFile()
+           .filter(file -> file.getFileName().toString().startsWith(UNCACHED_PREFIX))
+           .ifPresent(file -> {
+               try {
+                   Files.deleteIfExists(file);
+               } catch (IOException e) {
+                   log.warn("Could not remove {}", file, e);
+               }
+           });
+    }
+
+    /**
+     * Deletes cached reports not requested within the max age, then the least recently
+     * requested ones until the directory fits the max size. Render temp files left behind
+     * by a crash go by age too; uncached fallback reports are removed with their job.
+     */
+    @Scheduled(fixedDelayString = "${reports.cache.sweep-interval-ms:600000}")
+    public void sweepCache() {
+        long cutoff = System.currentTimeMillis() - cacheMaxAge.toMillis();
+        List<Path> kept = new ArrayList<>();
+        Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+        long total = 0;
+        int removed = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDir)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                boolean report = name.startsWith("record-");
+                if (!report && !name.startsWith("render-")) {
+                    continue;
+                }
+                BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    continue; // deleted meanwhile
+                }
+                if (attrs.lastModifiedTime().toMillis() < cutoff) {
+                    removed += delete(file) ? 1 : 0;
+                } else if (report) {
+                    kept.add(file);
+                    attributes.put(file, attrs);
+                    total += attrs.size();
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not sweep report cache {}", cacheDir, e);
+            return;
+        }
+
+        kept.sort(Comparator.comparing(file -> attributes.get(file).lastModifiedTime()));
+        for (int i = 0; i < kept.size() && total > cacheMaxSize.toBytes(); i++) {
+            Path file = kept.get(i);
+            if (delete(file)) {
+                total -= attributes.get(file).size();
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            meterRegistry.counter("reports.cache.swept").increment(removed);
+            log.info("Report cache sweep removed {} file(s); {} bytes remain in {}", removed, total, cacheDir);
+        }
+    }
+
+    private static boolean delete(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not remove {}", file, e);
+            return false;
+        }
+    }
+
+    // Marks a cached report as recently requested, so the sweep keeps it
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Swept or replaced meanwhile; the download reports it
+        }
+    }
+
+    private Counter outcome(String outcome) {
+        return Counter.builder("reports.jobs").tag("outcome", outcome).register(meterRegistry);
+    }
+}
@@ -0,0 +1,91 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.entity.MedicalReportNarrative;
+import com.edutech.healthcare_appointment_management_system.repository.MedicalRecordRepository;
+import com.edutech.healthcare_appointment_management_system.repository.MedicalReportNarrativeRepository;
+import com.edutech.healthcare_appointment_management_system.service.GroqSummaryService.MedicalReportContent;
+import com.edutech.healthcare_appointment_management_system.service.ReportService.ReportData;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Groq report narratives persisted per medical record (see MedicalReportNarrative).
+ *
+ * A narrative is generated once for a given set of prompt inputs and read back for every
+ * later render, so rendering the same record again costs no tokens and prints the same
+ * text. Editing anything the prompt is built from changes ReportData.narrativeHash, and
+ * the next render generates a new narrative that overwrites the old row.
+ *
+ * Lookups and saves each run in their own short transaction; none is held open across the
+ * Groq call. A failed save is logged and only means the next render asks Groq again.
+ */
+@Service
+public class ReportNarrativeStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportNarrativeStore.class);
+
+    private final MedicalReportNarrativeRepository narrativeRepository;
+    private final MedicalRecordRepository medicalRecordRepository;
+
+    public ReportNarrativeStore(MedicalReportNarrativeRepository narrativeRepository,
+                                MedicalRecordRepository medicalRecordRepository) {
+        this.narrativeRepository = narrativeRepository;
+        this.medicalRecordRepository = medicalRecordRepository;
+    }
+
+    /** The stored narrative, if it was generated from the record's current inputs. */
+    public Optional<MedicalReportContent> find(ReportData data) {
+        String hash = data.narrativeHash();
+        return narrativeRepository.findByRecordId(data.recordId)
+                .filter(n -> hash.equals(n.getInputHash()))
+                .map(ReportNarrativeStore::content);
+    }
+
+    public boolean has(ReportData data) {
+        return narrativeRepository.existsFor(data.recordId, data.narrativeHash());
+    }
+
+    /** Stores a model-generated narrative for the record, replacing any earlier one. */
+    public void save(ReportData data, MedicalReportContent content) {
+        if (content.fallback) {
+            throw new IllegalArgumentException("Fallback narratives are not stored");
+        }
+        try {
+            MedicalReportNarrative narrative = narrativeRepository.findByRecordId(data.recordId)
+                    .orElseGet(() -> {
+                        MedicalReportNarrative created = new MedicalReportNarrative();
+                        created.setMedicalRecord(medicalRecordRepository.getReferenceById(data.recordId));
+                        return created;
+                    });
+            narrative.setInputHash(data.narrativeHash());
+            narrative.setChiefComplaint(content.chiefComplaint);
+            narrative.setHistoryOfPresentIllness(content.historyOfPresentIllness);
+            narrative.setPastMedicalHistory(content.pastMedicalHistory);
+            narrative.setClinicalAssessment(content.clinicalAssessment);
+            narrative.setTreatmentPlan(content.treatmentPlan);
+            narrative.setFollowUpRecommendations(content.followUpRecommendations);
+            narrative.setGeneratedAt(LocalDateTime.now());
+            narrativeRepository.save(narrative);
+        } catch (DataAccessException e) {
+            // Record deleted meanwhile, or a concurrent render stored its narrative first
+            log.warn("Could not store report narrative for record {}", data.recordId, e);
+        }
+    }
+
+    private static MedicalReportContent content(MedicalReportNarrative narrative) {
+        MedicalReportContent content = new MedicalReportContent();
+        content.chiefComplaint = narrative.getChiefComplaint();
+        content.historyOfPresentIllness = narrative.getHistoryOfPresentIllness();
+        content.pastMedicalHistory = narrative.getPastMedicalHistory();
+        content.clinicalAssessment = narrative.getClinicalAssessment();
+        content.treatmentPlan = narrative.getTreatmentPlan();
+        content.followUpRecommendations = narrative.getFollowUpRecommendations();
+        return content;
+    }
+}
@@ -1,91 +1,144 @@
 package com.edutech.healthcare_appointment_management_system.service;
 
+import com.edutech.healthcare_appointment_management_system.common.PdfTextLayout;
 import com.edutech.healthcare_appointment_management_system.entity.MedicalRecord;
 import com.edutech.healthcare_appointment_management_system.entity.Patient;
 import com.edutech.healthcare_appointment_management_system.entity.Doctor;
 import com.edutech.healthcare_appointment_management_system.service.GroqSummaryService.MedicalReportContent;
 
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.function.PDFunctionType2;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceRGB;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.pdmodel.graphics.shading.PDShading;
+import org.apache.pdfbox.pdmodel.graphics.shading.PDShadingType2;
 import org.apache.pdfbox.pdmodel.font.PDType1Font;
 import org.apache.pdfbox.pdmodel.font.PDFont;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.awt.Color;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 @Service
 public class ReportService {
 
     // Dependencies:
-    // - medicalRecordService: fetches MedicalRecord and related Patient/Doctor
     // - groqService: generates AI-based narrative content for the report
-    private final MedicalRecordService medicalRecordService;
+    // - templateNarrative: deterministic narrative built from the record itself
+    // - narrativeStore: Groq narratives already generated for the same inputs (optional;
+    //   without it every render asks Groq)
     private final GroqSummaryService groqService;
+    private final TemplateReportNarrative templateNarrative;
+    private final ReportNarrativeStore narrativeStore;
+
+    // Page content beyond this much heap per document spills to a PDFBox scratch file
+    @Value("${reports.pdf.max-main-memory-bytes:2097152}")
+    private long maxMainMemoryBytes = 2L * 1024 * 1024;
 
     @Autowired
-    public ReportService(MedicalRecordService medicalRecordService, GroqSummaryService groqService) {
-        this.medicalRecordService = medicalRecordService;
+    public ReportService(GroqSummaryService groqService, TemplateReportNarrative templateNarrative,
+                         ReportNarrativeStore narrativeStore) {
         this.groqService = groqService;
+        this.templateNarrative = templateNarrative;
+        this.narrativeStore = narrativeStore;
+    }
+
+    ReportService(GroqSummaryService groqService) {
+        this(groqService, new TemplateReportNarrative(), null);
     }
 
     // Layout constants for the PDF
     private static final float MARGIN = 50f;
     private static final float CONTENT_WIDTH = 495f;          // Available text width (A4 width minus margins)
     private static final float FOOTER_RESERVED_SPACE = 100f;  // Space reserved to avoid overlapping footer
+    private static final float HEADER_HEIGHT = 100f;          // Gradient band on the first page
 
     /**
-     * Builds a multi-page Medical Record PDF as a byte[].
+     * Renders a multi-page Medical Record PDF straight into the given stream.
      * Steps:
-     * 1) Fetch MedicalRecord + Patient + Doctor
-     * 2) Normalize text values (safe())
-     * 3) Generate AI narrative (chief complaint, HPI, etc.)
-     * 4) Create PDF (title, sections, paragraphs with wrapping, pagination, header/footers)
+     * 1) Take the already-loaded snapshot (see ReportData.of; no JPA state is touched, so
+     *    this is safe on worker threads outside the request)
+     * 2) Reuse the stored AI narrative for these inputs, or generate it (chief complaint,
+     *    HPI, etc.) and store it
+     * 3) Create PDF (title, sections, paragraphs with wrapping, pagination, header/footers)
+     *
+     * The document is built with a mixed memory setting, so heap use per report is capped
+     * by reports.pdf.max-main-memory-bytes whatever its length, and the finished PDF is
+     * written to the stream as it is serialized rather than collected into a byte[].
+     * PDDocument.save closes the stream when it is done.
+     *
+     * @return true when the AI narrative was unavailable and the template text was used
      */
-    public byte[] buildMedicalRecordPdf(Long recordId) {
-        // Fetch the medical record; error if missing
-        MedicalRecord r = medicalRecordService.getMedicalRecordById(recordId);
-        if (r == null) {
-            throw new RuntimeException("MedicalRecord not found: " + recordId);
+    public boolean writeMedicalRecordPdf(ReportData data, OutputStream out) throws IOException {
+        // A narrative generated earlier for the same inputs makes this a purely local render
+        MedicalReportContent stored = narrativeStore != null ? narrativeStore.find(data).orElse(null) : null;
+        if (stored != null) {
+            render(data, stored, out);
+            return false;
         }
 
-        // Extract linked entities
-        Patient p = r.getPatient();
-        Doctor d = r.getDoctor();
-
-        // Safely map values, avoid nulls and trim
-        String patientName  = safe(p != null ? p.getUsername() : "Unknown");
-        Long patientId = p != null ? p.getId() : null;
-        String patientEmail = safe(p != null ? p.getEmail() : "N/A");
-        String doctorName = safe(d != null ? d.getUsername() : "Unknown");
-        Long doctorId = d != null ? d.getId() : null;
-        String doctorEmail = safe(d != null ? d.getEmail() : "N/A");
-        String diagnosis = safe(r.getDiagnosis());
-        String treatment = safe(r.getTreatment());
-        String recordDate = r.getRecordDate() != null
-                ? r.getRecordDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy"))
-                : "N/A";
-
         // Generate AI content using Groq service (structured narrative for the report)
         MedicalReportContent aiContent = groqService.generateMedicalReport(
-            patientName, String.valueOf(patientId), patientEmail,
-            doctorName, String.valueOf(doctorId),
-            diagnosis, treatment, recordDate
+            data.patientName, String.valueOf(data.patientId), data.patientEmail,
+            data.doctorName, String.valueOf(data.doctorId),
+            data.diagnosis, data.treatment, data.recordDate
         );
+        if (!aiContent.fallback && narrativeStore != null) {
+            narrativeStore.save(data, aiContent);
+        }
+        if (aiContent.fallback) {
+            // The record-specific template reads better than Groq's generic fallback text
+            aiContent = templateNarrative.build(data);
+            aiContent.fallback = true;
+        }
+        render(data, aiContent, out);
+        return aiContent.fallback;
+    }
 
-        // Will hold the final PDF bytes
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    /**
+     * True when writeMedicalRecordPdf would not need to call Groq for this record version.
+     */
+    public boolean hasStoredNarrative(ReportData data) {
+        return narrativeStore != null && narrativeStore.has(data);
+    }
 
-        // Create the PDF document in-memory
-        try (PDDocument doc = new PDDocument()) {
+    /**
+     * Same report with the template narrative (see TemplateReportNarrative): no Groq call,
+     * so it is ready in milliseconds and identical for identical records.
+     */
+    public void writeTemplatePdf(ReportData data, OutputStream out) throws IOException {
+        render(data, templateNarrative.build(data), out);
+    }
+
+    private void render(ReportData data, MedicalReportContent aiContent, OutputStream out) throws IOException {
+        String patientName = data.patientName;
+        Long patientId = data.patientId;
+        String patientEmail = data.patientEmail;
+        String doctorName = data.doctorName;
+        Long doctorId = data.doctorId;
+        String doctorEmail = data.doctorEmail;
+        String recordDate = data.recordDate;
+
+        // Create the PDF document; large documents spill to a scratch file instead of the heap
+        try (PDDocument doc = new PDDocument(MemoryUsageSetting.setupMixed(maxMainMemoryBytes))) {
             // ContentWriter encapsulates page creation, writing text, pagination, header/footer
             ContentWriter writer = new ContentWriter(doc, doctorName, recordDate);
 
@@ -143,15 +196,111 @@ public class ReportService {
             // Finalize last page, draw footer, close streams
             writer.close();
 
-            // Write the document into the output byte stream
-            doc.save(baos);
-        } catch (IOException e) {
-            // Convert checked exception to runtime to bubble up as service error
-            throw new RuntimeException("Failed to build PDF report", e);
+            // Serialize the document into the caller's stream
+            doc.save(out);
         }
+    }
 
-        // Return the PDF as bytes to the caller (controller can stream/download)
-        return baos.toByteArray();
+    /**
+     * Everything a report is rendered from, copied out of the MedicalRecord and its
+     * Patient/Doctor while the persistence context is still open.
+     */
+    public static class ReportData {
+        // Bump when the layout, narrative prompt or template changes so cached PDFs are regenerated
+        private static final String LAYOUT_VERSION = "2";
+
+        public final Long recordId;
+        public final String patientName;
+        public final Long patientId;
+        public final String patientEmail;
+        public final String doctorName;
+        public final Long doctorId;
+        public final String doctorEmail;
+        public final String diagnosis;
+        public final String treatment;
+        public final String recordDate;
+
+        public ReportData(Long recordId, String patientName, Long patientId, String patientEmail,
+                          String doctorName, Long doctorId, String doctorEmail,
+                          String diagnosis, String treatment, String recordDate) {
+            this.recordId = recordId;
+            this.patientName = patientName;
+            this.patientId = patientId;
+            this.patientEmail = patientEmail;
+            this.doctorName = doctorName;
+            this.doctorId = doctorId;
+            this.doctorEmail = doctorEmail;
+            this.diagnosis = diagnosis;
+            this.treatment = treatment;
+            this.recordDate = recordDate;
+        }
+
+        // Safely map values, avoid nulls and trim
+        public static ReportData of(MedicalRecord r) {
+            Patient p = r.getPatient();
+            Doctor d = r.getDoctor();
+            return new ReportData(
+                r.getId(),
+                safe(p != null ? p.getUsername() : "Unknown"),
+                p != null ? p.getId() : null,
+                safe(p != null ? p.getEmail() : "N/A"),
+                safe(d != null ? d.getUsername() : "Unknown"),
+                d != null ? d.getId() : null,
+                safe(d != null ? d.getEmail() : "N/A"),
+                safe(r.getDiagnosis()),
+                safe(r.getTreatment()),
+                r.getRecordDate() != null
+                    ? r.getRecordDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy"))
+                    : "N/A"
+            );
+        }
+
+        /** Download name, e.g. Record_12_Patient_3.pdf */
+        public String fileName() {
+            return "Record_" + recordId + (patientId != null ? "_Patient_" + patientId : "") + ".pdf";
+        }
+
+        /**
+         * Hash of every value that ends up in the PDF. Editing the record (or its patient or
+         * doctor details) changes it, which is what invalidates a cached report.
+         */
+        public String contentHash() {
+            return hash(LAYOUT_VERSION, recordId, patientName, patientId, patientEmail,
+                    doctorName, doctorId, doctorEmail, diagnosis, treatment, recordDate);
+        }
+
+        /**
+         * Hash of the prompt version and every value the Groq prompt is built from; a stored
+         * narrative is reused while it matches.
+         */
+        public String narrativeHash() {
+            return hash(GroqSummaryService.PROMPT_VERSION, patientName, patientId, patientEmail,
+                    doctorName, doctorId, diagnosis, treatment, recordDate);
+        }
+
+        // First 8 bytes of the SHA-256 over the values, as hex
+        private static String hash(Object... values) {
+            try {
+                MessageDigest sha = MessageDigest.getInstance("SHA-256");
+                for (Object v : values) {
+                    sha.update(String.valueOf(v).getBytes(StandardCharsets.UTF_8));
+                    sha.update((byte) 0);
+                }
+                StringBuilder hex = new StringBuilder();
+                for (byte b : Arrays.copyOf(sha.digest(), 8)) {
+                    hex.append(String.format("%02x", b));
+                }
+                return hex.toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static COSArray floats(float... values) {
+        COSArray array = new COSArray();
+        array.setFloatArray(values);
+        return array;
     }
 
     /**
@@ -164,7 +313,9 @@ public class ReportService {
     /**
      * Helper class that encapsulates PDF writing concerns:
      * - Page lifecycle (start new page, maintain content stream)
-     * - Drawing gradient header (first page only) and footer (every page)
+     * - Drawing gradient header (first page only) and footer (every page); both are built
+     *   once per document as form XObjects and placed on pages by reference
+     *   (a single "Do" operator instead of the drawing operators on every page)
      * - Writing sections, key-value rows, wrapped paragraphs
      * - Pagination logic via ensureSpace()
      */
@@ -176,6 +327,8 @@ public class ReportService {
         private final String date;
         private float pageHeight;
         private float pageWidth;
+        private PDFormXObject headerForm;
+        private PDFormXObject footerForm;
 
         ContentWriter(PDDocument doc, String doctorName, String date) {
             this.doc = doc;
@@ -189,8 +342,8 @@ public class ReportService {
          */
         void startNewPage(boolean isFirstPage) throws IOException {
             if (currentStream != null) {
-                // Before leaving current page, draw its footer and close stream
-                drawFooter(currentStream, pageWidth, doctorName, date);
+                // Before leaving current page, stamp its footer and close stream
+                currentStream.drawForm(footerForm());
                 currentStream.close();
             }
 
@@ -205,9 +358,47 @@ public class ReportService {
 
             // Draw a gradient header only on the first page
             if (isFirstPage) {
-                drawGradientBlueHeader(currentStream, pageWidth, pageHeight);
-                drawHeaderText(currentStream, pageWidth, pageHeight);
+                currentStream.drawForm(headerForm());
+            }
+        }
+
+        /**
+         * Gradient band with "HAMS" and contact lines, built on first use.
+         */
+        private PDFormXObject headerForm() throws IOException {
+            if (headerForm == null) {
+                headerForm = newForm(new PDRectangle(0, pageHeight - HEADER_HEIGHT, pageWidth, HEADER_HEIGHT));
+                try (PDPageContentStream cs = formStream(headerForm)) {
+                    drawGradientBlueHeader(cs, pageWidth, pageHeight);
+                    drawHeaderText(cs, pageWidth, pageHeight);
+                }
+            }
+            return headerForm;
+        }
+
+        /**
+         * Date, doctor and disclaimer lines; the same on every page of a report, so built once.
+         */
+        private PDFormXObject footerForm() throws IOException {
+            if (footerForm == null) {
+                footerForm = newForm(new PDRectangle(0, 0, pageWidth, FOOTER_RESERVED_SPACE));
+                try (PDPageContentStream cs = formStream(footerForm)) {
+                    drawFooter(cs, pageWidth, doctorName, date);
+                }
             }
+            return footerForm;
+        }
+
+        // The form's bbox is in page coordinates (identity matrix), so the drawing code is unchanged
+        private PDFormXObject newForm(PDRectangle bbox) {
+            PDFormXObject form = new PDFormXObject(doc);
+            form.setResources(new PDResources());
+            form.setBBox(bbox);
+            return form;
+        }
+
+        private PDPageContentStream formStream(PDFormXObject form) throws IOException {
+            return new PDPageContentStream(doc, form, form.getStream().createOutputStream(COSName.FLATE_DECODE));
         }
 
         /**
@@ -326,33 +517,37 @@ public class ReportService {
          */
         void close() throws IOException {
             if (currentStream != null) {
-                // Draw footer on the last page too
-                drawFooter(currentStream, pageWidth, doctorName, date);
+                // Stamp footer on the last page too
+                currentStream.drawForm(footerForm());
                 currentStream.close();
             }
         }
 
         /**
-         * Draws a vertical gradient blue header rectangle band at the top of the first page.
-         * Implemented as multiple thin filled rectangles with interpolated colors.
+         * Draws the header band as one axial shading from (41,128,185) at its bottom edge
+         * to (189,215,238) at the top, instead of 50 filled strips.
          */
         private void drawGradientBlueHeader(PDPageContentStream cs, float pageWidth, float pageHeight) throws IOException {
-            float headerHeight = 100f;
-            int steps = 50; // More steps = smoother gradient
-            float stepHeight = headerHeight / steps;
-
-            for (int i = 0; i < steps; i++) {
-                float ratio = (float) i / steps;
-
-                // Interpolate from (41,128,185) to (189,215,238)
-                int r = (int) (41 + ratio * (189 - 41));
-                int g = (int) (128 + ratio * (215 - 128));
-                int b = (int) (185 + ratio * (238 - 185));
-
-                cs.setNonStrokingColor(new Color(r, g, b));
-                cs.addRect(0, pageHeight - headerHeight + (i * stepHeight), pageWidth, stepHeight);
-                cs.fill();
-            }
+            float bottom = pageHeight - HEADER_HEIGHT;
+
+            COSDictionary function = new COSDictionary();
+            function.setInt(COSName.FUNCTION_TYPE, 2);
+            function.setItem(COSName.DOMAIN, floats(0, 1));
+            function.setItem(COSName.C0, floats(41 / 255f, 128 / 255f, 185 / 255f));
+            function.setItem(COSName.C1, floats(189 / 255f, 215 / 255f, 238 / 255f));
+            function.setInt(COSName.N, 1);
+
+            PDShadingType2 shading = new PDShadingType2(new COSDictionary());
+            shading.setShadingType(PDShading.SHADING_TYPE2);
+            shading.setColorSpace(PDDeviceRGB.INSTANCE);
+            shading.setFunction(new PDFunctionType2(function));
+            shading.setCoords(floats(0, bottom, 0, pageHeight));
+
+            cs.saveGraphicsState();
+            cs.addRect(0, bottom, pageWidth, HEADER_HEIGHT);
+            cs.clip();
+            cs.shadingFill(shading);
+            cs.restoreGraphicsState();
         }
 
         /**
@@ -456,43 +651,17 @@ public class ReportService {
     /**
      * Splits text into lines that fit 'maxWidth' using font metrics.
      * This prevents text from overflowing the right margin.
+     * Widths come from cached glyph tables and accumulate as words are added (PdfTextLayout).
      */
     private List<String> wrapText(String text, PDFont font, float fontSize, float maxWidth) throws IOException {
-        List<String> lines = new ArrayList<>();
-        String[] words = text.split("\\s+");
-        StringBuilder currentLine = new StringBuilder();
-
-        for (String word : words) {
-            String testLine = currentLine.length() == 0 ? word : currentLine + " " + word;
-            float width = font.getStringWidth(testLine) / 1000 * fontSize;
-
-            if (width > maxWidth) {
-                // If adding the word exceeds maxWidth, push current line and start a new one
-                if (currentLine.length() > 0) {
-                    lines.add(currentLine.toString());
-                    currentLine = new StringBuilder(word);
-                } else {
-                    // Single word larger than maxWidth; add it anyway as a line
-                    lines.add(word);
-                    currentLine = new StringBuilder();
-                }
-            } else {
-                currentLine = new StringBuilder(testLine);
-            }
-        }
-
-        if (currentLine.length() > 0) {
-            lines.add(currentLine.toString());
-        }
-
-        return lines;
+        return PdfTextLayout.wrap(text, font, fontSize, maxWidth);
     }
 
     /**
      * Measures a string's width for layout using the provided font and size.
+     * Only used for the fixed header/footer strings, so the width is memoized.
      */
     private float getTextWidth(String text, PDFont font, float fontSize) throws IOException {
-        return font.getStringWidth(text) / 1000 * fontSize;
+        return PdfTextLayout.fixedWidth(text, font, fontSize);
     }
 }
-
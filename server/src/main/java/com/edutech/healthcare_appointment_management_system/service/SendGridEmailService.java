@@ -1,11 +1,21 @@
 package com.edutech.healthcare_appointment_management_system.service;
  
-import com.sendgrid.*;
-
 import com.sendgrid.helpers.mail.Mail;
 
 import com.sendgrid.helpers.mail.objects.*;
 
+import okhttp3.MediaType;
+
+import okhttp3.OkHttpClient;
+
+import okhttp3.Request;
+
+import okhttp3.RequestBody;
+
+import okhttp3.Response;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
 import org.springframework.beans.factory.annotation.Value;
 
 import org.springframework.stereotype.Service;
@@ -25,6 +35,20 @@ public class SendGridEmailService {
     @Value("${sendgrid.from.email}")
 
     private String fromEmail;
+
+    // Overridable so a local fake endpoint can stand in for api.sendgrid.com (plain http when test-mode is on)
+    @Value("${sendgrid.api.host:api.sendgrid.com}")
+
+    private String sendGridHost;
+
+    @Value("${sendgrid.api.test-mode:false}")
+
+    private boolean sendGridTestMode;
+
+    // Shared pooled client: connections to SendGrid stay open between emails (see OutboundHttpConfig)
+    @Autowired
+
+    private OkHttpClient outboundHttpClient;
  
     public void sendAppointmentConfirmation(
 
@@ -106,19 +130,31 @@ public class SendGridEmailService {
 
         }
  
-        SendGrid sg = new SendGrid(sendGridApiKey);
+        // Same v3 mail/send call the SendGrid client makes (plain http in test mode)
+        Request request = new Request.Builder()
 
-        Request request = new Request();
- 
-        request.setMethod(Method.POST);
+                .url((sendGridTestMode ? "http://" : "https://") + sendGridHost + "/v3/mail/send")
 
-        request.setEndpoint("mail/send");
+                .header("Authorization", "Bearer " + sendGridApiKey)
 
-        request.setBody(mail.build());
+                .post(RequestBody.create(mail.build(), MediaType.parse("application/json")))
+
+                .build();
  
-        Response response = sg.api(request);
+        try (Response response = outboundHttpClient.newCall(request).execute()) {
  
-        System.out.println("SendGrid Email Status: " + response.getStatusCode());
+            System.out.println("SendGrid Email Status: " + response.code());
+
+            // Surface rejected sends so the notification worker retries them
+            if (response.code() >= 300) {
+
+                String body = response.body() != null ? response.body().string() : "";
+
+                throw new IOException("SendGrid returned " + response.code() + ": " + body);
+
+            }
+
+        }
 
     }
 
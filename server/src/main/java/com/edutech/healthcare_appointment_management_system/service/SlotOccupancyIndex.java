@@ -0,0 +1,220 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.entity.Appointment;
+import com.edutech.healthcare_appointment_management_system.repository.AppointmentRepository;
+import com.edutech.healthcare_appointment_management_system.repository.AppointmentRepository.SlotView;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of booked appointment times, bucketed per doctor and per day.
+ *
+ * A day bucket is loaded lazily with a bounded range query on appointmentTime, so an
+ * availability check only ever touches the one or two days around the requested time,
+ * no matter how much history the doctor has. Buckets are kept in sync on book,
+ * reschedule and delete; the least recently used days are dropped per doctor.
+ *
+ * The index answers availability on its own: a bucket younger than appointment.slot-index.ttl
+ * is trusted without querying, an older one is reloaded first. Bookings and cancellations made
+ * through other instances therefore show up here within the TTL; until then a booking into the
+ * very same slot is still refused by the (doctor_id, slot_key) constraint, after which the
+ * caller drops the stale days with {@link #invalidate}. A TTL of 0 reads the day on every check.
+ */
+@Component
+public class SlotOccupancyIndex {
+
+    // Two appointments of the same doctor must be at least one slot apart
+    static final long SLOT_MILLIS = Appointment.SLOT_MILLIS;
+
+    private final AppointmentRepository appointmentRepository;
+    private final int maxDaysPerDoctor;
+    private final long ttlNanos;
+    private final Map<Long, DoctorDays> doctors = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SlotOccupancyIndex(AppointmentRepository appointmentRepository,
+                              @Value("${appointment.slot-index.max-days-per-doctor:120}") int maxDaysPerDoctor,
+                              @Value("${appointment.slot-index.ttl:30s}") Duration ttl) {
+        this.appointmentRepository = appointmentRepository;
+        this.maxDaysPerDoctor = maxDaysPerDoctor;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    SlotOccupancyIndex(AppointmentRepository appointmentRepository, int maxDaysPerDoctor) {
+        this(appointmentRepository, maxDaysPerDoctor, Duration.ofSeconds(30));
+    }
+
+    /**
+     * True when no appointment of the doctor lies within one slot of the given time.
+     */
+    public boolean isFree(Long doctorId, Date time) {
+        return isFree(doctorId, time, null);
+    }
+
+    /**
+     * Same as {@link #isFree(Long, Date)} but ignores one appointment (the one being rescheduled).
+     */
+    public boolean isFree(Long doctorId, Date time, Long ignoredAppointmentId) {
+        long from = time.getTime() - SLOT_MILLIS;
+        long to = time.getTime() + SLOT_MILLIS;
+        DoctorDays days = daysOf(doctorId);
+        synchronized (days) {
+            for (LocalDate day = dayOf(from); !day.isAfter(dayOf(to)); day = day.plusDays(1)) {
+                NavigableMap<Long, Set<Long>> bucket = days.bucket(doctorId, day);
+                for (Set<Long> ids : bucket.subMap(from, false, to, false).values()) {
+                    for (Long id : ids) {
+                        if (!id.equals(ignoredAppointmentId)) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drops the day buckets around the given time, e.g. after the database refused a booking the
+     * index thought free, so the next lookups reload the other instance's writes.
+     */
+    public void invalidate(Long doctorId, Date time) {
+        if (doctorId == null || time == null) return;
+        DoctorDays days = daysOf(doctorId);
+        synchronized (days) {
+            for (LocalDate day = dayOf(time.getTime() - SLOT_MILLIS); !day.isAfter(dayOf(time.getTime() + SLOT_MILLIS)); day = day.plusDays(1)) {
+                days.remove(day);
+            }
+        }
+    }
+
+    /** Records a booked appointment once the surrounding transaction (if any) commits. */
+    public void add(Long doctorId, Long appointmentId, Date time) {
+        if (doctorId == null || appointmentId == null || time == null) return;
+        afterCommit(() -> {
+            DoctorDays days = daysOf(doctorId);
+            synchronized (days) {
+                days.addIfLoaded(dayOf(time.getTime()), time.getTime(), appointmentId);
+            }
+        });
+    }
+
+    /** Forgets an appointment once the surrounding transaction (if any) commits. */
+    public void remove(Long doctorId, Long appointmentId, Date time) {
+        if (doctorId == null || appointmentId == null || time == null) return;
+        afterCommit(() -> {
+            DoctorDays days = daysOf(doctorId);
+            synchronized (days) {
+                days.removeIfLoaded(dayOf(time.getTime()), time.getTime(), appointmentId);
+            }
+        });
+    }
+
+    /** Moves an appointment from one time to another (reschedule). */
+    public void move(Long doctorId, Long appointmentId, Date oldTime, Date newTime) {
+        remove(doctorId, appointmentId, oldTime);
+        add(doctorId, appointmentId, newTime);
+    }
+
+    /** Drops every cached bucket; the next lookups reload from the database. */
+    public void clear() {
+        doctors.clear();
+    }
+
+    private DoctorDays daysOf(Long doctorId) {
+        return doctors.computeIfAbsent(doctorId, id -> new DoctorDays(maxDaysPerDoctor));
+    }
+
+    private static LocalDate dayOf(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Day buckets of a single doctor (time in millis -> appointment ids), in LRU order.
+     * Callers synchronize on the instance.
+     */
+    private final class DoctorDays extends LinkedHashMap<LocalDate, Bucket> {
+
+        private final int maxDays;
+
+        DoctorDays(int maxDays) {
+            super(16, 0.75f, true);
+            this.maxDays = maxDays;
+        }
+
+        NavigableMap<Long, Set<Long>> bucket(Long doctorId, LocalDate day) {
+            Bucket bucket = get(day);
+            if (bucket == null || System.nanoTime() - bucket.loadedAt > ttlNanos) {
+                ZoneId zone = ZoneId.systemDefault();
+                Date from = Date.from(day.atStartOfDay(zone).toInstant());
+                Date to = Date.from(day.plusDays(1).atStartOfDay(zone).toInstant());
+                bucket = new Bucket();
+                for (SlotView slot : appointmentRepository.findSlotsByDoctorIdAndTimeRange(doctorId, from, to)) {
+                    if (slot.getAppointmentTime() != null) {
+                        bucket.computeIfAbsent(slot.getAppointmentTime().getTime(), t -> new HashSet<>())
+                              .add(slot.getId());
+                    }
+                }
+                put(day, bucket);
+            }
+            return bucket;
+        }
+
+        void addIfLoaded(LocalDate day, long time, Long appointmentId) {
+            NavigableMap<Long, Set<Long>> bucket = get(day);
+            if (bucket != null) {
+                bucket.computeIfAbsent(time, t -> new HashSet<>()).add(appointmentId);
+            }
+        }
+
+        void removeIfLoaded(LocalDate day, long time, Long appointmentId) {
+            NavigableMap<Long, Set<Long>> bucket = get(day);
+            if (bucket != null) {
+                Set<Long> ids = bucket.get(time);
+                if (ids != null && ids.remove(appointmentId) && ids.isEmpty()) {
+                    bucket.remove(time);
+                }
+            }
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LocalDate, Bucket> eldest) {
+            return size() > maxDays;
+        }
+    }
+
+    /** Booked times of one doctor and day, and when they were read from the database. */
+    private static final class Bucket extends TreeMap<Long, Set<Long>> {
+
+        final long loadedAt = System.nanoTime();
+    }
+}
@@ -0,0 +1,34 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+/**
+ * Specialty chosen for a symptom description, and where the answer came from.
+ */
+public class SpecialtyClassification {
+
+    public enum Source {
+        /** Confident answer of the in-process classifier; no API call made */
+        LOCAL,
+        /** Earlier LLM answer for the same normalized symptoms */
+        CACHE,
+        /** Fresh LLM answer */
+        LLM,
+        /** LLM unavailable; best local guess or General Physician */
+        FALLBACK
+    }
+
+    private final String specialty;
+    private final Source source;
+
+    public SpecialtyClassification(String specialty, Source source) {
+        this.specialty = specialty;
+        this.source = source;
+    }
+
+    public String getSpecialty() {
+        return specialty;
+    }
+
+    public Source getSource() {
+        return source;
+    }
+}
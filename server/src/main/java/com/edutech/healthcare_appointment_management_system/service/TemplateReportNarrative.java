@@ -0,0 +1,66 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.service.GroqSummaryService.MedicalReportContent;
+import com.edutech.healthcare_appointment_management_system.service.ReportService.ReportData;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the report narrative sections directly from the medical record, without a model.
+ *
+ * The text only restates what the record holds (patient, doctor, date, diagnosis and
+ * treatment) in fixed sentences, so the same record always yields the same narrative and
+ * it takes microseconds. It is the first version of a report in the TEMPLATE and
+ * TEMPLATE_THEN_LLM narrative modes, and what a report falls back to when Groq is down.
+ */
+@Component
+public class TemplateReportNarrative {
+
+    public MedicalReportContent build(ReportData data) {
+        String patient = data.patientName;
+        String doctor = "Dr. " + data.doctorName;
+        String diagnosis = clause(data.diagnosis);
+        String treatment = clause(data.treatment);
+
+        MedicalReportContent report = new MedicalReportContent();
+
+        report.chiefComplaint = String.format(
+                "%s was seen by %s on %s. The condition recorded at this visit is %s.",
+                patient, doctor, data.recordDate, diagnosis);
+
+        report.historyOfPresentIllness = String.format(
+                "This summary is generated from the medical record of %s. The presenting problem was documented " +
+                "as %s. Onset, duration and progression of symptoms are kept in the treating physician's notes " +
+                "and are not repeated here.",
+                data.recordDate, diagnosis);
+
+        report.pastMedicalHistory =
+                "No past medical history is included in this record. Earlier records of the patient list previous " +
+                "conditions, current medications and known allergies.";
+
+        report.clinicalAssessment = String.format(
+                "Diagnosis recorded by %s: %s.",
+                doctor, diagnosis);
+
+        report.treatmentPlan = String.format(
+                "Treatment prescribed: %s. The patient should follow the dosing, schedule and duration given by " +
+                "the treating physician and complete the full course unless advised otherwise.",
+                treatment);
+
+        report.followUpRecommendations = String.format(
+                "Follow up with %s as advised. Return sooner if symptoms worsen, new symptoms develop or there is " +
+                "no improvement within the expected time, and seek emergency care for severe symptoms.",
+                doctor);
+
+        return report;
+    }
+
+    // Record text as a clause inside a sentence: no trailing full stop
+    private static String clause(String s) {
+        String trimmed = s.trim();
+        while (trimmed.endsWith(".")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1).trim();
+        }
+        return trimmed.isEmpty() ? "N/A" : trimmed;
+    }
+}
@@ -1,10 +1,12 @@
 
 package com.edutech.healthcare_appointment_management_system.service;
 
+import com.edutech.healthcare_appointment_management_system.config.CacheConfig;
 import com.edutech.healthcare_appointment_management_system.entity.User;
 import com.edutech.healthcare_appointment_management_system.exception.UsernameAlreadyTakenException; // existing
 import com.edutech.healthcare_appointment_management_system.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -22,6 +24,9 @@ public class UserService implements UserDetailsService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private PatientSearchIndex patientSearchIndex;
+
     // ==========================
     // Helpers
     // ==========================
@@ -50,6 +55,8 @@ public class UserService implements UserDetailsService {
     // ==========================
     // Registration with duplicate check → 409
     // ==========================
+    // A newly registered doctor must show up in the cached doctor list
+    @CacheEvict(cacheNames = CacheConfig.DOCTORS, key = "'all'", condition = "#user instanceof T(com.edutech.healthcare_appointment_management_system.entity.Doctor)")
     public User registerUser(User user) {
 
         // Normalize username
@@ -82,7 +89,12 @@ public class UserService implements UserDetailsService {
 
         user.setPassword(passwordEncoder.encode(user.getPassword()));
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        // Same rows the patient search looks at (role = 'PATIENT')
+        if ("PATIENT".equals(saved.getRole())) {
+            patientSearchIndex.put(saved);
+        }
+        return saved;
     }
 
     // Keep for legacy usage where you still need username
@@ -0,0 +1,119 @@
+package com.edutech.healthcare_appointment_management_system.common;
+
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wrapping an AI narrative paragraph at the report's content width: the previous
+ * measure-the-whole-line-per-word loop against PdfTextLayout.
+ *
+ * Run from server/ with the GC profiler (allocation per operation):
+ *   mvn -q test-compile dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *       com.edutech.healthcare_appointment_management_system.common.PdfTextLayoutBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PdfTextLayoutBenchmark {
+
+    private static final PDFont FONT = PDType1Font.HELVETICA;
+    private static final float SIZE = 10;
+    private static final float CONTENT_WIDTH = 495f;
+
+    @Param({ "2000", "8000" })
+    public int chars;
+
+    private String narrative;
+
+    @Setup
+    public void setUp() {
+        narrative = narrative(chars, 42);
+    }
+
+    @Benchmark
+    public List<String> measureWholeLine() throws IOException {
+        return measureWholeLine(narrative, FONT, SIZE, CONTENT_WIDTH);
+    }
+
+    @Benchmark
+    public List<String> glyphTable() throws IOException {
+        return PdfTextLayout.wrap(narrative, FONT, SIZE, CONTENT_WIDTH);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PdfTextLayoutBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    /** Clinical-sounding text of roughly the given length, like the Groq report sections. */
+    public static String narrative(int chars, long seed) {
+        String[] words = { "patient", "reports", "intermittent", "headaches", "over", "the", "past", "three",
+                "weeks,", "with", "photophobia", "and", "nausea.", "Vital", "signs", "are", "stable;", "blood",
+                "pressure", "128/82", "mmHg.", "Recommend", "hydration,", "sleep", "hygiene", "follow-up", "in",
+                "two", "weeks", "(or", "sooner", "if", "symptoms", "worsen).", "Neurological", "examination",
+                "unremarkable." };
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder(chars + 20);
+        while (text.length() < chars) {
+            if (text.length() > 0) text.append(' ');
+            text.append(words[random.nextInt(words.length)]);
+        }
+        return text.toString();
+    }
+
+    /** The wrapping loop ReportService used before PdfTextLayout, kept as the baseline. */
+    static List<String> measureWholeLine(String text, PDFont font, float fontSize, float maxWidth) throws IOException {
+        List<String> lines = new ArrayList<>();
+        String[] words = text.split("\\s+");
+        StringBuilder currentLine = new StringBuilder();
+
+        for (String word : words) {
+            String testLine = currentLine.length() == 0 ? word : currentLine + " " + word;
+            float width = font.getStringWidth(testLine) / 1000 * fontSize;
+
+            if (width > maxWidth) {
+                if (currentLine.length() > 0) {
+                    lines.add(currentLine.toString());
+                    currentLine = new StringBuilder(word);
+                } else {
+                    lines.add(word);
+                    currentLine = new StringBuilder();
+                }
+            } else {
+                currentLine = new StringBuilder(testLine);
+            }
+        }
+
+        if (currentLine.length() > 0) {
+            lines.add(currentLine.toString());
+        }
+        return lines;
+    }
+}
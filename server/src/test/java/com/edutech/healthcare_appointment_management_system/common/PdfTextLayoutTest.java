@@ -0,0 +1,58 @@
+package com.edutech.healthcare_appointment_management_system.common;
+
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PdfTextLayoutTest {
+
+    private static final PDFont[] FONTS = {
+            PDType1Font.HELVETICA, PDType1Font.HELVETICA_BOLD, PDType1Font.HELVETICA_OBLIQUE, PDType1Font.TIMES_ROMAN };
+
+    @Test
+    void wrapsExactlyLikeMeasuringEachLineWithPdfBox() throws IOException {
+        for (long seed = 0; seed < 20; seed++) {
+            String text = PdfTextLayoutBenchmark.narrative(3000, seed);
+            for (PDFont font : FONTS) {
+                for (float width : new float[] { 40f, 180f, 495f }) {
+                    assertEquals(PdfTextLayoutBenchmark.measureWholeLine(text, font, 10, width),
+                            PdfTextLayout.wrap(text, font, 10, width),
+                            "seed " + seed + ", " + font.getName() + ", width " + width);
+                }
+            }
+        }
+    }
+
+    @Test
+    void edgeCasesMatchTheOriginalWrapping() throws IOException {
+        for (String text : new String[] { "", "   ", "  leading and trailing  ", "word",
+                "Supercalifragilisticexpialidocious is long", "tabs\tand\nnewlines  between words",
+                "Café résumé naïve – “quoted” £5" }) {
+            assertEquals(PdfTextLayoutBenchmark.measureWholeLine(text, PDType1Font.HELVETICA, 10, 60f),
+                    PdfTextLayout.wrap(text, PDType1Font.HELVETICA, 10, 60f), "text: " + text);
+        }
+    }
+
+    @Test
+    void widthsMatchPdfBox() throws IOException {
+        for (String text : List.of("HAMS", "Medical Case Summary Sheet",
+                "contact@hams.com | www.hams-health.com | +91 222 555 7777", "Café – “x”")) {
+            for (PDFont font : FONTS) {
+                assertEquals(font.getStringWidth(text) / 1000 * 9, PdfTextLayout.width(text, font, 9));
+                assertEquals(font.getStringWidth(text) / 1000 * 9, PdfTextLayout.fixedWidth(text, font, 9));
+            }
+        }
+    }
+
+    @Test
+    void unencodableTextFailsLikePdfBox() {
+        assertThrows(IllegalArgumentException.class, () -> PDType1Font.HELVETICA.getStringWidth("→"));
+        assertThrows(IllegalArgumentException.class, () -> PdfTextLayout.wrap("dose → 5 mg", PDType1Font.HELVETICA, 10, 495f));
+    }
+}
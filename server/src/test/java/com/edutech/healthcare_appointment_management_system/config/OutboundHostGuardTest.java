@@ -0,0 +1,145 @@
+package com.edutech.healthcare_appointment_management_system.config;
+
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboundHostGuardTest {
+
+    private HttpServer server;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final Set<Object> remotePorts = ConcurrentHashMap.newKeySet();
+    private volatile int status = 200;
+    private volatile CountDownLatch hold = new CountDownLatch(0);
+
+    private SimpleMeterRegistry meterRegistry;
+    private OutboundHostGuard guard;
+    private OkHttpClient client;
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            hits.incrementAndGet();
+            remotePorts.add(exchange.getRemoteAddress().getPort());
+            try {
+                hold.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "ok".getBytes();
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        meterRegistry = new SimpleMeterRegistry();
+        guard = new OutboundHostGuard(meterRegistry, 1, Duration.ofMillis(100), 3, Duration.ofMillis(300));
+        client = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(5, 1, TimeUnit.MINUTES))
+                .addInterceptor(OutboundHttpConfig.guardInterceptor(guard))
+                .build();
+        pool = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        hold.countDown();
+        pool.shutdownNow();
+        server.stop(0);
+    }
+
+    @Test
+    void sequentialCallsReuseOneKeepAliveConnection() throws IOException {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, call());
+        }
+        assertEquals(5, hits.get());
+        assertEquals(1, remotePorts.size(), "every call should go over the same pooled connection");
+    }
+
+    @Test
+    void circuitOpensAfterConsecutiveFailuresAndClosesAfterASuccessfulTrial() throws Exception {
+        status = 503;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(503, call());
+        }
+        assertTrue(guard.isOpen("localhost"));
+
+        // Fails fast without reaching the server
+        assertThrows(OutboundHostGuard.RejectedException.class, this::call);
+        assertEquals(3, hits.get());
+
+        Thread.sleep(350);
+        status = 200;
+        assertEquals(200, call());
+        assertFalse(guard.isOpen("localhost"));
+        assertEquals(1.0, meterRegistry.get("http.client.outbound.rejected").tag("reason", "circuit_open").counter().count());
+    }
+
+    @Test
+    void callsBeyondTheHostConcurrencyCapAreRejected() throws Exception {
+        hold = new CountDownLatch(1);
+        Future<Integer> first = pool.submit(this::call);
+        while (hits.get() == 0) {
+            Thread.sleep(5);
+        }
+
+        assertThrows(OutboundHostGuard.RejectedException.class, this::call);
+
+        hold.countDown();
+        assertEquals(200, first.get(5, TimeUnit.SECONDS));
+        assertEquals(200, call());
+    }
+
+    @Test
+    void latencyIsRecordedPerHostMethodAndStatus() throws IOException {
+        call();
+        call();
+
+        Timer timer = meterRegistry.get("http.client.outbound")
+                .tag("host", "localhost").tag("method", "GET").tag("status", "200").timer();
+        assertEquals(2, timer.count());
+        assertTrue(timer.totalTime(TimeUnit.NANOSECONDS) > 0);
+    }
+
+    private int call() throws IOException {
+        Request request = new Request.Builder()
+                .url("http://localhost:" + server.getAddress().getPort() + "/ping")
+                .build();
+        try (Response response = client.newCall(request).execute()) {
+            response.body().string();
+            return response.code();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.edutech.healthcare_appointment_management_system.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class StreamingConfigTest {
+
+    @Test
+    void mysqlDatasourcesFetchThroughACursor() {
+        HikariDataSource mysql = dataSource("jdbc:mysql://db:3306/hams");
+        StreamingConfig.enableCursorFetch(mysql);
+        assertEquals("true", mysql.getDataSourceProperties().getProperty(StreamingConfig.CURSOR_FETCH));
+    }
+
+    @Test
+    void explicitSettingsAndOtherDatabasesAreLeftAlone() {
+        HikariDataSource configured = dataSource("jdbc:mysql://db:3306/hams");
+        configured.addDataSourceProperty(StreamingConfig.CURSOR_FETCH, "false");
+        StreamingConfig.enableCursorFetch(configured);
+        assertEquals("false", configured.getDataSourceProperties().getProperty(StreamingConfig.CURSOR_FETCH));
+
+        HikariDataSource onUrl = dataSource("jdbc:mysql://db:3306/hams?useCursorFetch=false");
+        StreamingConfig.enableCursorFetch(onUrl);
+        assertNull(onUrl.getDataSourceProperties().getProperty(StreamingConfig.CURSOR_FETCH));
+
+        HikariDataSource h2 = dataSource("jdbc:h2:mem:streaming");
+        StreamingConfig.enableCursorFetch(h2);
+        assertNull(h2.getDataSourceProperties().getProperty(StreamingConfig.CURSOR_FETCH));
+    }
+
+    private static HikariDataSource dataSource(String url) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        return dataSource;
+    }
+}
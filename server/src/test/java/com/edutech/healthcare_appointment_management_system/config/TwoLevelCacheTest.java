@@ -0,0 +1,122 @@
+package com.edutech.healthcare_appointment_management_system.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two "nodes" with their own L1 share one L2; a ConcurrentMapCacheManager stands in for Redis.
+ */
+class TwoLevelCacheTest {
+
+    private static final Map<String, Duration> TTLS = Map.of(CacheConfig.DOCTORS, Duration.ofMinutes(1));
+
+    private CacheManager sharedL2;
+    private MeterRegistry metricsA;
+    private Cache nodeA;
+    private Cache nodeB;
+
+    @BeforeEach
+    void setUp() {
+        sharedL2 = new ConcurrentMapCacheManager();
+        metricsA = new SimpleMeterRegistry();
+        nodeA = manager(sharedL2, metricsA).getCache(CacheConfig.DOCTORS);
+        nodeB = manager(sharedL2, new SimpleMeterRegistry()).getCache(CacheConfig.DOCTORS);
+    }
+
+    @Test
+    void readsThroughL1ThenL2ThenLoader() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("list-v1", nodeA.get("all", () -> "list-v" + loads.incrementAndGet()));
+        assertEquals("list-v1", nodeA.get("all", () -> "list-v" + loads.incrementAndGet()));
+        // The other node misses its L1 but finds the value in the shared L2
+        assertEquals("list-v1", nodeB.get("all", () -> "list-v" + loads.incrementAndGet()));
+        assertEquals(1, loads.get());
+
+        assertEquals(1.0, count(metricsA, "l1", "hit"));
+        assertEquals(1.0, count(metricsA, "l1", "miss"));
+        assertEquals(1.0, count(metricsA, "l2", "miss"));
+    }
+
+    @Test
+    void evictionClearsBothLevels() {
+        nodeA.put("all", "list-v1");
+        nodeA.evict("all");
+
+        assertNull(nodeA.get("all"));
+        assertNull(sharedL2.getCache(CacheConfig.DOCTORS).get("all"));
+    }
+
+    @Test
+    void concurrentMissesLoadOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        for (int i = 0; i < 16; i++) {
+            pool.submit(() -> {
+                start.await();
+                return nodeA.get("all", () -> {
+                    loads.incrementAndGet();
+                    Thread.sleep(50);
+                    return List.of("doctor");
+                });
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void brokenL2DegradesToL1AndLoader() {
+        SimpleCacheManager broken = new SimpleCacheManager();
+        broken.setCaches(List.of(new ConcurrentMapCache(CacheConfig.DOCTORS) {
+            @Override
+            public ValueWrapper get(Object key) {
+                throw new IllegalStateException("redis down");
+            }
+
+            @Override
+            public void put(Object key, Object value) {
+                throw new IllegalStateException("redis down");
+            }
+        }));
+        broken.afterPropertiesSet();
+        Cache cache = manager(broken, new SimpleMeterRegistry()).getCache(CacheConfig.DOCTORS);
+
+        assertEquals("loaded", cache.get("all", () -> "loaded"));
+        assertEquals("loaded", cache.get("all", String.class));
+    }
+
+    private static TwoLevelCacheManager manager(CacheManager l2, MeterRegistry registry) {
+        return new TwoLevelCacheManager(TTLS, Duration.ofMinutes(5), Duration.ofSeconds(30), 1000, l2, registry);
+    }
+
+    private static double count(MeterRegistry registry, String level, String result) {
+        return registry.get("cache.lookups")
+                .tag("cache", CacheConfig.DOCTORS).tag("level", level).tag("result", result)
+                .counter().count();
+    }
+}
@@ -0,0 +1,91 @@
+package com.edutech.healthcare_appointment_management_system.jwt;
+
+import com.edutech.healthcare_appointment_management_system.entity.User;
+import com.edutech.healthcare_appointment_management_system.repository.JwtRevocationRepository;
+import com.edutech.healthcare_appointment_management_system.repository.UserRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JwtRequestFilterTest {
+
+    private UserDetailsService userDetailsService;
+    private JwtUtil jwtUtil;
+    private TokenRevocationService revocations;
+    private JwtRequestFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        UserRepository userRepository = mock(UserRepository.class);
+        User user = new User();
+        user.setId(7L);
+        user.setEmail("doc@example.com");
+        user.setRole("DOCTOR");
+        when(userRepository.findByEmail("doc@example.com")).thenReturn(user);
+
+        userDetailsService = mock(UserDetailsService.class);
+        jwtUtil = new JwtUtil(userRepository, 100);
+        revocations = new TokenRevocationService(mock(JwtRevocationRepository.class), true);
+        filter = new JwtRequestFilter(userDetailsService, jwtUtil, revocations, true);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void statelessModeAuthenticatesFromClaimsWithoutLoadingTheUser() throws Exception {
+        String token = jwtUtil.generateToken("doc@example.com");
+
+        Authentication auth = authenticate(token);
+
+        assertNotNull(auth);
+        JwtUserPrincipal principal = (JwtUserPrincipal) auth.getPrincipal();
+        assertEquals("doc@example.com", principal.getUsername());
+        assertEquals(7L, principal.getUserId());
+        assertTrue(auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("DOCTOR")));
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    void loggedOutTokensAreRejected() throws Exception {
+        String token = jwtUtil.generateToken("doc@example.com");
+        revocations.revokeToken(token, jwtUtil.verify(token));
+
+        assertNull(authenticate(token));
+    }
+
+    @Test
+    void passwordResetRevokesEarlierTokensOfTheUser() throws Exception {
+        String token = jwtUtil.generateToken("doc@example.com");
+        revocations.revokeAllFor("Doc@Example.com");
+
+        assertNull(authenticate(token));
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/doctor/appointments");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
@@ -0,0 +1,79 @@
+package com.edutech.healthcare_appointment_management_system.jwt;
+
+import com.edutech.healthcare_appointment_management_system.entity.User;
+import com.edutech.healthcare_appointment_management_system.repository.UserRepository;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.impl.DefaultClaims;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JwtUtilTest {
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        UserRepository userRepository = mock(UserRepository.class);
+        User user = new User();
+        user.setId(42L);
+        user.setEmail("jane@example.com");
+        user.setRole("PATIENT");
+        when(userRepository.findByEmail("jane@example.com")).thenReturn(user);
+        jwtUtil = new JwtUtil(userRepository, 2);
+    }
+
+    @Test
+    void repeatVerificationIsServedFromTheCache() {
+        String token = jwtUtil.generateToken("jane@example.com");
+
+        Claims first = jwtUtil.verify(token);
+        assertNotNull(first);
+        assertEquals("jane@example.com", first.getSubject());
+        assertEquals("PATIENT", first.get("role"));
+
+        assertSame(first, jwtUtil.verify(token));
+    }
+
+    @Test
+    void rejectsTamperedTokens() {
+        String token = jwtUtil.generateToken("jane@example.com");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertNull(jwtUtil.verify(tampered));
+        assertNull(jwtUtil.extractUsername("not-a-jwt"));
+    }
+
+    @Test
+    void cacheIsBoundedAndDropsExpiredClaims() {
+        VerifiedClaimsCache cache = new VerifiedClaimsCache(2);
+        Date now = new Date();
+
+        cache.put("a", claimsExpiringAt(now.getTime() + 60_000));
+        cache.put("b", claimsExpiringAt(now.getTime() + 60_000));
+        cache.put("c", claimsExpiringAt(now.getTime() + 60_000));
+        assertEquals(2, cache.size());
+        assertNull(cache.get("a", now));
+
+        cache.put("d", claimsExpiringAt(now.getTime() + 1_000));
+        assertNotNull(cache.get("d", now));
+        assertNull(cache.get("d", new Date(now.getTime() + 1_000)));
+    }
+
+    private static Claims claimsExpiringAt(long millis) {
+        Claims claims = new DefaultClaims();
+        claims.setSubject("someone@example.com");
+        claims.setExpiration(new Date(millis));
+        return claims;
+    }
+}
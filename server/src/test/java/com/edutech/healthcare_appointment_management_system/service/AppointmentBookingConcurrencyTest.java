@@ -0,0 +1,239 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.dto.TimeDto;
+import com.edutech.healthcare_appointment_management_system.entity.Appointment;
+import com.edutech.healthcare_appointment_management_system.entity.Doctor;
+import com.edutech.healthcare_appointment_management_system.entity.Patient;
+import com.edutech.healthcare_appointment_management_system.exception.SlotAlreadyBookedException;
+import com.edutech.healthcare_appointment_management_system.repository.AppointmentRepository;
+import com.edutech.healthcare_appointment_management_system.repository.DoctorRepository;
+import com.edutech.healthcare_appointment_management_system.repository.PatientRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:bookingdb")
+class AppointmentBookingConcurrencyTest {
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private SlotOccupancyIndex slotOccupancyIndex;
+
+    @Autowired
+    private AppointmentSlotKeyBackfill slotKeyBackfill;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private SendGridEmailService sendGridEmailService;
+
+    private Doctor doctor;
+    private Patient patient;
+
+    @BeforeEach
+    void setUp() {
+        appointmentRepository.deleteAll();
+        slotOccupancyIndex.clear();
+
+        doctor = new Doctor();
+        doctor.setUsername("stressdoctor");
+        doctor.setPassword("password");
+        doctor.setEmail("stressdoctor@example.com");
+        doctor.setSpecialty("Cardiologist");
+        doctor = doctorRepository.save(doctor);
+
+        patient = new Patient();
+        patient.setUsername("stresspatient");
+        patient.setPassword("password");
+        patient.setEmail("stresspatient@example.com");
+        patient = patientRepository.save(patient);
+    }
+
+    @AfterEach
+    void tearDown() {
+        appointmentRepository.deleteAll();
+        doctorRepository.deleteAll();
+        patientRepository.deleteAll();
+    }
+
+    @Test
+    void parallelBookingsForOneDoctorNeverOverlap() throws Exception {
+        int threads = 32;
+        int attempts = 3000;
+        // Requested times fall on any minute of an 8-hour day, so most attempts collide
+        long dayStart = at(2030, 1, 15, 9, 0).getTime();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+
+        for (int i = 0; i < attempts; i++) {
+            pool.submit(() -> {
+                Date time = new Date(dayStart + ThreadLocalRandom.current().nextInt(8 * 60) * 60_000L);
+                try {
+                    start.await();
+                    appointmentService.scheduleAppointment(patient.getId(), doctor.getId(), new TimeDto(time));
+                    booked.incrementAndGet();
+                } catch (SlotAlreadyBookedException e) {
+                    rejected.incrementAndGet();
+                } catch (Throwable t) {
+                    unexpected.add(t);
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(2, TimeUnit.MINUTES));
+
+        assertTrue(unexpected.isEmpty(), () -> "unexpected failures: " + unexpected);
+        assertEquals(attempts, booked.get() + rejected.get());
+
+        List<Long> times = new ArrayList<>();
+        for (Appointment a : appointmentRepository.getAppointmentsByDoctorId(doctor.getId())) {
+            times.add(a.getAppointmentTime().getTime());
+        }
+        times.sort(Long::compare);
+        assertEquals(booked.get(), times.size());
+        for (int i = 1; i < times.size(); i++) {
+            assertTrue(times.get(i) - times.get(i - 1) >= Appointment.SLOT_MILLIS,
+                    "overlapping appointments at " + new Date(times.get(i - 1)) + " and " + new Date(times.get(i)));
+        }
+    }
+
+    @Test
+    void databaseRejectsSameSlotWrittenBehindTheIndexesBack() {
+        Date nine = at(2030, 1, 16, 9, 0);
+        appointmentService.scheduleAppointment(patient.getId(), doctor.getId(), new TimeDto(nine));
+
+        // Another server instance writing the same slot directly
+        Appointment other = new Appointment();
+        other.setDoctor(doctor);
+        other.setPatient(patient);
+        other.setAppointmentTime(at(2030, 1, 16, 9, 5));
+        other.setStatus("Scheduled");
+        assertThrows(DataIntegrityViolationException.class, () -> appointmentRepository.saveAndFlush(other));
+    }
+
+    @Test
+    void backfillKeysOlderRowsAndReportsSlotConflicts() {
+        // Rows from before slot_key: two bookings in one 15-minute slot, and one on its own
+        Appointment first = legacy(at(2030, 1, 18, 9, 0));
+        Appointment second = legacy(at(2030, 1, 18, 9, 5));
+        Appointment alone = legacy(at(2030, 1, 18, 10, 0));
+
+        assertEquals(List.of(second.getId()), slotKeyBackfill.backfill());
+        assertEquals(Math.floorDiv(first.getAppointmentTime().getTime(), Appointment.SLOT_MILLIS), slotKeyOf(first));
+        assertEquals(Math.floorDiv(alone.getAppointmentTime().getTime(), Appointment.SLOT_MILLIS), slotKeyOf(alone));
+        assertNull(slotKeyOf(second));
+
+        // Now protected by the constraint
+        Appointment again = new Appointment();
+        again.setDoctor(doctor);
+        again.setPatient(patient);
+        again.setAppointmentTime(at(2030, 1, 18, 10, 10));
+        again.setStatus("Scheduled");
+        assertThrows(DataIntegrityViolationException.class, () -> appointmentRepository.saveAndFlush(again));
+
+        assertEquals(List.of(second.getId()), slotKeyBackfill.backfill());
+    }
+
+    private Appointment legacy(Date time) {
+        Appointment appointment = new Appointment();
+        appointment.setDoctor(doctor);
+        appointment.setPatient(patient);
+        appointment.setAppointmentTime(time);
+        appointment.setStatus("Scheduled");
+        // Saved with an unused key first, then cleared as a pre-slot_key row would be
+        appointment = appointmentRepository.saveAndFlush(appointment);
+        jdbcTemplate.update("update appointment set slot_key = null where id = ?", appointment.getId());
+        return appointment;
+    }
+
+    private Long slotKeyOf(Appointment appointment) {
+        return jdbcTemplate.queryForObject("select slot_key from appointment where id = ?", Long.class,
+                appointment.getId());
+    }
+
+    @Test
+    void instancesSeeEachOthersBookingsAndCancellations() throws InterruptedException {
+        // Server instances over one database: own slot index, own booking locks
+        AppointmentService a = instance(Duration.ofHours(1));
+        AppointmentService b = instance(Duration.ofHours(1));
+        AppointmentService c = instance(Duration.ofMillis(500));
+        Date ten20 = at(2030, 1, 17, 10, 20);
+
+        // A has the day cached before B books on it
+        a.scheduleAppointment(patient.getId(), doctor.getId(), new TimeDto(at(2030, 1, 17, 9, 0)));
+        Appointment onB = b.scheduleAppointment(patient.getId(), doctor.getId(), new TimeDto(at(2030, 1, 17, 10, 10)));
+
+        // A's cached day still looks free there: the slot constraint refuses the same 15-minute key,
+        // and the refusal makes A reload the day, so the overlapping time in the next key is refused too
+        assertThrows(SlotAlreadyBookedException.class,
+                () -> a.scheduleAppointment(patient.getId(), doctor.getId(), new TimeDto(at(2030, 1, 17, 10, 5))));
+        assertThrows(SlotAlreadyBookedException.class,
+                () -> a.scheduleAppointment(patient.getId(), doctor.getId(), new TimeDto(ten20)));
+        assertThrows(SlotAlreadyBookedException.class,
+                () -> c.scheduleAppointment(patient.getId(), doctor.getId(), new TimeDto(ten20)));
+
+        // Cancelled on B: C's cached day still holds the booking, until its TTL runs out
+        b.deleteAppointment(onB.getId());
+        Thread.sleep(600);
+        c.scheduleAppointment(patient.getId(), doctor.getId(), new TimeDto(ten20));
+        assertEquals(2, appointmentRepository.getAppointmentsByDoctorId(doctor.getId()).size());
+    }
+
+    private AppointmentService instance(Duration indexTtl) {
+        AppointmentService service = new AppointmentService();
+        ReflectionUtils.shallowCopyFieldState(AopTestUtils.getTargetObject(appointmentService), service);
+        ReflectionTestUtils.setField(service, "slotOccupancyIndex",
+                new SlotOccupancyIndex(appointmentRepository, 120, indexTtl));
+        ReflectionTestUtils.setField(service, "doctorBookingLocks", new DoctorBookingLocks(64));
+        return service;
+    }
+
+    private static Date at(int year, int month, int day, int hour, int minute) {
+        return Date.from(LocalDateTime.of(year, month, day, hour, minute).atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -0,0 +1,183 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.dto.TimeDto;
+import com.edutech.healthcare_appointment_management_system.entity.Appointment;
+import com.edutech.healthcare_appointment_management_system.entity.AppointmentNotification;
+import com.edutech.healthcare_appointment_management_system.entity.Doctor;
+import com.edutech.healthcare_appointment_management_system.entity.Patient;
+import com.edutech.healthcare_appointment_management_system.repository.AppointmentNotificationRepository;
+import com.edutech.healthcare_appointment_management_system.repository.AppointmentRepository;
+import com.edutech.healthcare_appointment_management_system.repository.DoctorRepository;
+import com.edutech.healthcare_appointment_management_system.repository.PatientRepository;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the confirmation pipeline end to end against a local fake of the SendGrid mail/send endpoint.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:notificationdb",
+        "sendgrid.api.test-mode=true",
+        "notification.retry-backoff-ms=100",
+        "notification.poll-interval-ms=200"
+})
+class AppointmentNotificationPipelineTest {
+
+    private static final HttpServer fakeSendGrid;
+    private static final List<String> received = new CopyOnWriteArrayList<>();
+    private static final AtomicInteger failuresToReturn = new AtomicInteger();
+    private static volatile long responseDelayMs;
+
+    static {
+        try {
+            fakeSendGrid = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        fakeSendGrid.createContext("/v3/mail/send", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            try {
+                Thread.sleep(responseDelayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(body);
+            int status = failuresToReturn.getAndUpdate(n -> Math.max(0, n - 1)) > 0 ? 500 : 202;
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        fakeSendGrid.start();
+    }
+
+    @DynamicPropertySource
+    static void sendGridHost(DynamicPropertyRegistry registry) {
+        registry.add("sendgrid.api.host", () -> "localhost:" + fakeSendGrid.getAddress().getPort());
+    }
+
+    @AfterAll
+    static void stopFakeSendGrid() {
+        fakeSendGrid.stop(0);
+    }
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private AppointmentNotificationRepository notificationRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    private Doctor doctor;
+    private Patient patient;
+
+    @BeforeEach
+    void setUp() {
+        received.clear();
+        failuresToReturn.set(0);
+        responseDelayMs = 0;
+
+        doctor = new Doctor();
+        doctor.setUsername("maildoctor");
+        doctor.setPassword("password");
+        doctor.setEmail("maildoctor@example.com");
+        doctor.setSpecialty("Dermatologist");
+        doctor = doctorRepository.save(doctor);
+
+        patient = new Patient();
+        patient.setUsername("mailpatient");
+        patient.setPassword("password");
+        patient.setEmail("mailpatient@example.com");
+        patient = patientRepository.save(patient);
+    }
+
+    @AfterEach
+    void tearDown() {
+        notificationRepository.deleteAll();
+        appointmentRepository.deleteAll();
+        doctorRepository.deleteAll();
+        patientRepository.deleteAll();
+    }
+
+    @Test
+    void bookingReturnsWithoutWaitingForTheMailProvider() throws Exception {
+        responseDelayMs = 3000;
+
+        long started = System.nanoTime();
+        Appointment saved = appointmentService.scheduleAppointment(
+                patient.getId(), doctor.getId(), new TimeDto(at(2030, 3, 1, 10, 0)));
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+        assertTrue(elapsedMs < 2000, "booking waited " + elapsedMs + " ms for the mail provider");
+
+        AppointmentNotification notification = awaitNotification(saved.getId(), AppointmentNotification.STATUS_SENT);
+        assertEquals(1, notification.getAttempts());
+        assertEquals(1, received.size());
+        assertTrue(received.get(0).contains("mailpatient@example.com"));
+        assertTrue(received.get(0).contains("appointment-qr.png"));
+    }
+
+    @Test
+    void rejectedSendsAreRetriedWithBackoff() throws Exception {
+        failuresToReturn.set(2);
+
+        Appointment saved = appointmentService.scheduleAppointment(
+                patient.getId(), doctor.getId(), new TimeDto(at(2030, 3, 2, 10, 0)));
+
+        AppointmentNotification notification = awaitNotification(saved.getId(), AppointmentNotification.STATUS_SENT);
+        assertEquals(3, notification.getAttempts());
+        assertEquals(3, received.size());
+    }
+
+    private AppointmentNotification awaitNotification(Long appointmentId, String status) throws InterruptedException {
+        AppointmentNotification[] found = new AppointmentNotification[1];
+        BooleanSupplier reached = () -> {
+            for (AppointmentNotification n : notificationRepository.findAll()) {
+                if (appointmentId.equals(n.getAppointmentId()) && status.equals(n.getStatus())) {
+                    found[0] = n;
+                    return true;
+                }
+            }
+            return false;
+        };
+        long deadline = System.currentTimeMillis() + 15_000;
+        while (!reached.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "notification never reached " + status);
+            Thread.sleep(50);
+        }
+        return found[0];
+    }
+
+    private static Date at(int year, int month, int day, int hour, int minute) {
+        return Date.from(LocalDateTime.of(year, month, day, hour, minute).atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -0,0 +1,117 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Streams chat replies from a local fake of Groq's streaming chat completions endpoint.
+ */
+class ChatbotServiceTest {
+
+    private HttpServer fakeGroq;
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final CountDownLatch releaseRest = new CountDownLatch(1);
+
+    private ChatbotService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fakeGroq = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        fakeGroq.createContext("/openai/v1/chat/completions", exchange -> {
+            requests.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                chunk(out, "{\"choices\":[{\"delta\":{\"role\":\"assistant\"}}]}");
+                chunk(out, "{\"choices\":[{\"delta\":{\"content\":\"Hello\"}}]}");
+                // Hold the rest of the answer back until the test has seen the first token
+                releaseRest.await(5, TimeUnit.SECONDS);
+                chunk(out, "{\"choices\":[{\"delta\":{\"content\":\" there\"}}]}");
+                chunk(out, "{\"choices\":[{\"delta\":{\"content\":\"!\"}}]}");
+                chunk(out, "[DONE]");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        fakeGroq.setExecutor(Executors.newCachedThreadPool());
+        fakeGroq.start();
+
+        service = new ChatbotService(WebClient.builder(), new GroqGateway(new SimpleMeterRegistry()),
+                "http://localhost:" + fakeGroq.getAddress().getPort());
+        ReflectionTestUtils.setField(service, "apiKey", "test-key");
+        ReflectionTestUtils.setField(service, "model", "test-model");
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseRest.countDown();
+        fakeGroq.stop(0);
+    }
+
+    @Test
+    void tokensArriveWhileTheModelIsStillGenerating() throws Exception {
+        BlockingQueue<String> tokens = new LinkedBlockingQueue<>();
+        CountDownLatch completed = new CountDownLatch(1);
+        service.streamChat("How do I book an appointment?")
+               .subscribe(tokens::add, e -> completed.countDown(), completed::countDown);
+
+        assertEquals("Hello", tokens.poll(5, TimeUnit.SECONDS));
+        assertEquals(1, completed.getCount(), "stream must still be open before the rest is generated");
+
+        releaseRest.countDown();
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(" there", "!"), List.copyOf(tokens));
+        assertTrue(requests.get(0).contains("\"stream\":true"));
+    }
+
+    @Test
+    void identicalMessagesInFlightShareOneUpstreamStream() throws Exception {
+        BlockingQueue<String> first = new LinkedBlockingQueue<>();
+        BlockingQueue<String> second = new LinkedBlockingQueue<>();
+        CountDownLatch completed = new CountDownLatch(2);
+
+        service.streamChat("Clinic contact details").subscribe(first::add, e -> completed.countDown(), completed::countDown);
+        assertEquals("Hello", first.poll(5, TimeUnit.SECONDS));
+        service.streamChat("Clinic contact details").subscribe(second::add, e -> completed.countDown(), completed::countDown);
+
+        releaseRest.countDown();
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(" there", "!"), List.copyOf(first));
+        assertEquals(List.of("Hello", " there", "!"), List.copyOf(second));
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    void chatJoinsTheStreamedTokens() {
+        releaseRest.countDown();
+        assertEquals("Hello there!", service.chat("Doctor availability").block(Duration.ofSeconds(5)));
+    }
+
+    private static void chunk(OutputStream out, String data) throws IOException {
+        out.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+}
@@ -0,0 +1,104 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.config.CacheConfig;
+import com.edutech.healthcare_appointment_management_system.dto.DoctorProfileRequestDTO;
+import com.edutech.healthcare_appointment_management_system.entity.Doctor;
+import com.edutech.healthcare_appointment_management_system.repository.DoctorRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:doctorcachedb")
+class DoctorServiceCacheTest {
+
+    @Autowired
+    private DoctorService doctorService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @SpyBean
+    private DoctorRepository doctorRepository;
+
+    private Doctor doctor;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        doctor = new Doctor();
+        doctor.setUsername("cacheddoctor");
+        doctor.setPassword("password");
+        doctor.setEmail("cacheddoctor@example.com");
+        doctor.setSpecialty("Neurologist");
+        doctor.setAvailability("Mon-Fri");
+        doctor = doctorRepository.save(doctor);
+        clearInvocations(doctorRepository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        doctorRepository.deleteAll();
+    }
+
+    @Test
+    void doctorListIsServedFromCacheUntilAvailabilityChanges() throws Exception {
+        doctorService.getDoctors();
+        doctorService.getDoctors();
+        verify(doctorRepository, times(1)).findAll();
+
+        doctorService.updateAvailability(doctor.getId(), "Weekends");
+
+        assertEquals("Weekends", doctorService.getDoctors().get(0).getAvailability());
+        verify(doctorRepository, times(2)).findAll();
+    }
+
+    @Test
+    void sharedCacheHoldsDtosWithoutCredentials() throws Exception {
+        doctorService.getDoctors();
+        doctorService.getDoctorProfile(doctor.getId());
+        doctorService.getDoctorBrief(doctor.getId());
+
+        RedisSerializer<Object> serializer = CacheConfig.redisValueSerializer();
+        for (String name : List.of(CacheConfig.DOCTORS, CacheConfig.DOCTOR_PROFILES, CacheConfig.DOCTOR_BRIEFS)) {
+            Object key = CacheConfig.DOCTORS.equals(name) ? "all" : doctor.getId();
+            Object value = cacheManager.getCache(name).get(key).get();
+            String json = new String(serializer.serialize(value), StandardCharsets.UTF_8);
+            assertFalse(json.contains(".entity."), name + " holds an entity: " + json);
+            assertFalse(json.contains("password"), name + " holds a password: " + json);
+            assertEquals(json, new String(serializer.serialize(serializer.deserialize(serializer.serialize(value))),
+                    StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void profileAndBriefAreCachedAndEvictedOnProfileUpdate() throws Exception {
+        doctorService.getDoctorProfile(doctor.getId());
+        doctorService.getDoctorProfile(doctor.getId());
+        doctorService.getDoctorBrief(doctor.getId());
+        doctorService.getDoctorBrief(doctor.getId());
+        verify(doctorRepository, times(2)).findById(anyLong());
+
+        DoctorProfileRequestDTO update = new DoctorProfileRequestDTO();
+        update.setSpecialty("Cardiologist");
+        doctorService.updateDoctorProfile(doctor.getId(), update);
+
+        assertEquals("Cardiologist", doctorService.getDoctorProfile(doctor.getId()).getSpecialty());
+        verify(doctorRepository, times(4)).findById(anyLong());
+    }
+}
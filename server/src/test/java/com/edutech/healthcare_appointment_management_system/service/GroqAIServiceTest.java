@@ -0,0 +1,85 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.common.SymptomNormalizer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class GroqAIServiceTest {
+
+    private static final String URL = "http://groq.test/openai/v1/chat/completions";
+
+    private MockRestServiceServer groq;
+    private SimpleMeterRegistry meterRegistry;
+    private GroqAIService service;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        groq = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+        meterRegistry = new SimpleMeterRegistry();
+        service = new GroqAIService(restTemplate, meterRegistry, 100, Duration.ofHours(1));
+        ReflectionTestUtils.setField(service, "apiUrl", URL);
+        ReflectionTestUtils.setField(service, "apiKey", "test-key");
+        ReflectionTestUtils.setField(service, "model", "test-model");
+    }
+
+    @Test
+    void normalizesAwayWordingDifferences() {
+        assertEquals(SymptomNormalizer.normalize("Chest pain and shortness of breath"),
+                SymptomNormalizer.normalize("I have shortness of breath, chest PAIN!"));
+        assertEquals("breath chest pain shortness", SymptomNormalizer.normalize("Chest pain and shortness of breath"));
+    }
+
+    @Test
+    void rephrasedSymptomsAreAnsweredFromTheCache() {
+        groq.expect(ExpectedCount.once(), requestTo(URL)).andExpect(method(HttpMethod.POST))
+            .andRespond(withSuccess(answer("Cardiologist"), MediaType.APPLICATION_JSON));
+
+        assertEquals("Cardiologist", service.getSpecialtyFromSymptoms("Chest pain and shortness of breath"));
+        assertEquals("Cardiologist", service.getSpecialtyFromSymptoms("shortness of breath, chest pain"));
+        assertEquals("Cardiologist", service.getSpecialtyFromSymptoms("I have chest pain and shortness of breath"));
+
+        groq.verify();
+        assertEquals(2.0, cacheGets("hit"));
+        assertEquals(1.0, cacheGets("miss"));
+    }
+
+    @Test
+    void upstreamFailuresAreNotCached() {
+        groq.expect(ExpectedCount.once(), requestTo(URL)).andRespond(withServerError());
+        groq.expect(ExpectedCount.once(), requestTo(URL))
+            .andRespond(withSuccess(answer("Dermatologist"), MediaType.APPLICATION_JSON));
+
+        assertEquals("General Physician", service.getSpecialtyFromSymptoms("itchy red rash on both arms"));
+        assertEquals("Dermatologist", service.getSpecialtyFromSymptoms("itchy red rash on both arms"));
+        groq.verify();
+        assertEquals(0.0, cacheGets("hit"));
+        assertEquals(2.0, cacheGets("miss"));
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "symptomSpecialty").tag("result", result)
+                .functionCounter().count();
+    }
+
+    private static String answer(String content) {
+        return "{\"choices\":[{\"message\":{\"content\":\"" + content + "\"}}]}";
+    }
+}
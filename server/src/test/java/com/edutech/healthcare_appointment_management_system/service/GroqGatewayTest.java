@@ -0,0 +1,130 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.exception.GroqRateLimitedException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GroqGatewayTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        pool = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void waitingCallsAreServedByLanePriority() throws Exception {
+        // One token every 100 ms once the 429 back-off is over
+        GroqGateway gateway = new GroqGateway(meterRegistry, 600, 1,
+                Duration.ofSeconds(10), Duration.ofSeconds(10), Duration.ofSeconds(10));
+        gateway.rateLimited(Duration.ofMillis(500));
+
+        List<GroqGateway.Lane> order = new CopyOnWriteArrayList<>();
+        List<Future<?>> calls = new ArrayList<>();
+        for (GroqGateway.Lane lane : new GroqGateway.Lane[] {
+                GroqGateway.Lane.CHAT, GroqGateway.Lane.REPORT, GroqGateway.Lane.CLASSIFICATION }) {
+            calls.add(pool.submit(() -> gateway.execute(lane, lane.name(), () -> order.add(lane))));
+            awaitTrue(() -> queueDepth(lane) == 1);
+        }
+        for (Future<?> call : calls) {
+            call.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(List.of(GroqGateway.Lane.CLASSIFICATION, GroqGateway.Lane.REPORT, GroqGateway.Lane.CHAT), order);
+        assertTrue(meterRegistry.get("groq.gateway.wait").tag("lane", "chat").timer()
+                .totalTime(TimeUnit.MILLISECONDS) >= 500);
+    }
+
+    @Test
+    void identicalCallsInFlightShareOneRequest() throws Exception {
+        GroqGateway gateway = new GroqGateway(meterRegistry);
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> callers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            callers.add(pool.submit(() -> gateway.execute(GroqGateway.Lane.CHAT, "same prompt", () -> {
+                upstreamCalls.incrementAndGet();
+                release.await();
+                return "answer";
+            })));
+        }
+        awaitTrue(() -> requests("chat", "coalesced") == 4);
+        release.countDown();
+
+        for (Future<String> caller : callers) {
+            assertEquals("answer", caller.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(1.0, requests("chat", "executed"));
+    }
+
+    @Test
+    void callsThatCannotGetATokenInTimeAreRejected() {
+        GroqGateway gateway = new GroqGateway(meterRegistry, 1, 1,
+                Duration.ofMillis(50), Duration.ofMillis(50), Duration.ofMillis(50));
+
+        assertEquals("first", gateway.execute(GroqGateway.Lane.CLASSIFICATION, "a", () -> "first"));
+        assertThrows(GroqRateLimitedException.class,
+                () -> gateway.execute(GroqGateway.Lane.CLASSIFICATION, "b", () -> "second"));
+        assertEquals(1.0, requests("classification", "rejected"));
+    }
+
+    @Test
+    void failedCallsAreRethrownAndNotRemembered() {
+        GroqGateway gateway = new GroqGateway(meterRegistry);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> gateway.execute(GroqGateway.Lane.REPORT, "p", () -> {
+                    throw new IOException("connection reset");
+                }));
+        assertEquals("connection reset", e.getMessage());
+        // The failed flight is gone, so the next identical call goes upstream again
+        assertEquals("ok", gateway.execute(GroqGateway.Lane.REPORT, "p", () -> "ok"));
+    }
+
+    private double queueDepth(GroqGateway.Lane lane) {
+        return meterRegistry.get("groq.gateway.queue.depth").tag("lane", lane.name().toLowerCase()).gauge().value();
+    }
+
+    private double requests(String lane, String outcome) {
+        return meterRegistry.get("groq.gateway.requests").tag("lane", lane).tag("outcome", outcome).counter().count();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not reached in time");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class LocalSpecialtyClassifierTest {
+
+    private static final String URL = "http://groq.test/openai/v1/chat/completions";
+
+    private static LocalSpecialtyClassifier classifier;
+    private static List<String[]> benchmark;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        classifier = new LocalSpecialtyClassifier(true, 0.85, new ClassPathResource("classifier/specialty-seed.tsv"));
+        benchmark = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ClassPathResource("classifier/symptom-benchmark.tsv").getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                benchmark.add(line.split("\t", 2));
+            }
+        }
+    }
+
+    @Test
+    void answersMostHeldOutSymptomsLocallyAndAccurately() {
+        int confident = 0;
+        int correct = 0;
+        for (String[] example : benchmark) {
+            LocalSpecialtyClassifier.Prediction p = classifier.predict(example[1]);
+            if (p.isConfident()) {
+                confident++;
+                if (example[0].equals(p.getSpecialty())) correct++;
+            }
+        }
+        double coverage = (double) confident / benchmark.size();
+        double accuracy = (double) correct / confident;
+        System.out.printf("local classifier: coverage %.1f%%, accuracy %.1f%% over %d examples%n",
+                coverage * 100, accuracy * 100, benchmark.size());
+
+        assertTrue(coverage >= 0.6, "too few confident answers: " + coverage);
+        assertTrue(accuracy >= 0.9, "confident answers not accurate enough: " + accuracy);
+    }
+
+    @Test
+    void classifiesInMicroseconds() {
+        for (int i = 0; i < 20_000; i++) {
+            classifier.predict(benchmark.get(i % benchmark.size())[1]);
+        }
+        int rounds = 100_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            classifier.predict(benchmark.get(i % benchmark.size())[1]);
+        }
+        double micros = (System.nanoTime() - start) / 1000.0 / rounds;
+        System.out.printf("local classifier: %.2f us per prediction (%.0f/s)%n", micros, 1_000_000 / micros);
+
+        // Against a few hundred milliseconds per LLM round trip; generous for slow CI machines
+        assertTrue(micros < 500, "prediction too slow: " + micros + " us");
+    }
+
+    @Test
+    void unknownOrVagueSymptomsAreNotConfident() {
+        LocalSpecialtyClassifier.Prediction unknown = classifier.predict("xyzzy quux");
+        assertFalse(unknown.isConfident());
+        assertNull(unknown.getSpecialty());
+
+        assertFalse(classifier.predict("pain").isConfident());
+    }
+
+    @Test
+    void rejectsCorpusWithUnknownSpecialty() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new LocalSpecialtyClassifier(true, 0.85, new StringReader("Astrologer\tstars misaligned\n")));
+    }
+
+    @Test
+    void onlyAmbiguousSymptomsReachTheLlm() {
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer groq = MockRestServiceServer.bindTo(restTemplate).build();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        GroqAIService service = new GroqAIService(restTemplate, classifier, new GroqGateway(meterRegistry),
+                meterRegistry, 100, Duration.ofHours(1));
+        ReflectionTestUtils.setField(service, "apiUrl", URL);
+        ReflectionTestUtils.setField(service, "apiKey", "test-key");
+        ReflectionTestUtils.setField(service, "model", "test-model");
+
+        groq.expect(ExpectedCount.once(), requestTo(URL))
+            .andRespond(withSuccess("{\"choices\":[{\"message\":{\"content\":\"Neurologist\"}}]}", MediaType.APPLICATION_JSON));
+        groq.expect(ExpectedCount.once(), requestTo(URL)).andRespond(withServerError());
+
+        SpecialtyClassification local = service.classify("chest pain radiating to my left arm with sweating");
+        assertEquals("Cardiologist", local.getSpecialty());
+        assertEquals(SpecialtyClassification.Source.LOCAL, local.getSource());
+
+        SpecialtyClassification llm = service.classify("pain");
+        assertEquals("Neurologist", llm.getSpecialty());
+        assertEquals(SpecialtyClassification.Source.LLM, llm.getSource());
+        assertEquals(SpecialtyClassification.Source.CACHE, service.classify("Pain!").getSource());
+
+        SpecialtyClassification fallback = service.classify("weird unexplained feeling xyzzy");
+        assertEquals("General Physician", fallback.getSpecialty());
+        assertEquals(SpecialtyClassification.Source.FALLBACK, fallback.getSource());
+
+        groq.verify();
+        assertEquals(1.0, meterRegistry.get("symptom.classifications").tag("source", "local").counter().count());
+        assertEquals(1.0, meterRegistry.get("symptom.classifications").tag("source", "llm").counter().count());
+    }
+}
@@ -0,0 +1,176 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.dto.CursorPage;
+import com.edutech.healthcare_appointment_management_system.dto.MedicalRecordView;
+import com.edutech.healthcare_appointment_management_system.entity.Doctor;
+import com.edutech.healthcare_appointment_management_system.entity.MedicalRecord;
+import com.edutech.healthcare_appointment_management_system.entity.Patient;
+import com.edutech.healthcare_appointment_management_system.repository.DoctorRepository;
+import com.edutech.healthcare_appointment_management_system.repository.MedicalRecordRepository;
+import com.edutech.healthcare_appointment_management_system.repository.PatientRepository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:recordviewdb")
+class MedicalHistoryPagingTest {
+
+    @Autowired
+    private MedicalRecordService medicalRecordService;
+
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Patient patient;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        patient = new Patient();
+        patient.setUsername("historypatient");
+        patient.setPassword("password");
+        patient.setEmail("historypatient@example.com");
+        patient = patientRepository.save(patient);
+    }
+
+    @AfterEach
+    void tearDown() {
+        statistics.setStatisticsEnabled(false);
+        medicalRecordRepository.deleteAll();
+        doctorRepository.deleteAll();
+        patientRepository.deleteAll();
+    }
+
+    @Test
+    void aHistoryPageIsOneQueryHoweverManyDoctorsItShows() {
+        addRecords(1);
+        assertEquals(1, statementsFor(1));
+
+        // A different doctor on every record: lazy loading would cost one query each
+        addRecords(39);
+        assertEquals(1, statementsFor(40));
+    }
+
+    @Test
+    void viewsCarryThePatientAndDoctorBriefs() {
+        addRecords(2);
+
+        List<MedicalRecordView> views = history(null, null).getItems();
+
+        assertEquals(2, views.size());
+        MedicalRecordView newest = views.get(0);
+        assertEquals(patient.getId(), newest.getPatient().getId());
+        assertEquals("historypatient", newest.getPatient().getUsername());
+        assertEquals("historydoctor1", newest.getDoctor().getUsername());
+        assertEquals("Diagnosis 1", newest.getDiagnosis());
+        assertEquals("historydoctor0", views.get(1).getDoctor().getUsername());
+    }
+
+    @Test
+    void pagesWalkTheHistoryNewestFirstWithoutGapsOrRepeats() {
+        addRecords(7);
+        // Same day as others (ties broken by id), and undated rows, which come last
+        Doctor doctor = doctorRepository.findAll().get(0);
+        LocalDateTime day = LocalDateTime.of(2026, 1, 3, 9, 0);
+        for (int i = 0; i < 3; i++) {
+            medicalRecordRepository.save(new MedicalRecord(null, patient, doctor, "Same day " + i, "Treatment", day));
+            medicalRecordRepository.save(new MedicalRecord(null, patient, doctor, "Undated " + i, "Treatment", null));
+        }
+        List<Long> expected = medicalRecordRepository.findAll().stream()
+                .sorted(Comparator.comparing(MedicalRecord::getRecordDate,
+                                Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+                        .thenComparing(MedicalRecord::getId).reversed())
+                .map(MedicalRecord::getId)
+                .collect(Collectors.toList());
+
+        List<Long> paged = new ArrayList<>();
+        String after = null;
+        int pages = 0;
+        do {
+            CursorPage<MedicalRecordView> page = history(after, 3);
+            assertTrue(page.getItems().size() <= 3);
+            page.getItems().forEach(view -> paged.add(view.getId()));
+            after = page.getNextCursor();
+            pages++;
+        } while (after != null);
+
+        assertEquals(expected, paged);
+        assertEquals(5, pages);
+
+        List<Long> streamed = new ArrayList<>();
+        medicalRecordService.streamPatientMedicalHistory(patient.getId(), view -> streamed.add(view.getId()));
+        assertEquals(expected, streamed);
+    }
+
+    @Test
+    void pageSizeIsCappedAndBadCursorsAreRejected() {
+        addRecords(60);
+
+        assertEquals(50, history(null, null).getItems().size());
+        CursorPage<MedicalRecordView> first = history(null, 500);
+        assertEquals(50, first.getItems().size());
+        assertNotNull(first.getNextCursor());
+        CursorPage<MedicalRecordView> last = history(first.getNextCursor(), 500);
+        assertEquals(10, last.getItems().size());
+        assertNull(last.getNextCursor());
+
+        assertThrows(IllegalArgumentException.class, () -> history("yesterday,12", null));
+        assertThrows(IllegalArgumentException.class, () -> history("2026-01-01T09:00,x", null));
+    }
+
+    private CursorPage<MedicalRecordView> history(String after, Integer limit) {
+        return medicalRecordService.getPatientMedicalHistory(patient.getId(), after, limit);
+    }
+
+    private long statementsFor(int expectedRows) {
+        statistics.clear();
+        List<MedicalRecordView> views = history(null, expectedRows).getItems();
+        assertEquals(expectedRows, views.size());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void addRecords(int count) {
+        long existing = medicalRecordRepository.count();
+        for (int i = 0; i < count; i++) {
+            long n = existing + i;
+            Doctor doctor = new Doctor();
+            doctor.setUsername("historydoctor" + n);
+            doctor.setPassword("password");
+            doctor.setEmail("historydoctor" + n + "@example.com");
+            doctor.setSpecialty("Cardiologist");
+            doctor = doctorRepository.save(doctor);
+            medicalRecordRepository.save(new MedicalRecord(null, patient, doctor, "Diagnosis " + n, "Treatment " + n,
+                    LocalDateTime.of(2026, 1, 1, 9, 0).plusDays(n)));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.repository.PatientRepository.SearchEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Patient search box: PatientSearchIndex against the LIKE query it replaces
+ * (PatientRepository.searchPatients) on an in-memory H2 users table with the same rows.
+ * The index returns the top patients.search.max-results (50), the SQL every match, as the
+ * endpoint did before. Prints the heap used by the index after each trial's setup.
+ *
+ * Run from server/ like PdfTextLayoutBenchmark, with this class name. The 1M trials need
+ * a couple of GB of heap for H2 and the index side by side.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class PatientSearchBenchmark {
+
+    private static final String[] SYLLABLES = { "an", "bel", "cor", "da", "el", "fin", "gra", "ho", "is", "jo",
+            "ka", "li", "mar", "no", "ol", "pe", "qu", "ro", "sa", "ti", "ur", "vi", "wen", "xa", "yo", "ze" };
+    private static final String[] DOMAINS = { "example.com", "mail.org", "clinic.net", "hams.test" };
+
+    // Copied from PatientRepository.searchPatients
+    private static final String SEARCH_SQL = "SELECT * FROM users WHERE role = 'PATIENT' AND "
+            + "(LOWER(username) LIKE LOWER(CONCAT('%', ?, '%')) OR "
+            + "LOWER(email) LIKE LOWER(CONCAT('%', ?, '%')) OR "
+            + "CAST(id AS CHAR) LIKE CONCAT('%', ?, '%'))";
+
+    @Param({ "100000", "1000000" })
+    public int patients;
+
+    /** Short prefix, common prefix, whole username, rare digits, rare in-the-middle, no match. */
+    @Param({ "jo", "marel", "belcor4711", "4711", "inur", "qqq" })
+    public String term;
+
+    private PatientSearchIndex index;
+    private Connection connection;
+    private PreparedStatement search;
+
+    @Setup
+    public void setUp() throws SQLException {
+        List<SearchEntry> entries = entries(patients);
+
+        System.gc();
+        long before = usedHeap();
+        index = new PatientSearchIndex(() -> entries, true, 50);
+        long start = System.nanoTime();
+        index.search("warm-up");
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+        System.gc();
+        System.out.printf("%nIndex over %d patients: built in %d ms, ~%d MB heap on top of the loaded rows%n",
+                patients, buildMillis, (usedHeap() - before) >> 20);
+
+        connection = DriverManager.getConnection("jdbc:h2:mem:patientsearchbench" + patients);
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, username VARCHAR(255), "
+                    + "email VARCHAR(255), password VARCHAR(255), role VARCHAR(31))");
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO users VALUES (?, ?, ?, 'x', ?)")) {
+            for (SearchEntry entry : entries) {
+                insert.setLong(1, entry.getId());
+                insert.setString(2, entry.getUsername());
+                insert.setString(3, entry.getEmail());
+                insert.setString(4, "PATIENT");
+                insert.addBatch();
+                if (entry.getId() % 10_000 == 0) insert.executeBatch();
+            }
+            insert.executeBatch();
+        }
+        search = connection.prepareStatement(SEARCH_SQL);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public int index() {
+        return index.search(term).size();
+    }
+
+    @Benchmark
+    public int sql() throws SQLException {
+        search.setString(1, term);
+        search.setString(2, term);
+        search.setString(3, term);
+        int found = 0;
+        try (ResultSet rows = search.executeQuery()) {
+            while (rows.next()) found++;
+        }
+        return found;
+    }
+
+    static List<SearchEntry> entries(int count) {
+        Random random = new Random(11);
+        List<SearchEntry> entries = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            String name = syllable(random) + syllable(random) + random.nextInt(10_000);
+            String email = name + "." + syllable(random) + "@" + DOMAINS[random.nextInt(DOMAINS.length)];
+            entries.add(entry(id, name, email));
+        }
+        return entries;
+    }
+
+    private static SearchEntry entry(long id, String username, String email) {
+        return new SearchEntry() {
+            public Long getId() { return id; }
+            public String getUsername() { return username; }
+            public String getEmail() { return email; }
+        };
+    }
+
+    private static String syllable(Random random) {
+        return SYLLABLES[random.nextInt(SYLLABLES.length)];
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PatientSearchBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
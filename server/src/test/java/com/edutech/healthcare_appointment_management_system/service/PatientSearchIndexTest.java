@@ -0,0 +1,293 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.dto.CursorPage;
+import com.edutech.healthcare_appointment_management_system.dto.PatientSummary;
+import com.edutech.healthcare_appointment_management_system.entity.Doctor;
+import com.edutech.healthcare_appointment_management_system.entity.Patient;
+import com.edutech.healthcare_appointment_management_system.repository.DoctorRepository;
+import com.edutech.healthcare_appointment_management_system.repository.PatientRepository;
+import com.edutech.healthcare_appointment_management_system.repository.PatientRepository.SearchEntry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:patientsearchdb")
+class PatientSearchIndexTest {
+
+    private static final String[] SYLLABLES = { "an", "bel", "cor", "da", "el", "fin", "gra", "ho", "is", "jo",
+            "ka", "li", "mar", "no", "ol", "pe", "qu", "ro", "sa", "ti", "ur", "vi", "wen", "xa", "yo", "ze" };
+    private static final String[] DOMAINS = { "example.com", "Mail.org", "clinic.net", "hams.test" };
+
+    @Autowired
+    private PatientSearchIndex index;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Random random = new Random(42);
+    private final List<Patient> patients = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        index.clear();
+        for (int i = 0; i < 400; i++) {
+            String name = word() + word() + (random.nextInt(4) == 0 ? "" : String.valueOf(random.nextInt(1000)));
+            // A few mixed-case values, as older rows were not normalized
+            String email = (random.nextInt(8) == 0 ? name.toUpperCase() : name) + "." + word()
+                    + "@" + DOMAINS[random.nextInt(DOMAINS.length)];
+            Patient patient = new Patient();
+            patient.setUsername(name + "-" + i);
+            patient.setEmail(email + i);
+            patient.setPassword("password");
+            patient.setRole("PATIENT");
+            patients.add(patientRepository.save(patient));
+        }
+        // Not patients: never returned
+        Doctor doctor = new Doctor();
+        doctor.setUsername("anbel-doctor");
+        doctor.setEmail("anbel.doctor@example.com");
+        doctor.setPassword("password");
+        doctor.setRole("DOCTOR");
+        doctorRepository.save(doctor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.clear();
+        patientRepository.deleteAll();
+        doctorRepository.deleteAll();
+    }
+
+    @Test
+    void matchesTheSameRowsAsTheSqlSearch() {
+        List<String> terms = new ArrayList<>(List.of("a", "an", "E", "1", "12", ".", "@", "com", "MAIL.ORG",
+                "-3", "zzz", "  jo  ", "0", "example.com1"));
+        for (int i = 0; i < 300; i++) {
+            Patient patient = patients.get(random.nextInt(patients.size()));
+            String value;
+            switch (random.nextInt(3)) {
+                case 0: value = patient.getUsername(); break;
+                case 1: value = patient.getEmail(); break;
+                default: value = String.valueOf(patient.getId()); break;
+            }
+            int from = random.nextInt(value.length());
+            int to = Math.min(value.length(), from + 1 + random.nextInt(6));
+            String term = value.substring(from, to);
+            terms.add(random.nextBoolean() ? term : term.toUpperCase());
+        }
+
+        for (String term : terms) {
+            Set<Long> expected = patientRepository.searchPatients(term.trim()).stream()
+                    .map(Patient::getId).collect(Collectors.toCollection(TreeSet::new));
+            // H2 reads CAST(id AS CHAR) as CHAR(1); MySQL compares the whole id
+            patients.stream().map(Patient::getId)
+                    .filter(id -> String.valueOf(id).contains(term.trim()))
+                    .forEach(expected::add);
+            Set<Long> actual = index.search(term, Integer.MAX_VALUE).stream()
+                    .map(PatientSummary::getId).collect(Collectors.toCollection(TreeSet::new));
+            assertEquals(expected, actual, "term '" + term + "'");
+        }
+    }
+
+    @Test
+    void ranksExactThenPrefixThenAnywhereAndStopsAtTheLimit() {
+        Patient exact = save("jo", "first@example.com");
+        Patient prefix = save("jonas", "second@example.com");
+        Patient emailPrefix = save("other", "jo.smith@example.com");
+        Patient anywhere = save("marjo", "third@example.com");
+
+        List<Long> ids = index.search("JO", Integer.MAX_VALUE).stream()
+                .map(PatientSummary::getId).collect(Collectors.toList());
+        assertEquals(exact.getId(), ids.get(0));
+        assertTrue(ids.indexOf(prefix.getId()) < ids.indexOf(emailPrefix.getId()));
+        assertTrue(ids.indexOf(emailPrefix.getId()) < ids.indexOf(anywhere.getId()));
+
+        assertEquals(3, index.search("jo", 3).size());
+    }
+
+    @Test
+    void pagesFollowOneAnotherWithoutGapsOrRepeats() {
+        for (String term : List.of("a", "jo", "1", "example", "mail.org")) {
+            List<Long> all = ids(index.search(term, Integer.MAX_VALUE));
+            List<Long> paged = new ArrayList<>();
+            Long after = null;
+            List<PatientSummary> page;
+            while (!(page = index.search(term, after, 7)).isEmpty()) {
+                paged.addAll(ids(page));
+                after = page.get(page.size() - 1).getId();
+            }
+            assertEquals(all, paged, "term '" + term + "'");
+        }
+    }
+
+    @Test
+    void listingIsPagedByIdWithANextCursor() {
+        List<Long> listed = new ArrayList<>();
+        Long after = null;
+        int pages = 0;
+        CursorPage<PatientSummary> page;
+        do {
+            page = patientService.searchPatients("", after, 50);
+            assertTrue(page.getItems().size() <= 50);
+            listed.addAll(ids(page.getItems()));
+            after = page.getNextCursor() == null ? null : Long.valueOf(page.getNextCursor());
+            pages++;
+        } while (after != null);
+
+        assertEquals(patients.stream().map(Patient::getId).collect(Collectors.toList()), listed);
+        assertEquals(8, pages);
+
+        CursorPage<PatientSummary> search = patientService.searchPatients("jo", null, 5);
+        assertEquals(5, search.getItems().size());
+        assertEquals(String.valueOf(search.getItems().get(4).getId()), search.getNextCursor());
+        assertNull(patientService.searchPatients("zzz", null, 5).getNextCursor());
+
+        assertEquals(8, meterRegistry.get("patients.search").tag("kind", "list").tag("outcome", "ok").timer().count());
+    }
+
+    @Test
+    void registeredPatientsAreSearchableRightAway() {
+        assertTrue(index.search("newcomer").isEmpty());
+
+        Patient patient = new Patient();
+        patient.setUsername("Newcomer");
+        patient.setEmail("Newcomer@Example.com");
+        patient.setPassword("password");
+        patient.setRole("PATIENT");
+        userService.registerUser(patient);
+
+        List<PatientSummary> found = index.search("newcomer");
+        assertEquals(1, found.size());
+        assertEquals("newcomer@example.com", found.get(0).getEmail());
+    }
+
+    @Test
+    void picksUpPatientsWrittenThroughOtherInstances() {
+        assertTrue(index.search("farhost").isEmpty());
+
+        // Saved without put(), as another instance would
+        Patient patient = new Patient();
+        patient.setUsername("farhost");
+        patient.setEmail("farhost@example.com");
+        patient.setPassword("password");
+        patient.setRole("PATIENT");
+        patient = patientRepository.save(patient);
+        assertTrue(index.search("farhost").isEmpty());
+
+        index.refresh();
+        assertEquals(List.of(patient.getId()), ids(index.search("farhost")));
+
+        // Edits to older patients are only seen by the full reload
+        Patient older = patients.get(0);
+        String oldEmail = older.getEmail();
+        older.setEmail("renamed@example.com");
+        patientRepository.save(older);
+        index.refresh();
+        assertTrue(index.search("renamed@").isEmpty());
+
+        index.reload();
+        assertEquals(List.of(older.getId()), ids(index.search("renamed@")));
+        assertTrue(ids(index.search(oldEmail)).isEmpty());
+        assertEquals(List.of(patient.getId()), ids(index.search("farhost")));
+    }
+
+    @Test
+    void searchesKeepUsingTheOldIndexWhileItReloads() throws Exception {
+        CountDownLatch reloading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        PatientSearchIndex slow = new PatientSearchIndex(() -> {
+            List<SearchEntry> entries = patientRepository.findSearchEntries();
+            if (loads.incrementAndGet() > 1) {
+                reloading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return entries;
+        }, true, 50);
+
+        Patient older = patients.get(0);
+        String oldEmail = older.getEmail();
+        assertTrue(ids(slow.search(oldEmail)).contains(older.getId()));
+        older.setEmail("moved@example.com");
+        patientRepository.save(older);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> reload = executor.submit(slow::reload);
+            assertTrue(reloading.await(5, TimeUnit.SECONDS));
+
+            // Answered from the old index without waiting for the load
+            assertTrue(ids(slow.search(oldEmail)).contains(older.getId()));
+            assertTrue(slow.search("moved@").isEmpty());
+            // Registered while the replacement is being built: searchable now and after the swap
+            Patient newcomer = save("midreload", "midreload@example.com");
+            slow.put(newcomer);
+            assertEquals(List.of(newcomer.getId()), ids(slow.search("midreload")));
+
+            release.countDown();
+            reload.get(5, TimeUnit.SECONDS);
+            assertEquals(List.of(older.getId()), ids(slow.search("moved@")));
+            assertTrue(ids(slow.search(oldEmail)).isEmpty());
+            assertEquals(List.of(newcomer.getId()), ids(slow.search("midreload")));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private Patient save(String username, String email) {
+        Patient patient = new Patient();
+        patient.setUsername(username);
+        patient.setEmail(email);
+        patient.setPassword("password");
+        patient.setRole("PATIENT");
+        patient = patientRepository.save(patient);
+        index.put(patient);
+        return patient;
+    }
+
+    private static List<Long> ids(List<PatientSummary> summaries) {
+        return summaries.stream().map(PatientSummary::getId).collect(Collectors.toList());
+    }
+
+    private String word() {
+        return SYLLABLES[random.nextInt(SYLLABLES.length)];
+    }
+}
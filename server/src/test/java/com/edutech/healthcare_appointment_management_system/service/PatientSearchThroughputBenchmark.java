@@ -0,0 +1,94 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.repository.PatientRepository;
+import com.edutech.healthcare_appointment_management_system.repository.PatientRepository.SearchEntry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.logging.LoggingInitializationContext;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * PatientService.searchPatients throughput with 100 concurrent searchers: the patient list
+ * (empty term, repository stubbed) and an index search, 50 patients per page.
+ *
+ * Logging is set up as in the application (Spring Boot's logback initialization, so
+ * logback-spring.xml when present), with stdout going to /dev/null through a stream built
+ * like the JVM's own System.out: buffered and flushed on every println. Linux/macOS only.
+ *
+ * Run from server/ like PdfTextLayoutBenchmark, with this class name.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(100)
+@Fork(1)
+public class PatientSearchThroughputBenchmark {
+
+    @Param({ "", "jo" })
+    public String term;
+
+    private PatientService service;
+
+    @Setup
+    public void setUp() throws FileNotFoundException {
+        System.setOut(new PrintStream(new BufferedOutputStream(new FileOutputStream("/dev/null"), 128), true));
+        LoggingSystem logging = LoggingSystem.get(getClass().getClassLoader());
+        logging.beforeInitialize();
+        logging.initialize(new LoggingInitializationContext(new StandardEnvironment()), null, null);
+
+        List<SearchEntry> entries = PatientSearchBenchmark.entries(100_000);
+        PatientRepository repository = Mockito.mock(PatientRepository.class, Mockito.withSettings().stubOnly());
+        when(repository.findPatientsAfter(anyLong(), any(Pageable.class))).thenReturn(entries.subList(0, 51));
+        PatientSearchIndex index = new PatientSearchIndex(() -> entries, true, 50);
+        index.search("warm-up");
+
+        service = new PatientService();
+        ReflectionTestUtils.setField(service, "patientRepository", repository);
+        ReflectionTestUtils.setField(service, "patientSearchIndex", index);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "maxPageSize", 50);
+        ReflectionTestUtils.setField(service, "logSampleRate", 0.01);
+    }
+
+    @Benchmark
+    public int search() {
+        return service.searchPatients(term, null, 50).getItems().size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PatientSearchThroughputBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
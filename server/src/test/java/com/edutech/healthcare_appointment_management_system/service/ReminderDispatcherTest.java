@@ -0,0 +1,216 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.entity.Appointment;
+import com.edutech.healthcare_appointment_management_system.entity.Doctor;
+import com.edutech.healthcare_appointment_management_system.entity.Patient;
+import com.edutech.healthcare_appointment_management_system.repository.AppointmentRepository;
+import com.edutech.healthcare_appointment_management_system.repository.DoctorRepository;
+import com.edutech.healthcare_appointment_management_system.repository.PatientRepository;
+import com.edutech.healthcare_appointment_management_system.repository.ReminderPartitionLeaseRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reminderdb",
+        "reminder.poll-interval-ms=3600000",
+        "reminder.batch-size=10",
+        "reminder.send-chunk-size=4"
+})
+class ReminderDispatcherTest {
+
+    private static final long MINUTE = 60_000L;
+
+    /** Records batches instead of talking SMTP; can be told to reject messages of the next batch. */
+    static class RecordingMailSender extends JavaMailSenderImpl {
+        final List<List<SimpleMailMessage>> batches = new CopyOnWriteArrayList<>();
+        final AtomicInteger rejectNext = new AtomicInteger();
+
+        @Override
+        public void send(SimpleMailMessage... messages) {
+            batches.add(List.of(messages));
+            int reject = rejectNext.getAndSet(0);
+            if (reject > 0) {
+                Map<Object, Exception> failed = new LinkedHashMap<>();
+                for (int i = 0; i < reject && i < messages.length; i++) {
+                    failed.put(messages[i], new RuntimeException("mailbox unavailable"));
+                }
+                throw new MailSendException(failed);
+            }
+        }
+
+        int messageCount() {
+            return batches.stream().mapToInt(List::size).sum();
+        }
+    }
+
+    @TestConfiguration
+    static class MailConfig {
+        @Bean
+        @Primary
+        RecordingMailSender recordingMailSender() {
+            return new RecordingMailSender();
+        }
+    }
+
+    @Autowired
+    private ReminderDispatcher reminderDispatcher;
+
+    @Autowired
+    private RecordingMailSender mailSender;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private ReminderPartitionLeaseRepository leaseRepository;
+
+    private Patient patient;
+    private final List<Doctor> doctors = new ArrayList<>();
+    private Date now;
+
+    @BeforeEach
+    void setUp() {
+        mailSender.batches.clear();
+        now = new Date();
+
+        patient = new Patient();
+        patient.setUsername("reminderpatient");
+        patient.setPassword("password");
+        patient.setEmail("reminderpatient@example.com");
+        patient = patientRepository.save(patient);
+
+        doctors.clear();
+        for (int i = 0; i < 30; i++) {
+            Doctor doctor = new Doctor();
+            doctor.setUsername("reminderdoctor" + i);
+            doctor.setPassword("password");
+            doctor.setEmail("reminderdoctor" + i + "@example.com");
+            doctor.setSpecialty("General Physician");
+            doctors.add(doctorRepository.save(doctor));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        appointmentRepository.deleteAll();
+        doctorRepository.deleteAll();
+        patientRepository.deleteAll();
+        // Each test starts without dispatched windows
+        leaseRepository.deleteAll();
+    }
+
+    @Test
+    void sendsUpcomingRemindersInParallelChunksAndSkipsPastAppointments() {
+        List<Long> due = new ArrayList<>();
+        // Missed while the server was down, appointment already started: not emailed
+        List<Long> started = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            started.add(book(i, now.getTime() - 20 * MINUTE).getId());
+        }
+        // Starting within the lookahead, including the ones whose reminder was missed
+        for (int i = 5; i < 25; i++) {
+            due.add(book(i, now.getTime() + 30_000L).getId());
+        }
+        Appointment tooOld = book(25, now.getTime() - 3 * 60 * MINUTE);
+        Appointment notYet = book(26, now.getTime() + 30 * MINUTE);
+
+        assertEquals(20, reminderDispatcher.dispatchDue(now));
+
+        assertEquals(20, mailSender.messageCount());
+        assertTrue(mailSender.batches.stream().allMatch(b -> b.size() <= 4), "chunks larger than configured");
+        for (Long id : due) {
+            assertTrue(appointmentRepository.findById(id).orElseThrow().isReminderSent());
+        }
+        for (Long id : started) {
+            assertTrue(appointmentRepository.findById(id).orElseThrow().isReminderSent());
+        }
+        assertFalse(appointmentRepository.findById(tooOld.getId()).orElseThrow().isReminderSent());
+        assertFalse(appointmentRepository.findById(notYet.getId()).orElseThrow().isReminderSent());
+
+        // Nothing is sent twice
+        assertEquals(0, reminderDispatcher.dispatchDue(now));
+        assertEquals(20, mailSender.messageCount());
+    }
+
+    @Test
+    void failedRemindersAreReleasedForTheNextRun() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(book(i, now.getTime() + 30_000L).getId());
+        }
+        mailSender.rejectNext.set(1);
+
+        assertEquals(2, reminderDispatcher.dispatchDue(now));
+        long pending = ids.stream()
+                .filter(id -> !appointmentRepository.findById(id).orElseThrow().isReminderSent())
+                .count();
+        assertEquals(1, pending);
+
+        assertEquals(1, reminderDispatcher.dispatchDue(now));
+        for (Long id : ids) {
+            assertTrue(appointmentRepository.findById(id).orElseThrow().isReminderSent());
+        }
+    }
+
+    @Test
+    void remindersFallingBetweenTwoRunsAreSentByTheNextOne() {
+        // The first run covers up to a minute ahead; the next one starts three minutes later,
+        // its fixed delay counted from the end of a slow run
+        Appointment inGap = book(0, now.getTime() + 90_000L);
+        Appointment laterInGap = book(1, now.getTime() + 150_000L);
+        Appointment nextWindow = book(2, now.getTime() + 3 * MINUTE + 30_000L);
+        Appointment beyond = book(3, now.getTime() + 10 * MINUTE);
+
+        assertEquals(0, reminderDispatcher.dispatchDue(now));
+        // Booked into the dispatched window after the run, and started before the next one
+        Appointment bookedLate = book(4, now.getTime() + 30_000L);
+
+        Date next = new Date(now.getTime() + 3 * MINUTE);
+        assertEquals(3, reminderDispatcher.dispatchDue(next));
+
+        assertEquals(3, mailSender.messageCount());
+        for (Appointment appointment : List.of(inGap, laterInGap, nextWindow)) {
+            assertTrue(appointmentRepository.findById(appointment.getId()).orElseThrow().isReminderSent());
+        }
+        assertTrue(appointmentRepository.findById(bookedLate.getId()).orElseThrow().isReminderSent(),
+                "expired without an email");
+        assertFalse(appointmentRepository.findById(beyond.getId()).orElseThrow().isReminderSent());
+    }
+
+    private Appointment book(int doctorIndex, long time) {
+        Appointment appointment = new Appointment();
+        appointment.setDoctor(doctors.get(doctorIndex));
+        appointment.setPatient(patient);
+        appointment.setAppointmentTime(new Date(time));
+        appointment.setStatus("Scheduled");
+        return appointmentRepository.save(appointment);
+    }
+}
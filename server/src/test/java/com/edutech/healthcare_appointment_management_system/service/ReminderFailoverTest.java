@@ -0,0 +1,203 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.entity.Appointment;
+import com.edutech.healthcare_appointment_management_system.entity.Doctor;
+import com.edutech.healthcare_appointment_management_system.entity.Patient;
+import com.edutech.healthcare_appointment_management_system.repository.AppointmentRepository;
+import com.edutech.healthcare_appointment_management_system.repository.DoctorRepository;
+import com.edutech.healthcare_appointment_management_system.repository.PatientRepository;
+import com.edutech.healthcare_appointment_management_system.repository.ReminderNodeRepository;
+import com.edutech.healthcare_appointment_management_system.repository.ReminderPartitionLeaseRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.SimpleMailMessage;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two (and three) reminder nodes sharing one H2 database through the lease tables, driven
+ * with an explicit clock so lease expiry can be simulated without waiting.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reminderfailoverdb",
+        "reminder.initial-delay-ms=3600000"
+})
+class ReminderFailoverTest {
+
+    private static final int PARTITIONS = 8;
+    private static final long LEASE_MS = 60_000L;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private ReminderPartitionLeaseRepository leaseRepository;
+
+    @Autowired
+    private ReminderNodeRepository nodeRepository;
+
+    // Reminder text -> number of times it was sent, over all nodes
+    private final Map<String, AtomicInteger> deliveries = new ConcurrentHashMap<>();
+    private Patient patient;
+    private final List<Doctor> doctors = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        leaseRepository.deleteAll();
+        nodeRepository.deleteAll();
+
+        patient = new Patient();
+        patient.setUsername("failoverpatient");
+        patient.setPassword("password");
+        patient.setEmail("failoverpatient@example.com");
+        patient = patientRepository.save(patient);
+
+        doctors.clear();
+        for (int i = 0; i < 32; i++) {
+            Doctor doctor = new Doctor();
+            doctor.setUsername("failoverdoctor" + i);
+            doctor.setPassword("password");
+            doctor.setEmail("failoverdoctor" + i + "@example.com");
+            doctor.setSpecialty("General Physician");
+            doctors.add(doctorRepository.save(doctor));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        appointmentRepository.deleteAll();
+        doctorRepository.deleteAll();
+        patientRepository.deleteAll();
+        leaseRepository.deleteAll();
+        nodeRepository.deleteAll();
+    }
+
+    @Test
+    void partitionsAreSplitFairlyAsNodesJoin() {
+        Date t0 = new Date();
+        ReminderPartitionLeases a = leases("node-a");
+        ReminderPartitionLeases b = leases("node-b");
+        ReminderPartitionLeases c = leases("node-c");
+
+        assertEquals(PARTITIONS, a.acquire(t0).size());
+        assertEquals(0, b.acquire(t0).size());
+
+        // a notices b and hands back its surplus, which b then takes
+        Date t1 = new Date(t0.getTime() + 1000);
+        assertEquals(4, a.acquire(t1).size());
+        assertEquals(4, b.acquire(t1).size());
+
+        c.acquire(t1);
+        Date t2 = new Date(t1.getTime() + 1000);
+        List<Integer> ownedA = a.acquire(t2);
+        List<Integer> ownedB = b.acquire(t2);
+        List<Integer> ownedC = c.acquire(t2);
+        assertEquals(3, ownedA.size());
+        assertEquals(3, ownedB.size());
+        assertEquals(2, ownedC.size());
+
+        Set<Integer> all = new HashSet<>();
+        all.addAll(ownedA);
+        all.addAll(ownedB);
+        all.addAll(ownedC);
+        assertEquals(PARTITIONS, all.size());
+    }
+
+    @Test
+    void everyReminderIsSentExactlyOnceAcrossNodeFailover() throws Exception {
+        Date t0 = new Date();
+        ReminderPartitionLeases leasesA = leases("node-a");
+        ReminderPartitionLeases leasesB = leases("node-b");
+        ReminderDispatcher nodeA = dispatcher(leasesA);
+        ReminderDispatcher nodeB = dispatcher(leasesB);
+
+        // Let both nodes join and settle on 4 partitions each
+        leasesA.acquire(t0);
+        leasesB.acquire(t0);
+        leasesA.acquire(new Date(t0.getTime() + 100));
+        leasesB.acquire(new Date(t0.getTime() + 100));
+
+        // First wave: both nodes dispatch concurrently
+        List<Appointment> firstWave = bookOnePerDoctor(t0.getTime() + 30_000L);
+        Date t1 = new Date(t0.getTime() + 200);
+        ExecutorService nodes = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        Future<Integer> sentA = nodes.submit(() -> { start.await(); return nodeA.dispatchDue(t1); });
+        Future<Integer> sentB = nodes.submit(() -> { start.await(); return nodeB.dispatchDue(t1); });
+        start.countDown();
+        assertEquals(firstWave.size(), sentA.get() + sentB.get());
+        assertTrue(sentA.get() > 0 && sentB.get() > 0, "work was not shared between the nodes");
+        nodes.shutdown();
+
+        // Node A dies: it stops heartbeating and renewing. Second wave is due after its lease ran out.
+        List<Appointment> secondWave = bookOnePerDoctor(t0.getTime() + 20 * 60_000L);
+        Date t2 = new Date(t0.getTime() + 20 * 60_000L - 10_000L);
+        assertEquals(secondWave.size(), nodeB.dispatchDue(t2));
+        assertEquals(PARTITIONS, leasesB.acquire(t2).size());
+
+        assertEquals(firstWave.size() + secondWave.size(), deliveries.size());
+        deliveries.forEach((text, count) -> assertEquals(1, count.get(), "sent more than once: " + text));
+        for (Appointment appointment : appointmentRepository.findAll()) {
+            assertTrue(appointment.isReminderSent());
+        }
+    }
+
+    private ReminderPartitionLeases leases(String nodeId) {
+        return new ReminderPartitionLeases(leaseRepository, nodeRepository, nodeId, PARTITIONS, LEASE_MS);
+    }
+
+    private ReminderDispatcher dispatcher(ReminderPartitionLeases leases) {
+        EmailService mail = new EmailService() {
+            @Override
+            public void sendBatch(SimpleMailMessage... messages) {
+                for (SimpleMailMessage message : messages) {
+                    deliveries.computeIfAbsent(message.getText(), t -> new AtomicInteger()).incrementAndGet();
+                }
+            }
+        };
+        return new ReminderDispatcher(appointmentRepository, mail, Runnable::run, leases,
+                new SimpleMeterRegistry(), 60_000L, 3_600_000L, 5, 2);
+    }
+
+    // Distinct doctors so appointments spread over every partition and reminder texts are unique
+    private List<Appointment> bookOnePerDoctor(long time) {
+        Map<Long, Appointment> booked = new HashMap<>();
+        for (Doctor doctor : doctors) {
+            Appointment appointment = new Appointment();
+            appointment.setDoctor(doctor);
+            appointment.setPatient(patient);
+            appointment.setAppointmentTime(new Date(time));
+            appointment.setStatus("Scheduled");
+            appointment = appointmentRepository.save(appointment);
+            booked.put(appointment.getId(), appointment);
+        }
+        return new ArrayList<>(booked.values());
+    }
+}
@@ -0,0 +1,175 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.dto.ReportExportRequest;
+import com.edutech.healthcare_appointment_management_system.entity.Doctor;
+import com.edutech.healthcare_appointment_management_system.entity.MedicalRecord;
+import com.edutech.healthcare_appointment_management_system.entity.Patient;
+import com.edutech.healthcare_appointment_management_system.service.ReportService.ReportData;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReportExportServiceTest {
+
+    private static final long NARRATIVE_MILLIS = 300;
+
+    /** Serves a fixed set of records instead of the database. */
+    static class InMemoryRecords extends MedicalRecordService {
+        final List<MedicalRecord> records = new ArrayList<>();
+
+        @Override
+        public List<MedicalRecord> getRecordsForReportByIds(Collection<Long> recordIds) {
+            return records.stream().filter(r -> recordIds.contains(r.getId())).collect(Collectors.toList());
+        }
+
+        @Override
+        public List<MedicalRecord> getRecordsForReportByPatientId(Long patientId) {
+            return records;
+        }
+    }
+
+    /** One-page PDF per record after a fixed delay standing in for the Groq narrative call. */
+    static class SlowRenderer extends ReportService {
+        final AtomicInteger renders = new AtomicInteger();
+
+        SlowRenderer() {
+            super(null);
+        }
+
+        @Override
+        public boolean writeMedicalRecordPdf(ReportData data, OutputStream out) throws IOException {
+            renders.incrementAndGet();
+            try {
+                Thread.sleep(NARRATIVE_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            try (PDDocument doc = new PDDocument()) {
+                doc.addPage(new PDPage());
+                doc.getDocumentInformation().setTitle(data.diagnosis);
+                doc.save(out);
+            }
+            return false;
+        }
+    }
+
+    @TempDir
+    Path cacheDir;
+
+    private final InMemoryRecords records = new InMemoryRecords();
+    private final SlowRenderer renderer = new SlowRenderer();
+    private ExecutorService workers;
+    private ReportExportService service;
+
+    @BeforeEach
+    void setUp() {
+        workers = Executors.newFixedThreadPool(2);
+        ReportJobService jobs = new ReportJobService(records, renderer, workers, new SimpleMeterRegistry(),
+                cacheDir.toString(), Duration.ofMinutes(5), ReportJobService.NarrativeMode.LLM);
+        service = new ReportExportService(records, jobs, 50, 100);
+        for (long id = 1; id <= 50; id++) {
+            records.records.add(record(id, "Diagnosis " + id));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        workers.shutdownNow();
+    }
+
+    @Test
+    void fiftyRecordsRenderInAboutTheTimeOfOne() {
+        List<ReportData> selected = service.selectRecords(new ReportExportRequest(3L, null));
+
+        long start = System.nanoTime();
+        List<Path> files = service.render(selected);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(50, files.size());
+        assertEquals(50, renderer.renders.get());
+        assertTrue(elapsedMillis < NARRATIVE_MILLIS * 5,
+                "50 renders of " + NARRATIVE_MILLIS + " ms took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void mergedPdfKeepsTheRequestedRecordOrder() throws IOException {
+        List<ReportData> selected = service.selectRecords(new ReportExportRequest(null, List.of(7L, 2L, 30L)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.write(ReportExportService.Format.PDF, selected, service.render(selected), out);
+
+        try (PDDocument merged = PDDocument.load(out.toByteArray())) {
+            assertEquals(3, merged.getNumberOfPages());
+        }
+        assertEquals(List.of(7L, 2L, 30L), selected.stream().map(d -> d.recordId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void zipHasOnePdfPerRecordAndReusesTheReportCache() throws IOException {
+        List<ReportData> selected = service.selectRecords(new ReportExportRequest(null, List.of(4L, 5L)));
+        service.render(selected);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.write(ReportExportService.Format.ZIP, selected, service.render(selected), out);
+
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                names.add(entry.getName());
+                try (PDDocument doc = PDDocument.load(zip.readAllBytes())) {
+                    assertEquals(1, doc.getNumberOfPages());
+                }
+            }
+        }
+        assertEquals(List.of("Record_4_Patient_3.pdf", "Record_5_Patient_3.pdf"), names);
+        assertEquals(2, renderer.renders.get(), "the second export is served from the cache");
+    }
+
+    @Test
+    void rejectsUnknownRecordsAndAmbiguousSelections() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.selectRecords(new ReportExportRequest(null, List.of(1L, 999L))));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.selectRecords(new ReportExportRequest(3L, List.of(1L))));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.selectRecords(new ReportExportRequest(null, null)));
+    }
+
+    private static MedicalRecord record(Long id, String diagnosis) {
+        Patient patient = new Patient();
+        patient.setId(3L);
+        patient.setUsername("alice");
+        Doctor doctor = new Doctor();
+        doctor.setId(5L);
+        doctor.setUsername("house");
+        return new MedicalRecord(id, patient, doctor, diagnosis, "Rest", LocalDateTime.of(2026, 10, 1, 9, 30));
+    }
+}
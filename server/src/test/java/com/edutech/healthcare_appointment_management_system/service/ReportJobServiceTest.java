@@ -0,0 +1,305 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.entity.Doctor;
+import com.edutech.healthcare_appointment_management_system.entity.MedicalRecord;
+import com.edutech.healthcare_appointment_management_system.entity.Patient;
+import com.edutech.healthcare_appointment_management_system.service.ReportJobService.NarrativeMode;
+import com.edutech.healthcare_appointment_management_system.service.ReportJobService.ReportJob;
+import com.edutech.healthcare_appointment_management_system.service.ReportJobService.Status;
+import com.edutech.healthcare_appointment_management_system.service.ReportService.ReportData;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReportJobServiceTest {
+
+    /** Serves records from a map instead of the database. */
+    static class InMemoryRecords extends MedicalRecordService {
+        final Map<Long, MedicalRecord> records = new HashMap<>();
+
+        @Override
+        public MedicalRecord getMedicalRecordById(Long recordId) {
+            return records.get(recordId);
+        }
+    }
+
+    /** Renders a tiny fake PDF; the Groq version can be held back to observe a job while it is running. */
+    static class FakeRenderer extends ReportService {
+        final AtomicInteger renders = new AtomicInteger();
+        final AtomicInteger templateRenders = new AtomicInteger();
+        final AtomicBoolean fallback = new AtomicBoolean();
+        volatile CountDownLatch hold = new CountDownLatch(0);
+
+        FakeRenderer() {
+            super(null);
+        }
+
+        @Override
+        public boolean writeMedicalRecordPdf(ReportData data, OutputStream out) throws IOException {
+            renders.incrementAndGet();
+            try {
+                hold.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            out.write(("%PDF " + data.diagnosis).getBytes(StandardCharsets.UTF_8));
+            return fallback.get();
+        }
+
+        @Override
+        public void writeTemplatePdf(ReportData data, OutputStream out) throws IOException {
+            templateRenders.incrementAndGet();
+            out.write(("%PDF template " + data.diagnosis).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @TempDir
+    Path cacheDir;
+
+    private final InMemoryRecords records = new InMemoryRecords();
+    private final FakeRenderer renderer = new FakeRenderer();
+    private ExecutorService workers;
+    private ReportJobService service;
+
+    @BeforeEach
+    void setUp() {
+        workers = Executors.newFixedThreadPool(2);
+        service = newService(NarrativeMode.LLM);
+        records.records.put(7L, record(7L, "Migraine"));
+    }
+
+    private ReportJobService newService(NarrativeMode mode) {
+        return new ReportJobService(records, renderer, workers, new SimpleMeterRegistry(),
+                cacheDir.toString(), Duration.ofMinutes(5), mode);
+    }
+
+    @AfterEach
+    void tearDown() {
+        renderer.hold.countDown();
+        workers.shutdownNow();
+    }
+
+    @Test
+    void submitReturnsBeforeTheReportIsRendered() {
+        renderer.hold = new CountDownLatch(1);
+
+        ReportJob job = service.submit(7L).orElseThrow();
+        assertFalse(job.getStatus() == Status.DONE);
+        assertEquals(job, service.findJob(job.getId()).orElseThrow());
+
+        renderer.hold.countDown();
+        service.await(job, Duration.ofSeconds(5));
+        assertEquals(Status.DONE, job.getStatus());
+        Path file = job.getFile().orElseThrow();
+        assertEquals("record-7-" + job.getContentHash() + ".pdf", file.getFileName().toString());
+        assertEquals("Record_7_Patient_3.pdf", job.getFileName());
+    }
+
+    @Test
+    void repeatDownloadsAreServedFromTheDiskCache() {
+        ReportJob first = service.await(service.submit(7L).orElseThrow(), Duration.ofSeconds(5));
+        ReportJob second = service.submit(7L).orElseThrow();
+
+        assertEquals(Status.DONE, second.getStatus(), "cache hit completes without queueing");
+        assertEquals(first.getFile(), second.getFile());
+        assertEquals(1, renderer.renders.get());
+    }
+
+    @Test
+    void submissionsWhileRenderingShareOneJob() {
+        renderer.hold = new CountDownLatch(1);
+
+        ReportJob first = service.submit(7L).orElseThrow();
+        ReportJob second = service.submit(7L).orElseThrow();
+        assertSame(first, second);
+
+        renderer.hold.countDown();
+        service.await(first, Duration.ofSeconds(5));
+        assertEquals(1, renderer.renders.get());
+    }
+
+    @Test
+    void editingTheRecordInvalidatesItsCachedReport() throws Exception {
+        ReportJob before = service.await(service.submit(7L).orElseThrow(), Duration.ofSeconds(5));
+        Path oldFile = before.getFile().orElseThrow();
+
+        records.records.get(7L).setDiagnosis("Tension headache");
+        ReportJob after = service.await(service.submit(7L).orElseThrow(), Duration.ofSeconds(5));
+
+        assertEquals(2, renderer.renders.get());
+        assertFalse(before.getContentHash().equals(after.getContentHash()));
+        assertEquals("%PDF Tension headache", Files.readString(after.getFile().orElseThrow()));
+        assertFalse(Files.exists(oldFile), "the report of the old version is removed");
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void fallbackNarrativesAreDeliveredButNotCached() {
+        renderer.fallback.set(true);
+        ReportJob first = service.await(service.submit(7L).orElseThrow(), Duration.ofSeconds(5));
+        assertEquals(Status.DONE, first.getStatus());
+        assertTrue(Files.exists(first.getFile().orElseThrow()));
+
+        renderer.fallback.set(false);
+        service.await(service.submit(7L).orElseThrow(), Duration.ofSeconds(5));
+        assertEquals(2, renderer.renders.get(), "the model is asked again once it may be back");
+    }
+
+    @Test
+    void templateVersionIsServedRightAwayAndThenReplacedByTheGroqVersion() throws Exception {
+        service = newService(NarrativeMode.TEMPLATE_THEN_LLM);
+        renderer.hold = new CountDownLatch(1);
+
+        ReportJob first = service.await(service.submit(7L).orElseThrow(), Duration.ofSeconds(5));
+        assertEquals(Status.DONE, first.getStatus(), "done without waiting for Groq");
+        Path template = first.getFile().orElseThrow();
+        assertEquals("record-7-" + first.getContentHash() + "-template.pdf", template.getFileName().toString());
+        assertEquals("%PDF template Migraine", Files.readString(template));
+
+        renderer.hold.countDown();
+        Path upgraded = service.cachedFile(7L, first.getContentHash());
+        waitFor(() -> Files.exists(upgraded));
+
+        ReportJob second = service.submit(7L).orElseThrow();
+        assertEquals(Status.DONE, second.getStatus());
+        assertEquals(upgraded, second.getFile().orElseThrow());
+        assertEquals("%PDF Migraine", Files.readString(upgraded));
+        assertTrue(Files.exists(template), "the first job can still be downloaded");
+        assertEquals(1, renderer.templateRenders.get());
+        assertEquals(1, renderer.renders.get());
+    }
+
+    @Test
+    void upgradeThatGetsTheFallbackKeepsTheTemplateAndIsRetried() throws Exception {
+        service = newService(NarrativeMode.TEMPLATE_THEN_LLM);
+        renderer.fallback.set(true);
+
+        ReportJob first = service.await(service.submit(7L).orElseThrow(), Duration.ofSeconds(5));
+        waitFor(() -> renderer.renders.get() == 1);
+
+        ReportJob second = service.submit(7L).orElseThrow();
+        assertEquals(first.getFile(), second.getFile(), "still the template version");
+        // Each download of the template version asks Groq again once the last attempt is over
+        waitFor(() -> service.submit(7L).isPresent() && renderer.renders.get() >= 2);
+        assertFalse(Files.exists(service.cachedFile(7L, first.getContentHash())));
+    }
+
+    @Test
+    void templateModeNeverCallsGroq() {
+        service = newService(NarrativeMode.TEMPLATE);
+
+        ReportJob first = service.await(service.submit(7L).orElseThrow(), Duration.ofSeconds(5));
+        ReportJob second = service.submit(7L).orElseThrow();
+
+        assertEquals(first.getFile(), second.getFile());
+        assertEquals(1, renderer.templateRenders.get());
+        assertEquals(0, renderer.renders.get());
+    }
+
+    @Test
+    void exportsRenderTheGroqVersionUnlessTheTemplateIsAskedFor() throws Exception {
+        service = newService(NarrativeMode.TEMPLATE_THEN_LLM);
+        ReportData data = ReportData.of(records.records.get(7L));
+        assertEquals(NarrativeMode.LLM, service.defaultExportMode());
+
+        Path template = service.renderNow(data, NarrativeMode.TEMPLATE);
+        assertEquals("%PDF template Migraine", Files.readString(template));
+
+        Path exported = service.renderNow(data, NarrativeMode.LLM);
+        assertEquals(service.cachedFile(7L, data.contentHash()), exported);
+        assertEquals("%PDF Migraine", Files.readString(exported));
+
+        // Downloads now get the Groq version the export rendered
+        assertEquals(exported, service.submit(7L).orElseThrow().getFile().orElseThrow());
+        assertEquals(1, renderer.renders.get());
+        assertEquals(1, renderer.templateRenders.get());
+        assertEquals(NarrativeMode.TEMPLATE, newService(NarrativeMode.TEMPLATE).defaultExportMode());
+    }
+
+    @Test
+    void sweepDropsReportsByAgeThenLeastRecentlyRequestedBySize() throws Exception {
+        service = new ReportJobService(records, renderer, workers, new SimpleMeterRegistry(),
+                cacheDir.toString(), Duration.ofMinutes(5), NarrativeMode.LLM, Duration.ofHours(1), DataSize.ofBytes(20));
+        records.records.put(8L, record(8L, "Migraine"));
+        records.records.put(9L, record(9L, "Migraine"));
+        Path expired = service.await(service.submit(7L).orElseThrow(), Duration.ofSeconds(5)).getFile().orElseThrow();
+        Path requested = service.await(service.submit(8L).orElseThrow(), Duration.ofSeconds(5)).getFile().orElseThrow();
+        Path idle = service.await(service.submit(9L).orElseThrow(), Duration.ofSeconds(5)).getFile().orElseThrow();
+        Path abandoned = Files.writeString(cacheDir.resolve("render-1.tmp"), "partial");
+        Path uncached = Files.writeString(cacheDir.resolve("uncached-job.pdf"), "%PDF fallback");
+
+        long now = System.currentTimeMillis();
+        for (Path file : new Path[] { expired, abandoned, uncached }) {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(now - Duration.ofHours(2).toMillis()));
+        }
+        Files.setLastModifiedTime(requested, FileTime.fromMillis(now - Duration.ofMinutes(20).toMillis()));
+        Files.setLastModifiedTime(idle, FileTime.fromMillis(now - Duration.ofMinutes(10).toMillis()));
+        // A cache hit makes record 8 the most recently requested report
+        assertEquals(Status.DONE, service.submit(8L).orElseThrow().getStatus());
+
+        service.sweepCache();
+
+        assertFalse(Files.exists(expired), "older than the max age");
+        assertFalse(Files.exists(abandoned), "temp file of a crashed render");
+        assertFalse(Files.exists(idle), "least recently requested, over the max size");
+        assertTrue(Files.exists(requested));
+        assertTrue(Files.exists(uncached), "left to the job expiry");
+        assertEquals(3, renderer.renders.get());
+    }
+
+    @Test
+    void unknownRecordHasNoJob() {
+        assertTrue(service.submit(99L).isEmpty());
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+    }
+
+    private static MedicalRecord record(Long id, String diagnosis) {
+        Patient patient = new Patient();
+        patient.setId(3L);
+        patient.setUsername("alice");
+        patient.setEmail("alice@example.com");
+        Doctor doctor = new Doctor();
+        doctor.setId(5L);
+        doctor.setUsername("house");
+        doctor.setEmail("house@example.com");
+        return new MedicalRecord(id, patient, doctor, diagnosis, "Rest", LocalDateTime.of(2026, 10, 1, 9, 30));
+    }
+}
@@ -0,0 +1,134 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.entity.Doctor;
+import com.edutech.healthcare_appointment_management_system.entity.MedicalRecord;
+import com.edutech.healthcare_appointment_management_system.entity.Patient;
+import com.edutech.healthcare_appointment_management_system.repository.DoctorRepository;
+import com.edutech.healthcare_appointment_management_system.repository.MedicalRecordRepository;
+import com.edutech.healthcare_appointment_management_system.repository.MedicalReportNarrativeRepository;
+import com.edutech.healthcare_appointment_management_system.repository.PatientRepository;
+import com.edutech.healthcare_appointment_management_system.service.GroqSummaryService.MedicalReportContent;
+import com.edutech.healthcare_appointment_management_system.service.ReportService.ReportData;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:reportnarrativedb")
+class ReportNarrativeStoreTest {
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private MedicalReportNarrativeRepository narrativeRepository;
+
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @MockBean
+    private GroqSummaryService groqSummaryService;
+
+    private MedicalRecord record;
+
+    @BeforeEach
+    void setUp() {
+        Doctor doctor = new Doctor();
+        doctor.setUsername("narrativedoctor");
+        doctor.setPassword("password");
+        doctor.setEmail("narrativedoctor@example.com");
+        doctor.setSpecialty("Neurologist");
+        doctor = doctorRepository.save(doctor);
+
+        Patient patient = new Patient();
+        patient.setUsername("narrativepatient");
+        patient.setPassword("password");
+        patient.setEmail("narrativepatient@example.com");
+        patient = patientRepository.save(patient);
+
+        record = medicalRecordRepository.save(
+                new MedicalRecord(null, patient, doctor, "Migraine", "Rest", LocalDateTime.of(2026, 10, 1, 9, 30)));
+
+        when(groqSummaryService.generateMedicalReport(any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenAnswer(call -> narrative("Assessment for " + call.getArgument(5)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        narrativeRepository.deleteAll();
+        medicalRecordRepository.deleteAll();
+        doctorRepository.deleteAll();
+        patientRepository.deleteAll();
+    }
+
+    @Test
+    void narrativeIsGeneratedOnceAndReusedUntilTheInputsChange() throws IOException {
+        ReportData data = ReportData.of(record);
+        assertFalse(reportService.hasStoredNarrative(data));
+
+        render(data);
+        render(data);
+        verify(groqSummaryService, times(1)).generateMedicalReport(any(), any(), any(), any(), any(), any(), any(), any());
+        assertTrue(reportService.hasStoredNarrative(data));
+
+        record.setTreatment("Sumatriptan 50 mg");
+        ReportData edited = ReportData.of(record);
+        assertFalse(reportService.hasStoredNarrative(edited));
+        render(edited);
+        render(edited);
+        verify(groqSummaryService, times(2)).generateMedicalReport(any(), any(), any(), any(), any(), any(), any(), any());
+
+        assertEquals(1, narrativeRepository.count(), "one row per record, overwritten on change");
+        assertEquals("Assessment for Migraine",
+                narrativeRepository.findByRecordId(record.getId()).orElseThrow().getClinicalAssessment());
+    }
+
+    @Test
+    void fallbackNarrativeIsNotStored() throws IOException {
+        MedicalReportContent fallback = narrative("Generic text");
+        fallback.fallback = true;
+        when(groqSummaryService.generateMedicalReport(any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(fallback);
+        ReportData data = ReportData.of(record);
+
+        assertTrue(render(data), "reported as fallback");
+        assertEquals(0, narrativeRepository.count());
+        assertFalse(reportService.hasStoredNarrative(data));
+    }
+
+    private boolean render(ReportData data) throws IOException {
+        return reportService.writeMedicalRecordPdf(data, new ByteArrayOutputStream());
+    }
+
+    private static MedicalReportContent narrative(String assessment) {
+        MedicalReportContent content = new MedicalReportContent();
+        content.chiefComplaint = "Headache";
+        content.historyOfPresentIllness = "Two weeks";
+        content.pastMedicalHistory = "None";
+        content.clinicalAssessment = assessment;
+        content.treatmentPlan = "Rest";
+        content.followUpRecommendations = "Two weeks";
+        return content;
+    }
+}
@@ -0,0 +1,106 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.common.PdfTextLayoutBenchmark;
+import com.edutech.healthcare_appointment_management_system.service.GroqSummaryService.MedicalReportContent;
+import com.edutech.healthcare_appointment_management_system.service.ReportService.ReportData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders a complete medical record report (canned narrative, no Groq call) and reports
+ * the time per document and, at the end of each trial, the PDF size in bytes.
+ *
+ * Run from server/ like PdfTextLayoutBenchmark, with this class name.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportRenderBenchmark {
+
+    /** Characters per narrative section; six sections per report. */
+    @Param({ "1500", "6000" })
+    public int sectionChars;
+
+    private ReportService service;
+    private ReportData data;
+    private long lastSize;
+
+    @Setup
+    public void setUp() {
+        String section = PdfTextLayoutBenchmark.narrative(sectionChars, 7);
+        service = new ReportService(new GroqSummaryService(null) {
+            @Override
+            public MedicalReportContent generateMedicalReport(String patientName, String patientId, String patientEmail,
+                                                              String doctorName, String doctorId,
+                                                              String diagnosis, String treatment, String recordDate) {
+                MedicalReportContent content = new MedicalReportContent();
+                content.chiefComplaint = section;
+                content.historyOfPresentIllness = section;
+                content.pastMedicalHistory = section;
+                content.clinicalAssessment = section;
+                content.treatmentPlan = section;
+                content.followUpRecommendations = section;
+                return content;
+            }
+        });
+        data = new ReportData(7L, "alice", 3L, "alice@example.com",
+                "house", 5L, "house@example.com", "Migraine", "Rest", "01/10/2026");
+    }
+
+    @Benchmark
+    public long render() throws IOException {
+        ByteCounter out = new ByteCounter();
+        service.writeMedicalRecordPdf(data, out);
+        lastSize = out.count;
+        return lastSize;
+    }
+
+    /** Discards the PDF, keeping only its size. */
+    static class ByteCounter extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void printSize() {
+        System.out.println("PDF bytes (sectionChars=" + sectionChars + "): " + lastSize);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ReportRenderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,140 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.service.GroqSummaryService.MedicalReportContent;
+import com.edutech.healthcare_appointment_management_system.service.ReportService.ReportData;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReportServiceTest {
+
+    /** Returns a long canned narrative instead of calling Groq. */
+    static class CannedNarrative extends GroqSummaryService {
+        CannedNarrative() {
+            super(null);
+        }
+
+        @Override
+        public MedicalReportContent generateMedicalReport(String patientName, String patientId, String patientEmail,
+                                                          String doctorName, String doctorId,
+                                                          String diagnosis, String treatment, String recordDate) {
+            String paragraph = String.join(" ", Collections.nCopies(400,
+                    "The patient reports intermittent symptoms that are monitored closely."));
+            MedicalReportContent content = new MedicalReportContent();
+            content.chiefComplaint = paragraph;
+            content.historyOfPresentIllness = paragraph;
+            content.pastMedicalHistory = paragraph;
+            content.clinicalAssessment = paragraph;
+            content.treatmentPlan = paragraph;
+            content.followUpRecommendations = paragraph;
+            return content;
+        }
+    }
+
+    /** Stands in for the response stream: counts bytes and keeps only the first and last few. */
+    static class ProbeOutputStream extends OutputStream {
+        long count;
+        final byte[] head = new byte[5];
+        final byte[] tail = new byte[6];
+
+        @Override
+        public void write(int b) {
+            if (count < head.length) head[(int) count] = (byte) b;
+            System.arraycopy(tail, 1, tail, 0, tail.length - 1);
+            tail[tail.length - 1] = (byte) b;
+            count++;
+        }
+    }
+
+    private final ReportService service = new ReportService(new CannedNarrative());
+
+    private final ReportData data = new ReportData(7L, "alice", 3L, "alice@example.com",
+            "house", 5L, "house@example.com", "Migraine", "Rest", "01/10/2026");
+
+    @Test
+    void writesAMultiPageDocumentToTheStream() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertFalse(service.writeMedicalRecordPdf(data, out));
+
+        try (PDDocument doc = PDDocument.load(out.toByteArray())) {
+            assertTrue(doc.getNumberOfPages() > 3, "long narrative spans several pages");
+        }
+    }
+
+    @Test
+    void templateReportNeedsNoGroqAndGroqFallbackUsesIt() throws IOException {
+        ReportService withoutGroq = new ReportService(null);
+        ByteArrayOutputStream template = new ByteArrayOutputStream();
+        withoutGroq.writeTemplatePdf(data, template);
+        assertTrue(text(template).contains("Treatment prescribed: Rest."));
+
+        ReportService groqDown = new ReportService(new CannedNarrative() {
+            @Override
+            public MedicalReportContent generateMedicalReport(String patientName, String patientId, String patientEmail,
+                                                              String doctorName, String doctorId,
+                                                              String diagnosis, String treatment, String recordDate) {
+                MedicalReportContent content = new MedicalReportContent();
+                content.chiefComplaint = "Generic fallback text";
+                content.fallback = true;
+                return content;
+            }
+        });
+        ByteArrayOutputStream fallback = new ByteArrayOutputStream();
+        assertTrue(groqDown.writeMedicalRecordPdf(data, fallback));
+        assertEquals(text(template), text(fallback));
+    }
+
+    @Test
+    void fiftyConcurrentDownloadsStreamCompleteDocumentsWithASmallInMemoryBudget() throws Exception {
+        // Anything above 64 KiB per document goes to a scratch file
+        ReflectionTestUtils.setField(service, "maxMainMemoryBytes", 64L * 1024);
+
+        ExecutorService downloads = Executors.newFixedThreadPool(50);
+        try {
+            List<Callable<ProbeOutputStream>> tasks = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                tasks.add(() -> {
+                    ProbeOutputStream out = new ProbeOutputStream();
+                    service.writeMedicalRecordPdf(data, out);
+                    return out;
+                });
+            }
+            List<Long> sizes = new ArrayList<>();
+            for (Future<ProbeOutputStream> result : downloads.invokeAll(tasks, 60, TimeUnit.SECONDS)) {
+                ProbeOutputStream out = result.get();
+                assertArrayEquals("%PDF-".getBytes(StandardCharsets.US_ASCII), out.head);
+                assertTrue(new String(out.tail, StandardCharsets.US_ASCII).contains("%%EOF"));
+                sizes.add(out.count);
+            }
+            assertEquals(1, sizes.stream().distinct().count(), "every download gets the same document: " + sizes);
+        } finally {
+            downloads.shutdownNow();
+        }
+    }
+
+    private static String text(ByteArrayOutputStream pdf) throws IOException {
+        try (PDDocument doc = PDDocument.load(pdf.toByteArray())) {
+            return new PDFTextStripper().getText(doc);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.edutech.healthcare_appointment_management_system.service;
+
+import com.edutech.healthcare_appointment_management_system.repository.AppointmentRepository;
+import com.edutech.healthcare_appointment_management_system.repository.AppointmentRepository.SlotView;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SlotOccupancyIndexTest {
+
+    private static final long DOCTOR_ID = 7L;
+
+    private AppointmentRepository repository;
+    private SlotOccupancyIndex index;
+
+    // Backing "table": appointment time in millis -> appointment id
+    private final NavigableMap<Long, Long> history = new TreeMap<>();
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(AppointmentRepository.class);
+        when(repository.findSlotsByDoctorIdAndTimeRange(eq(DOCTOR_ID), any(Date.class), any(Date.class)))
+                .thenAnswer(inv -> {
+                    Date from = inv.getArgument(1);
+                    Date to = inv.getArgument(2);
+                    List<SlotView> slots = new ArrayList<>();
+                    history.subMap(from.getTime(), true, to.getTime(), false)
+                           .forEach((time, id) -> slots.add(slot(id, time)));
+                    return slots;
+                });
+        index = new SlotOccupancyIndex(repository, 120);
+    }
+
+    @Test
+    void blocksAppointmentsWithinFifteenMinutes() {
+        history.put(at(2021, 8, 1, 9, 0).getTime(), 1L);
+
+        assertFalse(index.isFree(DOCTOR_ID, at(2021, 8, 1, 9, 0)));
+        assertFalse(index.isFree(DOCTOR_ID, at(2021, 8, 1, 9, 14)));
+        assertFalse(index.isFree(DOCTOR_ID, at(2021, 8, 1, 8, 46)));
+        assertTrue(index.isFree(DOCTOR_ID, at(2021, 8, 1, 9, 15)));
+        assertTrue(index.isFree(DOCTOR_ID, at(2021, 8, 1, 8, 45)));
+        assertTrue(index.isFree(DOCTOR_ID, at(2021, 8, 1, 9, 0), 1L));
+    }
+
+    @Test
+    void checksTheNeighbouringDayAroundMidnight() {
+        history.put(at(2021, 8, 1, 23, 55).getTime(), 1L);
+
+        assertFalse(index.isFree(DOCTOR_ID, at(2021, 8, 2, 0, 5)));
+    }
+
+    @Test
+    void staysInSyncOnBookRescheduleAndDelete() {
+        Date nine = at(2021, 8, 1, 9, 0);
+        Date ten = at(2021, 8, 1, 10, 0);
+        assertTrue(index.isFree(DOCTOR_ID, nine));
+
+        index.add(DOCTOR_ID, 1L, nine);
+        assertFalse(index.isFree(DOCTOR_ID, nine));
+
+        index.move(DOCTOR_ID, 1L, nine, ten);
+        assertTrue(index.isFree(DOCTOR_ID, nine));
+        assertFalse(index.isFree(DOCTOR_ID, ten));
+
+        index.remove(DOCTOR_ID, 1L, ten);
+        assertTrue(index.isFree(DOCTOR_ID, ten));
+
+        // Every check above was served from the single cached day bucket
+        verify(repository, times(1)).findSlotsByDoctorIdAndTimeRange(eq(DOCTOR_ID), any(Date.class), any(Date.class));
+    }
+
+    @Test
+    void trustsFreshDaysAndReloadsStaleOrInvalidatedOnes() throws InterruptedException {
+        index = new SlotOccupancyIndex(repository, 120, Duration.ofMillis(300));
+        Date nine = at(2021, 8, 1, 9, 0);
+        assertTrue(index.isFree(DOCTOR_ID, nine));
+
+        // Booked through another instance: within the TTL the cached day answers without a query
+        history.put(at(2021, 8, 1, 9, 10).getTime(), 2L);
+        assertTrue(index.isFree(DOCTOR_ID, nine));
+        verify(repository, times(1)).findSlotsByDoctorIdAndTimeRange(eq(DOCTOR_ID), any(Date.class), any(Date.class));
+
+        // Dropped after the database refused a booking
+        index.invalidate(DOCTOR_ID, nine);
+        assertFalse(index.isFree(DOCTOR_ID, nine));
+
+        // Cancelled through another instance: seen once the TTL has run out
+        history.clear();
+        assertFalse(index.isFree(DOCTOR_ID, nine));
+        Thread.sleep(400);
+        assertTrue(index.isFree(DOCTOR_ID, nine));
+        verify(repository, times(3)).findSlotsByDoctorIdAndTimeRange(eq(DOCTOR_ID), any(Date.class), any(Date.class));
+    }
+
+    @Test
+    void lookupOnlyQueriesTheRequestedDayRegardlessOfHistorySize() {
+        // 1,000,000 appointments, one every 30 minutes, spanning ~57 years around the requested day
+        long step = 2 * SlotOccupancyIndex.SLOT_MILLIS;
+        long start = at(2021, 8, 1, 0, 0).getTime() - 500_000L * step;
+        for (long i = 0; i < 1_000_000L; i++) {
+            history.put(start + i * step, i + 1);
+        }
+
+        assertFalse(index.isFree(DOCTOR_ID, at(2021, 8, 1, 9, 10)));
+        assertTrue(index.isFree(DOCTOR_ID, at(2021, 8, 1, 9, 15)));
+
+        ArgumentCaptor<Date> from = ArgumentCaptor.forClass(Date.class);
+        ArgumentCaptor<Date> to = ArgumentCaptor.forClass(Date.class);
+        verify(repository, atMost(2)).findSlotsByDoctorIdAndTimeRange(eq(DOCTOR_ID), from.capture(), to.capture());
+        for (int i = 0; i < from.getAllValues().size(); i++) {
+            long window = to.getAllValues().get(i).getTime() - from.getAllValues().get(i).getTime();
+            assertTrue(window <= 25 * 60 * 60 * 1000L, "range query must be bounded to a single day");
+        }
+    }
+
+    private static Date at(int year, int month, int day, int hour, int minute) {
+        return Date.from(LocalDateTime.of(year, month, day, hour, minute).atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static SlotView slot(Long id, long time) {
+        return new SlotView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Date getAppointmentTime() {
+                return new Date(time);
+            }
+        };
+    }
+}